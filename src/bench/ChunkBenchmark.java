@@ -0,0 +1,82 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import shooter.world.Biome;
+import shooter.world.ChunkStore;
+import shooter.world.WorldChunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/* ChunkBenchmark
+ *
+ * Cost of generating one chunk of each biome, from its terrain
+ * and decorations through to its baked mesh, which is the work
+ * the world's generator thread does for every chunk. Each
+ * invocation makes a different chunk of the same world.
+ * load() reads chunks of the same world back from a chunk
+ * file instead, which still bakes their meshes.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChunkBenchmark
+{
+    private static final long SEED = 17;
+    private static final int STORED_CHUNKS = 64;
+
+    @Param({"HILLS", "DESERT", "ICE"})
+    public Biome biome;
+
+    private int index;
+    private Path file;
+    private ChunkStore store;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        index = 0;
+        List<WorldChunk> chunks = new ArrayList<>();
+        for (int c = 0; c < STORED_CHUNKS; c++)
+            chunks.add(new WorldChunk(SEED, c, biome));
+        file = Files.createTempFile("chunks", ".bin");
+        ChunkStore.write(file, SEED, chunks);
+        store = ChunkStore.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public WorldChunk generate()
+    {
+        return new WorldChunk(SEED, index++, biome);
+    }
+
+    @Benchmark
+    public WorldChunk load()
+    {
+        return store.read(index++ % STORED_CHUNKS);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(ChunkBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
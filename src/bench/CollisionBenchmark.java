@@ -0,0 +1,131 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import shooter.actors.Actor;
+import shooter.actors.ActorPool;
+import shooter.actors.EnemyBullet;
+import shooter.actors.PlayerBullet;
+import shooter.particles.SpatialHash;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* CollisionBenchmark
+ *
+ * Cost of checking the player's bullets against enemy
+ * bullets, with the spatial hash broadphase and with the
+ * brute-force pairwise check, as the number of bullets grows.
+ * Bullets are spread over a jittered lattice which is too
+ * wide for any two to touch, so no bullet is killed and every
+ * invocation does the same work.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark
+{
+    private static final float
+            // distance between lattice points, more than twice a bullet's collision radius
+            SPACING = 0.1f,
+            JITTER = 0.004f,
+            // the lattice covers at least the area bullets can exist in
+            MIN_WIDTH = 5.f,
+            MIN_HEIGHT = 4.5f;
+
+    // number of bullets fired by each side
+    @Param({"10", "100", "500", "1000", "2500", "5000"})
+    public int numBullets;
+
+    private final ActorPool<PlayerBullet> playerBullets = new ActorPool<>(PlayerBullet::new);
+    private final ActorPool<EnemyBullet> enemyBullets = new ActorPool<>(EnemyBullet::new);
+    private final SpatialHash grid = new SpatialHash();
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(numBullets);
+        int cols = Math.max((int)(MIN_WIDTH / SPACING), (int)Math.ceil(Math.sqrt(numBullets * 2.0)));
+        int rows = Math.max((int)(MIN_HEIGHT / SPACING), (numBullets * 2 + cols - 1) / cols);
+
+        // shuffle lattice points so the two sides are interleaved
+        List<Integer> points = new ArrayList<>();
+        for (int i = 0; i < cols * rows; i++)
+            points.add(i);
+        Collections.shuffle(points, rand);
+
+        float[] vel = new float[3], angle = new float[3];
+        for (int i = 0; i < numBullets * 2; i++)
+        {
+            int p = points.get(i);
+            float[] pos = {
+                    (p % cols) * SPACING - cols * SPACING / 2.f + (rand.nextFloat() * 2.f - 1.f) * JITTER,
+                    (p / cols) * SPACING - rows * SPACING / 2.f + (rand.nextFloat() * 2.f - 1.f) * JITTER,
+                    0.f
+            };
+            if (i % 2 == 0)
+                playerBullets.obtain().reset(pos, vel, angle);
+            else
+                enemyBullets.obtain().reset(pos, vel, angle);
+        }
+    }
+
+    // Brute-force collision check between every pair of actors in two pools,
+    // the cost the grid is compared against.
+    private static void checkPairs(ActorPool<? extends Actor> poolA, ActorPool<? extends Actor> poolB)
+    {
+        float[] aPos = new float[3], aPrev = new float[3], bPos = new float[3], bPrev = new float[3];
+        for (int i = 0; i < poolA.size(); i++)
+        {
+            Actor a = poolA.get(i);
+            if (a.isKilled())
+                continue;
+            a.getPos(aPos);
+            a.getPrevPos(aPrev);
+            for (int j = 0; j < poolB.size(); j++)
+            {
+                Actor b = poolB.get(j);
+                if (b.isKilled())
+                    continue;
+                b.getPos(bPos);
+                b.getPrevPos(bPrev);
+                if (SpatialHash.sweptOverlap(aPrev, aPos, a.getCollisionRadius(), bPrev, bPos, b.getCollisionRadius()))
+                {
+                    a.setKilled();
+                    b.setKilled();
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public int spatialHash()
+    {
+        grid.rebuild(playerBullets);
+        grid.checkCollisions(enemyBullets);
+        return grid.getNumEntries();
+    }
+
+    @Benchmark
+    public int pairwise()
+    {
+        checkPairs(enemyBullets, playerBullets);
+        return enemyBullets.size();
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(CollisionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
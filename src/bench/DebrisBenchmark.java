@@ -0,0 +1,122 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import shooter.GameRandom;
+import shooter.particles.EffectFactory;
+import shooter.particles.ParticleEmitter;
+import shooter.world.Biome;
+import shooter.world.ChunkStore;
+import shooter.world.World;
+import shooter.world.WorldChunk;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* DebrisBenchmark
+ *
+ * Cost of one frame of debris falling onto ice terrain, with
+ * and without keeping it above the ground, as the number of
+ * particles in flight grows. The world is streamed from a file
+ * of ice chunks, so the debris lands among mesas. Debris is
+ * spawned at random points over the screen at different times,
+ * and each effect is spawned again where it was once it
+ * expires, so every frame has debris falling, bouncing and
+ * resting.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DebrisBenchmark
+{
+    private static final long SEED = 23;
+    private static final int STORED_CHUNKS = 8;
+    private static final float
+            FRAME_MILLIS = 16.f,
+            // chunks scrolled per millisecond, as in the game
+            SCROLL_SPEED = 0.00072f,
+            HALF_W = 2.f,
+            HALF_H = 1.5f,
+            SPAWN_Z = 0.8f;
+
+    // particles in flight, 200 per effect
+    @Param({"1000", "5000", "10000"})
+    public int numParticles;
+
+    @Param({"false", "true"})
+    public boolean collide;
+
+    private Path file;
+    private World world;
+    private final List<ParticleEmitter> effects = new ArrayList<>();
+    private final List<float[]> positions = new ArrayList<>();
+
+    @Setup
+    public void setup() throws IOException
+    {
+        List<WorldChunk> chunks = new ArrayList<>();
+        for (int c = 0; c < STORED_CHUNKS; c++)
+            chunks.add(new WorldChunk(SEED, c, Biome.ICE));
+        file = Files.createTempFile("ice", ".bin");
+        ChunkStore.write(file, SEED, chunks);
+        world = new World(ChunkStore.open(file), World.DEFAULT_CACHE_BYTES);
+
+        GameRandom.seedAll(SEED);
+        Random rand = new Random(SEED);
+        int numEffects = numParticles / EffectFactory.DEBRIS.getCapacity();
+        float lifespan = 3000.f;
+        for (int e = 0; e < numEffects; e++)
+        {
+            float[] pos = {(rand.nextFloat() * 2.f - 1.f) * HALF_W, (rand.nextFloat() * 2.f - 1.f) * HALF_H, SPAWN_Z};
+            ParticleEmitter debris = new ParticleEmitter(EffectFactory.DEBRIS, pos, null);
+            // stagger the effects so they aren't all at the same point in their lives
+            int frames = (int)(rand.nextFloat() * lifespan / FRAME_MILLIS);
+            for (int f = 0; f < frames; f++)
+                step(debris, pos);
+            effects.add(debris);
+            positions.add(pos);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException
+    {
+        Files.deleteIfExists(file);
+    }
+
+    private void step(ParticleEmitter debris, float[] pos)
+    {
+        debris.update(FRAME_MILLIS);
+        if (collide)
+            debris.collide(world);
+        if (debris.isExpired())
+            debris.reset(pos, null);
+    }
+
+    @Benchmark
+    public World frame()
+    {
+        world.scrollWorld(SCROLL_SPEED * FRAME_MILLIS, FRAME_MILLIS);
+        for (int e = 0; e < effects.size(); e++)
+            step(effects.get(e), positions.get(e));
+        return world;
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(DebrisBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,110 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import processing.core.PMatrix3D;
+import shooter.Rotations;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/* RotationBenchmark
+ *
+ * Cost of rotating a batch of velocities about the z-axis, the
+ * way enemies turn and emitters aim their particles. The
+ * matrix paths are what the game used to do: a new PMatrix3D
+ * for every rotation, or one PMatrix3D reset and reused. The
+ * primitive paths rotate float triples in place with
+ * Rotations, computing sin/cos for each vector or reusing a
+ * CachedAngle when every vector turns by the same angle.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RotationBenchmark
+{
+    private static final int NUM_VECTORS = 1024;
+
+    private final float[][] vectors = new float[NUM_VECTORS][3];
+    private final float[] angles = new float[NUM_VECTORS];
+    private final float[] scratch = new float[3];
+    private final PMatrix3D reused = new PMatrix3D();
+    private final Rotations.CachedAngle cached = new Rotations.CachedAngle();
+
+    @Setup
+    public void setup()
+    {
+        Random rand = new Random(NUM_VECTORS);
+        for (int i = 0; i < NUM_VECTORS; i++)
+        {
+            vectors[i][0] = rand.nextFloat() * 2.f - 1.f;
+            vectors[i][1] = rand.nextFloat() * 2.f - 1.f;
+            vectors[i][2] = rand.nextFloat() * 2.f - 1.f;
+            // small turns, like an enemy turning for one frame
+            angles[i] = rand.nextFloat() * 0.02f - 0.01f;
+        }
+    }
+
+    @Benchmark
+    public float matrixAllocating()
+    {
+        for (int i = 0; i < NUM_VECTORS; i++)
+        {
+            float sin = (float)Math.sin(angles[i]), cos = (float)Math.cos(angles[i]);
+            PMatrix3D m = new PMatrix3D(
+                    cos, -sin, 0, 0,
+                    sin, cos, 0, 0,
+                    0, 0, 1, 0,
+                    0, 0, 0, 1);
+            m.mult(vectors[i], scratch);
+            System.arraycopy(scratch, 0, vectors[i], 0, 3);
+        }
+        return vectors[0][0];
+    }
+
+    @Benchmark
+    public float matrixReused()
+    {
+        for (int i = 0; i < NUM_VECTORS; i++)
+        {
+            reused.reset();
+            reused.rotateZ(angles[i]);
+            reused.mult(vectors[i], scratch);
+            System.arraycopy(scratch, 0, vectors[i], 0, 3);
+        }
+        return vectors[0][0];
+    }
+
+    @Benchmark
+    public float primitive()
+    {
+        for (int i = 0; i < NUM_VECTORS; i++)
+            Rotations.rotateZ(vectors[i], angles[i], vectors[i]);
+        return vectors[0][0];
+    }
+
+    // every vector turns by the same angle, as with a frame of fixed length
+    @Benchmark
+    public float primitiveCached()
+    {
+        for (int i = 0; i < NUM_VECTORS; i++)
+        {
+            cached.set(angles[0]);
+            Rotations.rotateZ(vectors[i], cached, vectors[i]);
+        }
+        return vectors[0][0];
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(RotationBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,69 @@
+package bench;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import shooter.GameRandom;
+import shooter.world.*;
+
+import java.util.concurrent.TimeUnit;
+
+/* TerrainBenchmark
+ *
+ * Chunks per second each terrain generator makes for each
+ * biome. ground() only makes the ground, which is all the
+ * generators differ in; chunk() makes whole chunks with it,
+ * mesas, decorations and meshes included, which is what the
+ * world's generator thread keeps up with. Each invocation makes
+ * a different chunk of the same world.
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TerrainBenchmark
+{
+    private static final long SEED = 17;
+
+    @Param({"HILLS", "DESERT", "ICE"})
+    public Biome biome;
+
+    @Param({"STAMPED", "NOISE"})
+    public String generatorName;
+
+    private TerrainGenerator generator;
+    private int index;
+
+    @Setup
+    public void setup()
+    {
+        generator = generatorName.equals("NOISE") ? TerrainGenerator.NOISE : TerrainGenerator.STAMPED;
+        index = 0;
+    }
+
+    @Benchmark
+    public TileGrid ground()
+    {
+        TileGrid grid = new TileGrid(WorldChunk.CHUNK_W, WorldChunk.CHUNK_H, TileMaterial.HILLS);
+        generator.generate(grid, SEED, index, biome, biome, GameRandom.forKey(SEED, index));
+        ++index;
+        return grid;
+    }
+
+    @Benchmark
+    public WorldChunk chunk()
+    {
+        return new WorldChunk(SEED, index++, biome, generator);
+    }
+
+    public static void main(String[] args) throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(TerrainBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -7,15 +7,15 @@ public class Camera
     // length of camera switch animation, in milliseconds
     private static final float CAM_SWITCH_LENGTH = 1000.f;
 
-    private final GameSketch sketch; // change to a parameter for setupCamera?
+    private final RenderBackend renderer; // change to a parameter for setupCamera?
     private boolean orthoMode;
     private boolean switchingToFrustum;
     private boolean switchingToOrtho;
     private float cameraTimer;
 
-    public Camera(GameSketch sketch)
+    public Camera(RenderBackend renderer)
     {
-        this.sketch = sketch;
+        this.renderer = renderer;
         orthoMode = true;
         switchingToFrustum = false;
         switchingToOrtho = false;
@@ -32,7 +32,7 @@ public class Camera
     {
         if (switchingToFrustum)
         {
-            sketch.interpolateCamera(cameraTimer / CAM_SWITCH_LENGTH);
+            renderer.interpolateCamera(cameraTimer / CAM_SWITCH_LENGTH);
             if ((cameraTimer += elapsedMillis) >= CAM_SWITCH_LENGTH)
             {
                 cameraTimer = -1.f;
@@ -42,7 +42,7 @@ public class Camera
         }
         else if (switchingToOrtho)
         {
-            sketch.interpolateCamera(1.f - (cameraTimer / CAM_SWITCH_LENGTH));
+            renderer.interpolateCamera(1.f - (cameraTimer / CAM_SWITCH_LENGTH));
             if ((cameraTimer += elapsedMillis) >= CAM_SWITCH_LENGTH)
             {
                 cameraTimer = -1.f;
@@ -73,6 +73,6 @@ public class Camera
 
     private void updateCameraMode()
     {
-        sketch.toggleProjection(orthoMode);
+        renderer.toggleProjection(orthoMode);
     }
 }
@@ -3,18 +3,18 @@ package shooter;
 public class GameMath
 {
     // return random float in range [-bound, bound)
-    public static float biRand(float bound)
+    public static float biRand(GameRandom rand, float bound)
     {
-        return (float)Math.random() * 2.f * bound - bound;
+        return rand.nextFloat() * 2.f * bound - bound;
     }
-    public static int biRand(int bound)
+    public static int biRand(GameRandom rand, int bound)
     {
-        return (int)(Math.random() * 2.0 * bound) - bound;
+        return (int)(rand.nextDouble() * 2.0 * bound) - bound;
     }
 
-    public static float randRange(float low, float high)
+    public static float randRange(GameRandom rand, float low, float high)
     {
-        return (float)Math.random() * (high - low) + low;
+        return rand.nextFloat() * (high - low) + low;
     }
 
     public static int constrain(int val, int lower, int upper)
@@ -0,0 +1,79 @@
+package shooter;
+
+import java.util.SplittableRandom;
+
+/* GameRandom
+ *
+ * Seedable random number streams, one for each subsystem, all
+ * split from a single game seed. Running with the same seed
+ * reproduces the same world, enemies and particles, as long as
+ * each subsystem draws its numbers in the same order.
+ *
+ * The streams are not synchronized, so using them costs no
+ * more than a few arithmetic operations. Each stream is meant
+ * to be used by one thread at a time; work moved onto another
+ * thread should take its own generator with split().
+ */
+
+public class GameRandom
+{
+    public static final GameRandom
+            // world seeds, which each chunk's own stream comes from (see forKey)
+            WORLD = new GameRandom(),
+            // enemies, their attacks and the player's bullets
+            SPAWNING = new GameRandom(),
+            // particle effects
+            PARTICLES = new GameRandom();
+
+    private static long seed;
+    static
+    {
+        seedAll(System.nanoTime());
+    }
+
+    private SplittableRandom rand;
+
+    private GameRandom() {}
+
+    // reseed every stream from one seed
+    public static void seedAll(long s)
+    {
+        seed = s;
+        SplittableRandom root = new SplittableRandom(s);
+        WORLD.rand = root.split();
+        SPAWNING.rand = root.split();
+        PARTICLES.rand = root.split();
+    }
+
+    public static long getSeed() {return seed;}
+
+    // A stream of its own which is always the same for the same seed and
+    // key, e.g. a world's seed and a chunk's index, whatever was drawn before.
+    public static GameRandom forKey(long seed, long key)
+    {
+        GameRandom result = new GameRandom();
+        // mix the key first, so streams for neighbouring keys don't overlap
+        result.rand = new SplittableRandom(seed ^ new SplittableRandom(key).nextLong());
+        return result;
+    }
+
+    // random float in range [0, 1)
+    public float nextFloat()
+    {
+        // 24 random bits fit exactly in a float's mantissa, so the result never rounds up to 1
+        return (rand.nextInt() >>> 8) * 0x1.0p-24f;
+    }
+
+    // random double in range [0, 1)
+    public double nextDouble() {return rand.nextDouble();}
+
+    public long nextLong() {return rand.nextLong();}
+
+    // random int in range [0, bound)
+    public int nextInt(int bound) {return rand.nextInt(bound);}
+
+    public boolean nextBoolean() {return rand.nextBoolean();}
+
+    // an independent generator for use on another thread, advances this stream
+    public SplittableRandom split() {return rand.split();}
+}
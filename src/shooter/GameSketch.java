@@ -2,12 +2,13 @@ package shooter;
 
 import processing.core.*;
 import processing.opengl.PGraphicsOpenGL;
+import shooter.world.Mesh;
 import shooter.world.WorldChunk;
 
 import static shooter.Interpolate.expInterpFloat;
 import static shooter.Interpolate.lerpFloat;
 
-public class GameSketch extends PApplet implements GameConstants
+public class GameSketch extends PApplet implements GameConstants, RenderBackend
 {
     private static final float
             ORTHO_SCREEN_TILES = 20.f, // screen will be this wide in tiles
@@ -55,6 +56,8 @@ public class GameSketch extends PApplet implements GameConstants
     private PGraphicsOpenGL graphics = null;
     // projections used for the different modes
     private PMatrix3D orthoProjection = null, frustumProjection = null;
+    // where the camera currently is
+    private final float[] cameraEye = {CAM_X, CAM_Y_START, CAM_Z_START};
 
     private int lastTime;
     private final boolean debugMode; // only passed to gameState
@@ -158,12 +161,20 @@ public class GameSketch extends PApplet implements GameConstants
         }
     }
 
+    @Override
+    public void drawMesh(Mesh mesh)
+    {
+        mesh.drawShapes(this);
+    }
+
+    @Override
     public void toggleProjection(boolean ortho)
     {
         resetMatrix();
         if (ortho)
         {
             setProjection(orthoProjection);
+            setCameraEye(CAM_X, CAM_Y_START, CAM_Z_START);
             camera(CAM_X, CAM_Y_START, CAM_Z_START,
                     0, 0, 0,
                     CAM_UP_X_START, CAM_UP_Y_START, CAM_UP_Z_START);
@@ -171,12 +182,85 @@ public class GameSketch extends PApplet implements GameConstants
         else
         {
             setProjection(frustumProjection);
+            setCameraEye(CAM_X, CAM_Y_END, CAM_Z_END);
             camera(CAM_X, CAM_Y_END, CAM_Z_END,
                     0, 0, 0,
                     CAM_UP_X_END, CAM_UP_Y_END, CAM_UP_Z_END);
         }
     }
 
+    @Override
+    public void updateViewVolume(ViewVolume view)
+    {
+        if (graphics != null)
+            view.set(graphics.projmodelview);
+    }
+
+    @Override
+    public float[] getCameraEye()
+    {
+        return cameraEye;
+    }
+
+    private void setCameraEye(float x, float y, float z)
+    {
+        cameraEye[0] = x;
+        cameraEye[1] = y;
+        cameraEye[2] = z;
+    }
+
+    // where the camera's eye is part way from the orthographic view (0) to the
+    // perspective one (1), for backends which only need to know where it is
+    static void cameraEyeAt(float t, float[] eye)
+    {
+        eye[0] = CAM_X;
+        eye[1] = expInterpFloat(t, CAM_Y_START, CAM_Y_END);
+        eye[2] = expInterpFloat(1.f - t, CAM_Z_END, CAM_Z_START);
+    }
+
+    // The matrices camera() and setupProjections() give, for backends without
+    // a renderer to make them, with the window aspect = width / height.
+    // cameraMatrix is the camera part way from the orthographic view (0) to
+    // the perspective one (1), before interpolateCamera crushes the z axis.
+    static PMatrix3D orthoMatrix(float aspect)
+    {
+        float halfW = ORTHO_WIDTH / 2.f, halfH = halfW / aspect;
+        return new PMatrix3D(
+                1.f / halfW, 0, 0, 0,
+                0, 1.f / halfH, 0, 0, // y-up, as ortho() is given it
+                0, 0, -2.f / (FAR - NEAR), -(FAR + NEAR) / (FAR - NEAR),
+                0, 0, 0, 1);
+    }
+
+    static PMatrix3D frustumMatrix(float aspect)
+    {
+        // the horizontal fov is fixed, so the vertical one depends on the aspect
+        float f = aspect / tan(H_FOV / 2.f);
+        return new PMatrix3D(
+                f / aspect, 0, 0, 0,
+                0, f, 0, 0, // y-up, as fixFrustumYFlip() leaves it
+                0, 0, (FAR + NEAR) / (NEAR - FAR), 2.f * FAR * NEAR / (NEAR - FAR),
+                0, 0, -1, 0);
+    }
+
+    static PMatrix3D cameraMatrix(float t)
+    {
+        float[] eye = new float[3];
+        cameraEyeAt(t, eye);
+        PVector e = new PVector(eye[0], eye[1], eye[2]),
+                up = new PVector(lerpFloat(t, CAM_UP_X_START, CAM_UP_X_END),
+                        expInterpFloat(t, CAM_UP_Y_START, CAM_UP_Y_END),
+                        expInterpFloat(1.f - t, CAM_UP_Z_END, CAM_UP_Z_START));
+        // looking at the origin
+        PVector z = e.copy().normalize(), x = up.cross(z).normalize(), y = z.cross(x);
+        return new PMatrix3D(
+                x.x, x.y, x.z, -x.dot(e),
+                y.x, y.y, y.z, -y.dot(e),
+                z.x, z.y, z.z, -z.dot(e),
+                0, 0, 0, 1);
+    }
+
+    @Override
     public void interpolateCamera(float t)
     {
         float
@@ -188,6 +272,7 @@ public class GameSketch extends PApplet implements GameConstants
 
         resetMatrix();
         setProjection(frustumProjection);
+        setCameraEye(CAM_X, camY, camZ);
         camera(CAM_X, camY, camZ,
                 0, 0, 0,
                 camUpX, camUpY, camUpZ);
@@ -32,11 +32,13 @@ public class GameState {
             STARTING_LIVES = 3;
 
     private final ParticleTracker particles;
-    private final GameSketch sketch;
+    private final RenderBackend renderer;
     private final Camera camera;
+    // region visible to the camera, updated each frame once the camera is set up
+    private final ViewVolume viewVolume = new ViewVolume();
     private final World gameWorld;
     // private final ParticleTracker gameParticles;
-    private Player player; // not final, as a new player is created on respawn
+    private final Player player; // reset in place on respawn
 
     private int playerLives = STARTING_LIVES;
 
@@ -61,21 +63,25 @@ public class GameState {
             gameOverTimer = 0.f,
             currScrollSpeed = SCROLL_SPEED; // slows to a halt when game ends
 
-    public GameState(GameSketch sketch, boolean debug) {
-        this.sketch = sketch;
+    public GameState(RenderBackend renderer, boolean debug) {
+        this.renderer = renderer;
         this.DEBUG = debug;
-        this.camera = new Camera(sketch);
+        this.camera = new Camera(renderer);
         this.gameWorld = new World();
         this.player = new Player(this);
         // ParticleTracker.setPlayer(this.player);
         this.particles = new ParticleTracker();
         particles.setPlayer(player);
+        particles.setViewVolume(viewVolume);
+        gameWorld.setViewVolume(viewVolume);
+        particles.setGround(gameWorld);
     }
 
     public void update(float elapsedMillis) {
         // ParticleTracker.update(elapsedMillis, collisionsOn, gameIsOver);
+        // scroll first, so particles land on the ground where it is this frame, moving at this frame's speed
+        gameWorld.scrollWorld(currScrollSpeed * elapsedMillis, elapsedMillis);
         particles.update(elapsedMillis, collisionsOn, gameIsOver);
-        gameWorld.scrollWorld(currScrollSpeed * elapsedMillis);
 
         // if the game is over, slow down the map scrolling
         if (gameIsOver)
@@ -97,7 +103,7 @@ public class GameState {
             if ((respawnTimer += elapsedMillis) >= RESPAWN_WAIT)
             {
                 respawnTimer = 0.f;
-                player = new Player(this);
+                player.reset();
                 // ParticleTracker.setPlayer(player);
                 particles.setPlayer(player);
                 respawning = false;
@@ -131,12 +137,14 @@ public class GameState {
         }
 
         camera.setupCamera(elapsedMillis);
+        renderer.updateViewVolume(viewVolume);
     }
 
     public void draw() {
-        gameWorld.drawWorld(sketch);
-        // ParticleTracker.drawParticles(sketch);
-        particles.drawParticles(sketch);
+        // distant terrain is coarser in perspective, the orthographic view has it all in full detail
+        gameWorld.drawWorld(renderer, camera.isUsingOrtho() ? null : renderer.getCameraEye());
+        // ParticleTracker.drawParticles(renderer);
+        particles.drawParticles(renderer);
         drawLives();
     }
 
@@ -171,7 +179,11 @@ public class GameState {
     public void printDebugInfo()
     {
         if (DEBUG)
+        {
+            System.out.println("Seed: " + GameRandom.getSeed());
             particles.printDebugInfo();
+            gameWorld.printDebugInfo();
+        }
     }
 
     public void scrollUp()
@@ -187,42 +199,42 @@ public class GameState {
     }
 
     private void drawLives() {
-        sketch.pushMatrix();
+        renderer.pushMatrix();
 
         // draw lives to screen in same spot, regardless of camera position
-        sketch.resetMatrix();
+        renderer.resetMatrix();
         // if camera is not in perspective mode, and not interpolating between modes, use LIVES_ORTHO_Z
         if (camera.isUsingOrtho()) {
-            sketch.translate(LIVES_ORTHO_X, LIVES_ORTHO_Y, LIVES_ORTHO_Z);
-            sketch.scale(LIVES_ORTHO_SIZE, LIVES_ORTHO_SIZE, 1.f);
+            renderer.translate(LIVES_ORTHO_X, LIVES_ORTHO_Y, LIVES_ORTHO_Z);
+            renderer.scale(LIVES_ORTHO_SIZE, LIVES_ORTHO_SIZE, 1.f);
         }
         // otherwise, a perspective projection is being used, use LIVES_PERSPECTIVE_Z
         else
         {
-            sketch.translate(LIVES_PERSPECTIVE_X, LIVES_PERSPECTIVE_Y, LIVES_PERSPECTIVE_Z);
-            sketch.scale(LIVES_PERSPECTIVE_SIZE, LIVES_PERSPECTIVE_SIZE, 1.f);
+            renderer.translate(LIVES_PERSPECTIVE_X, LIVES_PERSPECTIVE_Y, LIVES_PERSPECTIVE_Z);
+            renderer.scale(LIVES_PERSPECTIVE_SIZE, LIVES_PERSPECTIVE_SIZE, 1.f);
         }
 
         for (int i = 0; i < playerLives; i++)
         {
-            sketch.pushMatrix();
+            renderer.pushMatrix();
 
-            sketch.rotateZ(GameConstants.HALF_PI);
-            sketch.beginShape(PConstants.TRIANGLE_STRIP);
-            sketch.texture(Textures.PLAYER_BASE);
+            renderer.rotateZ(GameConstants.HALF_PI);
+            renderer.beginShape(PConstants.TRIANGLE_STRIP);
+            renderer.texture(Textures.PLAYER_BASE);
 
-            sketch.vertex(-1.f, 1.f, 0.f,   0.f, 0.f);
-            sketch.vertex(-1.f, -1.f, 0.f,  0.f, 1.f);
-            sketch.vertex(1.f, 1.f, 0.f,    1.f, 0.f);
-            sketch.vertex(1.f, -1.f, 0.f,   1.f, 1.f);
+            renderer.vertex(-1.f, 1.f, 0.f,   0.f, 0.f);
+            renderer.vertex(-1.f, -1.f, 0.f,  0.f, 1.f);
+            renderer.vertex(1.f, 1.f, 0.f,    1.f, 0.f);
+            renderer.vertex(1.f, -1.f, 0.f,   1.f, 1.f);
 
-            sketch.endShape();
-            sketch.popMatrix();
+            renderer.endShape();
+            renderer.popMatrix();
 
             // draw next life to the right of the previous one
-            sketch.translate(LIVES_SPACING, 0.f, 0.f);
+            renderer.translate(LIVES_SPACING, 0.f, 0.f);
         }
 
-        sketch.popMatrix();
+        renderer.popMatrix();
     }
 }
@@ -0,0 +1,22 @@
+package shooter;
+
+/* HeightField
+ *
+ * Ground which things can land on, as a height for every point
+ * of the xy plane, in world units. The ground may be moving
+ * along y, as the world's terrain does while it scrolls.
+ */
+
+public interface HeightField
+{
+    // height of the ground at (x, y)
+    float getHeight(float x, float y);
+
+    // No lower than the highest the ground gets anywhere from (minX, minY)
+    // to (maxX, maxY). Cheap enough to ask before testing many points in
+    // the box, so none of them need testing if they're all above it.
+    float getMaxHeight(float minX, float minY, float maxX, float maxY);
+
+    // speed the ground is moving along y, in units per millisecond
+    float getVelocityY();
+}
@@ -6,6 +6,9 @@ public class Main
 {
     public static void main(String[] args)
     {
+        // an optional seed makes runs reproducible
+        if (args.length > 0)
+            GameRandom.seedAll(Long.parseLong(args[0]));
         String[] pArgs = {"Test Sketch"};
         GameSketch gameSketch = new GameSketch(900, 900, 60, true);
         PApplet.runSketch(pArgs, gameSketch);
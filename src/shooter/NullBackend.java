@@ -0,0 +1,72 @@
+package shooter;
+
+import processing.core.PImage;
+import shooter.world.Mesh;
+
+/* NullBackend
+ *
+ * A render backend which draws nothing, so the game can run
+ * without a window or GL context: in tests, or to simulate
+ * many frames quickly. The camera's eye still moves between
+ * the views as it does in GameSketch, so terrain chooses the
+ * same levels of detail. Nothing is culled: the whole world
+ * counts as visible, and everything is simulated as if it
+ * were on screen.
+ */
+
+public class NullBackend implements RenderBackend
+{
+    private final float[] cameraEye = new float[3];
+
+    public NullBackend()
+    {
+        GameSketch.cameraEyeAt(0.f, cameraEye);
+    }
+
+    @Override public void pushMatrix() {}
+    @Override public void popMatrix() {}
+    @Override public void resetMatrix() {}
+    @Override public void translate(float x, float y, float z) {}
+    @Override public void scale(float s) {}
+    @Override public void scale(float x, float y, float z) {}
+    @Override public void rotateX(float angle) {}
+    @Override public void rotateY(float angle) {}
+    @Override public void rotateZ(float angle) {}
+
+    @Override public void noStroke() {}
+    @Override public void fill(int rgb) {}
+    @Override public void tint(int rgb) {}
+    @Override public void noTint() {}
+
+    @Override public void beginShape(int kind) {}
+    @Override public void texture(PImage texture) {}
+    @Override public void vertex(float x, float y, float z) {}
+    @Override public void vertex(float x, float y, float z, float u, float v) {}
+    @Override public void endShape() {}
+
+    @Override public void drawMesh(Mesh mesh) {}
+
+    @Override
+    public void toggleProjection(boolean ortho)
+    {
+        GameSketch.cameraEyeAt(ortho ? 0.f : 1.f, cameraEye);
+    }
+
+    @Override
+    public void interpolateCamera(float t)
+    {
+        GameSketch.cameraEyeAt(t, cameraEye);
+    }
+
+    @Override
+    public void updateViewVolume(ViewVolume view)
+    {
+        view.setEverything();
+    }
+
+    @Override
+    public float[] getCameraEye()
+    {
+        return cameraEye;
+    }
+}
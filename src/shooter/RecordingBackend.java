@@ -0,0 +1,146 @@
+package shooter;
+
+import processing.core.PImage;
+import processing.core.PMatrix3D;
+import shooter.world.Mesh;
+
+/* RecordingBackend
+ *
+ * A render backend which draws nothing but counts what each
+ * frame would have cost: shapes, vertices, texture switches
+ * and matrix operations. Each group of a mesh counts as one
+ * shape, as it is one PShape in GameSketch. A texture switch
+ * is a shape drawn with a different texture from the one
+ * before it, untextured being a texture of its own, and the
+ * last texture carries over from one frame to the next as it
+ * does on the GPU. Matrix operations are every push, pop,
+ * transform and camera move.
+ *
+ * The camera is followed with the same matrices GameSketch
+ * would make, so the view volume is the game's, and the counts
+ * leave out whatever the game would cull.
+ *
+ * Call startFrame before drawing each frame; the counts are
+ * for everything drawn since.
+ */
+
+public class RecordingBackend extends NullBackend
+{
+    private int frames = 0;
+    private int shapes, vertices, textureSwitches, matrixOps;
+    // pushes not yet popped
+    private int matrixDepth;
+    // texture of the shape being built, and of the last shape drawn
+    private PImage shapeTexture = null, lastTexture = null;
+    // width / height of the window being imitated
+    private final float aspect;
+    // the camera's projection and modelview, as GameSketch would have them
+    private PMatrix3D projection, camera;
+
+    // counts for a square window, as the game's
+    public RecordingBackend()
+    {
+        this(1, 1);
+    }
+
+    // counts for a window of the given size, in pixels
+    public RecordingBackend(int width, int height)
+    {
+        aspect = (float)width / (float)height;
+        projection = GameSketch.orthoMatrix(aspect);
+        camera = GameSketch.cameraMatrix(0.f);
+    }
+
+    public void startFrame()
+    {
+        ++frames;
+        shapes = 0;
+        vertices = 0;
+        textureSwitches = 0;
+        matrixOps = 0;
+    }
+
+    private void drawShape(PImage texture)
+    {
+        ++shapes;
+        if (texture != lastTexture)
+            ++textureSwitches;
+        lastTexture = texture;
+    }
+
+    @Override public void pushMatrix() {++matrixOps; ++matrixDepth;}
+    @Override public void popMatrix() {++matrixOps; --matrixDepth;}
+    @Override public void resetMatrix() {++matrixOps;}
+    @Override public void translate(float x, float y, float z) {++matrixOps;}
+    @Override public void scale(float s) {++matrixOps;}
+    @Override public void scale(float x, float y, float z) {++matrixOps;}
+    @Override public void rotateX(float angle) {++matrixOps;}
+    @Override public void rotateY(float angle) {++matrixOps;}
+    @Override public void rotateZ(float angle) {++matrixOps;}
+
+    @Override
+    public void beginShape(int kind)
+    {
+        shapeTexture = null;
+    }
+
+    @Override
+    public void texture(PImage texture)
+    {
+        shapeTexture = texture;
+    }
+
+    @Override public void vertex(float x, float y, float z) {++vertices;}
+    @Override public void vertex(float x, float y, float z, float u, float v) {++vertices;}
+
+    @Override
+    public void endShape()
+    {
+        drawShape(shapeTexture);
+    }
+
+    @Override
+    public void drawMesh(Mesh mesh)
+    {
+        for (int g = 0; g < mesh.getNumGroups(); g++)
+        {
+            drawShape(mesh.getTexture(g));
+            vertices += mesh.getNumVertices(g);
+        }
+    }
+
+    @Override
+    public void toggleProjection(boolean ortho)
+    {
+        super.toggleProjection(ortho);
+        projection = ortho ? GameSketch.orthoMatrix(aspect) : GameSketch.frustumMatrix(aspect);
+        camera = GameSketch.cameraMatrix(ortho ? 0.f : 1.f);
+        ++matrixOps;
+    }
+
+    @Override
+    public void interpolateCamera(float t)
+    {
+        super.interpolateCamera(t);
+        projection = GameSketch.frustumMatrix(aspect);
+        camera = GameSketch.cameraMatrix(t);
+        camera.scale(1.f, 1.f, t * t);
+        ++matrixOps;
+    }
+
+    @Override
+    public void updateViewVolume(ViewVolume view)
+    {
+        PMatrix3D m = projection.get();
+        m.apply(camera);
+        view.set(m);
+    }
+
+    public int getFrames() {return frames;}
+    public int getShapes() {return shapes;}
+    public int getVertices() {return vertices;}
+    public int getTextureSwitches() {return textureSwitches;}
+    public int getMatrixOps() {return matrixOps;}
+    // pushes not yet popped, which should be none between frames
+    public int getMatrixDepth() {return matrixDepth;}
+}
@@ -0,0 +1,58 @@
+package shooter;
+
+import processing.core.PImage;
+import shooter.world.Mesh;
+
+/* RenderBackend
+ *
+ * Everything the game draws goes through one of these, so it
+ * can be drawn somewhere other than a window. GameSketch is the
+ * real one: its PApplet methods already have these signatures,
+ * so drawing through it costs the same as calling them
+ * directly. NullBackend draws nothing, for running the game as
+ * a simulation, and RecordingBackend only counts what would
+ * have been drawn, for measuring a frame without a GPU.
+ *
+ * Shape kinds are Processing's (PConstants), colours are ARGB
+ * ints as colorMode(RGB, 1) gives them, and texture
+ * coordinates are normalised.
+ */
+
+public interface RenderBackend
+{
+    // matrix stack
+    void pushMatrix();
+    void popMatrix();
+    void resetMatrix();
+    void translate(float x, float y, float z);
+    void scale(float s);
+    void scale(float x, float y, float z);
+    void rotateX(float angle);
+    void rotateY(float angle);
+    void rotateZ(float angle);
+
+    // style of the shapes which follow
+    void noStroke();
+    void fill(int rgb);
+    void tint(int rgb);
+    void noTint();
+
+    // a shape built one vertex at a time
+    void beginShape(int kind);
+    void texture(PImage texture);
+    void vertex(float x, float y, float z);
+    void vertex(float x, float y, float z, float u, float v);
+    void endShape();
+
+    // triangles which never change, with the current matrix
+    void drawMesh(Mesh mesh);
+
+    // Camera: jump to either view, or part way from the orthographic
+    // view (0) to the perspective one (1). These reset the matrix.
+    void toggleProjection(boolean ortho);
+    void interpolateCamera(float t);
+    // set view to the region the camera can currently see
+    void updateViewVolume(ViewVolume view);
+    // the camera's position in world units, which changes as the camera moves
+    float[] getCameraEye();
+}
@@ -0,0 +1,94 @@
+package shooter;
+
+/* Rotations
+ *
+ * Rotates 3D vectors stored as float triples without creating
+ * any objects. Each method reads the source vector into locals
+ * before writing, so the source and destination may be the
+ * same array. Rotations follow the same right-handed
+ * convention as PMatrix3D.rotateX/Y/Z.
+ *
+ * When the same angle is used frame after frame, a CachedAngle
+ * avoids recomputing its sine and cosine.
+ */
+
+public class Rotations implements GameConstants
+{
+    // Angle which remembers its sine and cosine, only
+    // recomputing them when the angle changes
+    public static class CachedAngle
+    {
+        private float angle = 0.f, sin = 0.f, cos = 1.f;
+
+        public void set(float a)
+        {
+            if (a != angle)
+            {
+                angle = a;
+                sin = (float)Math.sin(a);
+                cos = (float)Math.cos(a);
+            }
+        }
+
+        public float get() {return angle;}
+        public float sin() {return sin;}
+        public float cos() {return cos;}
+    }
+
+    public static void rotateX(float[] v, float angle, float[] dest)
+    {
+        rotateX(v, (float)Math.sin(angle), (float)Math.cos(angle), dest);
+    }
+
+    public static void rotateX(float[] v, CachedAngle angle, float[] dest)
+    {
+        rotateX(v, angle.sin, angle.cos, dest);
+    }
+
+    // rotate v about the x-axis by the angle with the given sine and cosine
+    public static void rotateX(float[] v, float sin, float cos, float[] dest)
+    {
+        float y = v[I_Y], z = v[I_Z];
+        dest[I_X] = v[I_X];
+        dest[I_Y] = cos * y - sin * z;
+        dest[I_Z] = sin * y + cos * z;
+    }
+
+    public static void rotateY(float[] v, float angle, float[] dest)
+    {
+        rotateY(v, (float)Math.sin(angle), (float)Math.cos(angle), dest);
+    }
+
+    public static void rotateY(float[] v, CachedAngle angle, float[] dest)
+    {
+        rotateY(v, angle.sin, angle.cos, dest);
+    }
+
+    // rotate v about the y-axis by the angle with the given sine and cosine
+    public static void rotateY(float[] v, float sin, float cos, float[] dest)
+    {
+        float x = v[I_X], z = v[I_Z];
+        dest[I_X] = cos * x + sin * z;
+        dest[I_Y] = v[I_Y];
+        dest[I_Z] = -sin * x + cos * z;
+    }
+
+    public static void rotateZ(float[] v, float angle, float[] dest)
+    {
+        rotateZ(v, (float)Math.sin(angle), (float)Math.cos(angle), dest);
+    }
+
+    public static void rotateZ(float[] v, CachedAngle angle, float[] dest)
+    {
+        rotateZ(v, angle.sin, angle.cos, dest);
+    }
+
+    // rotate v about the z-axis by the angle with the given sine and cosine
+    public static void rotateZ(float[] v, float sin, float cos, float[] dest)
+    {
+        float x = v[I_X], y = v[I_Y];
+        dest[I_X] = cos * x - sin * y;
+        dest[I_Y] = sin * x + cos * y;
+        dest[I_Z] = v[I_Z];
+    }
+}
@@ -0,0 +1,85 @@
+package shooter;
+
+import processing.core.PMatrix3D;
+
+/* ViewVolume
+ *
+ * The region of world space the camera can see, as six planes
+ * taken from the combined projection and modelview matrix. The
+ * same test works for the orthographic view, the perspective
+ * view and the transition between them, since each is just a
+ * different matrix. Planes point inwards: a point is inside a
+ * plane when a*x + b*y + c*z + d >= 0.
+ */
+
+public class ViewVolume
+{
+    private static final int
+            NUM_PLANES = 6,
+            PLANE_SIZE = 4;
+
+    // a, b, c and d for each plane, left, right, bottom, top, near, far
+    private final float[] planes = new float[NUM_PLANES * PLANE_SIZE];
+    // until a matrix is given, everything is visible
+    private boolean everything = true;
+
+    // Take the planes from a projection * modelview matrix. Each plane is a
+    // sum or difference of the matrix's last row and one of the other rows.
+    public void set(PMatrix3D m)
+    {
+        setPlane(0, m.m30 + m.m00, m.m31 + m.m01, m.m32 + m.m02, m.m33 + m.m03); // left
+        setPlane(1, m.m30 - m.m00, m.m31 - m.m01, m.m32 - m.m02, m.m33 - m.m03); // right
+        setPlane(2, m.m30 + m.m10, m.m31 + m.m11, m.m32 + m.m12, m.m33 + m.m13); // bottom
+        setPlane(3, m.m30 - m.m10, m.m31 - m.m11, m.m32 - m.m12, m.m33 - m.m13); // top
+        setPlane(4, m.m30 + m.m20, m.m31 + m.m21, m.m32 + m.m22, m.m33 + m.m23); // near
+        setPlane(5, m.m30 - m.m20, m.m31 - m.m21, m.m32 - m.m22, m.m33 - m.m23); // far
+        everything = false;
+    }
+
+    // make every box visible, used when there is no camera (e.g. in tests)
+    public void setEverything()
+    {
+        everything = true;
+    }
+
+    // True if any part of the axis-aligned box may be visible. Boxes near a
+    // corner of the volume can be reported visible when they aren't, but a
+    // visible box is never reported invisible.
+    public boolean intersects(float minX, float minY, float minZ,
+                              float maxX, float maxY, float maxZ)
+    {
+        if (everything)
+            return true;
+
+        for (int p = 0; p < planes.length; p += PLANE_SIZE)
+        {
+            float a = planes[p], b = planes[p + 1], c = planes[p + 2], d = planes[p + 3];
+            // the corner of the box furthest along the plane's normal
+            float x = a >= 0.f ? maxX : minX,
+                  y = b >= 0.f ? maxY : minY,
+                  z = c >= 0.f ? maxZ : minZ;
+            if (a * x + b * y + c * z + d < 0.f)
+                return false;
+        }
+        return true;
+    }
+
+    public boolean intersects(float[] min, float[] max)
+    {
+        return intersects(min[0], min[1], min[2], max[0], max[1], max[2]);
+    }
+
+    public boolean contains(float x, float y, float z)
+    {
+        return intersects(x, y, z, x, y, z);
+    }
+
+    private void setPlane(int i, float a, float b, float c, float d)
+    {
+        int p = i * PLANE_SIZE;
+        planes[p] = a;
+        planes[p + 1] = b;
+        planes[p + 2] = c;
+        planes[p + 3] = d;
+    }
+}
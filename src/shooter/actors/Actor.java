@@ -6,13 +6,38 @@ import shooter.particles.Particle;
 public abstract class Actor extends Particle
 {
     protected boolean killed;
+    // position at the end of the previous update, used to sweep collisions
+    // along the path the actor took during the current frame
+    protected final float[] prevPos;
 
     public Actor(float[] size, float collisionRadius, PImage staticTexture, int tint)
     {
         super(size, collisionRadius, staticTexture, tint);
         this.killed = false;
+        this.prevPos = new float[3];
+    }
+
+    @Override
+    protected void recycle()
+    {
+        super.recycle();
+        this.killed = false;
+        savePrevPos();
     }
 
     public boolean isKilled() {return killed;}
     public void setKilled() {killed = true;}
+
+    public void getPrevPos(float[] dest)
+    {
+        dest[I_X] = prevPos[I_X];
+        dest[I_Y] = prevPos[I_Y];
+        dest[I_Z] = prevPos[I_Z];
+    }
+
+    // call before moving, and after the starting position is set
+    protected void savePrevPos()
+    {
+        System.arraycopy(pos, 0, prevPos, 0, 3);
+    }
 }
\ No newline at end of file
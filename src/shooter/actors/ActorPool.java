@@ -0,0 +1,102 @@
+package shooter.actors;
+
+import java.util.function.Supplier;
+
+/* ActorPool
+ *
+ * Dense storage for actors of one type which recycles them
+ * instead of letting them be garbage collected. Active actors
+ * occupy the front of the array. Removing an actor swaps it
+ * with the last active one, which leaves the removed actor
+ * behind the active ones where obtain() can hand it out
+ * again. Once the pool has grown to the most actors needed
+ * at one time, spawning and removing actors allocates nothing.
+ */
+
+public class ActorPool<T extends Actor>
+{
+    private static final int DEFAULT_CAPACITY = 16;
+
+    // creates a blank actor when every actor in the pool is active
+    private final Supplier<T> factory;
+    private Actor[] actors;
+    // number of active actors
+    private int count;
+    // number of actors created, active or not
+    private int created;
+    // most actors which have been active at once
+    private int highWater;
+
+    public ActorPool(Supplier<T> factory)
+    {
+        this(factory, DEFAULT_CAPACITY);
+    }
+
+    public ActorPool(Supplier<T> factory, int initialCapacity)
+    {
+        this.factory = factory;
+        this.actors = new Actor[Math.max(initialCapacity, 1)];
+        this.count = 0;
+        this.created = 0;
+        this.highWater = 0;
+    }
+
+    // Activate a recycled actor, or create one if none are free.
+    // The caller is responsible for resetting the actor's state.
+    @SuppressWarnings("unchecked")
+    public T obtain()
+    {
+        if (count == created)
+        {
+            ensureCapacity(count + 1);
+            actors[created++] = factory.get();
+        }
+        T result = (T)actors[count++];
+        highWater = Math.max(highWater, count);
+        return result;
+    }
+
+    // Activate an actor which was created outside of the pool. Any
+    // recycled actor in its slot is replaced.
+    public void add(T actor)
+    {
+        ensureCapacity(count + 1);
+        actors[count++] = actor;
+        created = Math.max(created, count);
+        highWater = Math.max(highWater, count);
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(int i)
+    {
+        return (T)actors[i];
+    }
+
+    // Deactivate the actor at index i by swapping it with the last active
+    // actor. The actor previously at the end of the pool is now at index i.
+    public void remove(int i)
+    {
+        int last = --count;
+        Actor removed = actors[i];
+        actors[i] = actors[last];
+        actors[last] = removed;
+    }
+
+    // deactivate every actor
+    public void clear() {count = 0;}
+
+    public int size() {return count;}
+    public boolean isEmpty() {return count == 0;}
+    public int getHighWater() {return highWater;}
+    public int getNumCreated() {return created;}
+
+    private void ensureCapacity(int n)
+    {
+        if (actors.length < n)
+        {
+            Actor[] larger = new Actor[Math.max(n, actors.length * 2)];
+            System.arraycopy(actors, 0, larger, 0, created);
+            actors = larger;
+        }
+    }
+}
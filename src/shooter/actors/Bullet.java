@@ -1,7 +1,7 @@
 package shooter.actors;
 
 import processing.core.PImage;
-import shooter.GameSketch;
+import shooter.RenderBackend;
 
 import static processing.core.PConstants.TRIANGLE_STRIP;
 
@@ -16,24 +16,41 @@ public abstract class Bullet extends FrameAnimatedActor
             // collision radius
             BULLET_COLLISION = 0.04f;
 
-    public Bullet(float[] pos, float[] vel, float[] angle,
-                  int numAnimFrames, float animLength,
+    // create a bullet to be stored in an ActorPool, which is given its state by reset()
+    public Bullet(int numAnimFrames, float animLength,
                   PImage[] animFrames, float[] size)
     {
         super(size, BULLET_COLLISION, null,
                 0, numAnimFrames, animLength, animFrames);
         this.animTimer = 0.f;
+    }
+
+    public Bullet(float[] pos, float[] vel, float[] angle,
+                  int numAnimFrames, float animLength,
+                  PImage[] animFrames, float[] size)
+    {
+        this(numAnimFrames, animLength, animFrames, size);
+        reset(pos, vel, angle);
+    }
+
+    // reuse this bullet as if it had just been constructed with the given state
+    public void reset(float[] pos, float[] vel, float[] angle)
+    {
+        recycle();
+        this.animTimer = 0.f;
         for (int i = I_X; i <= I_Z; i++)
         {
             this.pos[i] = pos[i];
             this.vel[i] = vel[i];
             this.angle[i] = angle[i];
         }
+        savePrevPos();
     }
 
     public void update(float elapsedMillis)
     {
         animTimer = (animTimer + elapsedMillis) % animLength;
+        savePrevPos();
         for (int i = I_X; i <= I_Z; i++)
             pos[i] += vel[i] * elapsedMillis;
         if (pos[I_X] < LEFT_BOUND || pos[I_X] > RIGHT_BOUND || pos[I_Y] > TOP_BOUND || pos[I_Y] < BOTTOM_BOUND)
@@ -41,22 +58,22 @@ public abstract class Bullet extends FrameAnimatedActor
         lastMillis = elapsedMillis;
     }
 
-    public void draw(GameSketch gs)
+    public void draw(RenderBackend r)
     {
-        gs.pushMatrix();
-        gs.translate(pos[I_X], pos[I_Y], pos[I_Z]);
-        gs.rotateZ(angle[I_Z]);
-        gs.scale(size[I_X], size[I_Y], size[I_Z]);
+        r.pushMatrix();
+        r.translate(pos[I_X], pos[I_Y], pos[I_Z]);
+        r.rotateZ(angle[I_Z]);
+        r.scale(size[I_X], size[I_Y], size[I_Z]);
 
-        gs.beginShape(TRIANGLE_STRIP);
-        gs.texture(getCurrTexture());
+        r.beginShape(TRIANGLE_STRIP);
+        r.texture(getCurrTexture());
 
-        gs.vertex(1.f, 1.f, 0.f, 1.f, 0.f);
-        gs.vertex(1.f, -1.f, 0.f, 1.f, 1.f);
-        gs.vertex(-1.f, 1.f, 0.f, 0.f, 0.f);
-        gs.vertex(-1.f, -1.f, 0.f, 0.f, 1.f);
+        r.vertex(1.f, 1.f, 0.f, 1.f, 0.f);
+        r.vertex(1.f, -1.f, 0.f, 1.f, 1.f);
+        r.vertex(-1.f, 1.f, 0.f, 0.f, 0.f);
+        r.vertex(-1.f, -1.f, 0.f, 0.f, 1.f);
 
-        gs.endShape();
-        gs.popMatrix();
+        r.endShape();
+        r.popMatrix();
     }
 }
@@ -1,13 +1,14 @@
 package shooter.actors;
 
 import processing.core.PImage;
-import processing.core.PMatrix3D;
 import shooter.GameConstants;
-import shooter.GameSketch;
-import shooter.Matrices;
+import shooter.GameRandom;
+import shooter.RenderBackend;
+import shooter.Rotations;
 import shooter.particles.ParticleTracker;
 
 import static processing.core.PConstants.TRIANGLE_STRIP;
+import static shooter.GameMath.randRange;
 import static shooter.Textures.xNDCToTexture;
 import static shooter.Textures.yNDCToTexture;
 
@@ -34,32 +35,47 @@ public class Enemy extends Actor implements GameConstants
 
     private final ParticleTracker particles;
 
-    private final float[] auxVel; // needed for matrix multiplication
+    // angle turned each frame, frames are usually the same length so its sine and cosine are cached
+    private final Rotations.CachedAngle turn;
 
     private float attackWaitTimer, attackTime;
     private int shotsTaken;
 
-    public Enemy(ParticleTracker particles, float[] size, float collisionRadius, PImage staticTexture,
-                 int tint, float[] startPos, float[] startAngle, float[] vel, float[] rotation)
+    // create an enemy to be stored in an ActorPool, which is given its state by reset()
+    public Enemy(ParticleTracker particles, float[] size, float collisionRadius, PImage staticTexture, int tint)
     {
         super(size, collisionRadius, staticTexture, tint);
         this.particles = particles;
+        this.turn = new Rotations.CachedAngle();
+    }
+
+    public Enemy(ParticleTracker particles, float[] size, float collisionRadius, PImage staticTexture,
+                 int tint, float[] startPos, float[] startAngle, float[] vel, float[] rotation)
+    {
+        this(particles, size, collisionRadius, staticTexture, tint);
+        reset(startPos, startAngle, vel, rotation);
+    }
+
+    // reuse this enemy as if it had just been constructed with the given movement
+    public void reset(float[] startPos, float[] startAngle, float[] vel, float[] rotation)
+    {
+        recycle();
         System.arraycopy(startPos, 0, this.pos, 0, 3);
         System.arraycopy(startAngle, 0, this.angle, 0, 3);
         System.arraycopy(vel, 0, this.vel, 0, 3);
         System.arraycopy(rotation, 0, this.rotation, 0, 3);
-        this.auxVel = new float[3];
+        savePrevPos();
         this.attackWaitTimer = 0.f;
-        this.attackTime = (float)(Math.random() * (ATTACK_WAIT_MAX - ATTACK_WAIT_MIN)) + ATTACK_WAIT_MIN;
+        this.attackTime = randRange(GameRandom.SPAWNING, ATTACK_WAIT_MIN, ATTACK_WAIT_MAX);
         this.shotsTaken = 0;
     }
 
-    // rotate enemy's angle by rotation, rotate velocity with rotation matrix
+    // rotate enemy's angle by rotation, rotate velocity to match
     public void update(float elapsedMillis)
     {
-        PMatrix3D rotMatrix = Matrices.rotateZ(rotation[I_Z] * elapsedMillis);
-        rotMatrix.mult(vel, auxVel);
-        System.arraycopy(auxVel, 0, vel, 0, 3);
+        savePrevPos();
+        turn.set(rotation[I_Z] * elapsedMillis);
+        Rotations.rotateZ(vel, turn, vel);
 
         for (int i = I_X; i <= I_Z; i++)
         {
@@ -72,7 +88,7 @@ public class Enemy extends Actor implements GameConstants
             ++shotsTaken;
             particles.enemyShoot(this.pos);
             this.attackWaitTimer = 0.f;
-            this.attackTime = (float)(Math.random() * (ATTACK_WAIT_MAX - ATTACK_WAIT_MIN)) + ATTACK_WAIT_MIN;
+            this.attackTime = randRange(GameRandom.SPAWNING, ATTACK_WAIT_MIN, ATTACK_WAIT_MAX);
         }
 
         // determine if enemy should be deleted
@@ -122,37 +138,37 @@ public class Enemy extends Actor implements GameConstants
             TEX_SBACK_Y_T = yNDCToTexture(SHIP_BACK_Y),
             TEX_SBACK_Y_B = yNDCToTexture(-SHIP_BACK_Y);
 
-    public void draw(GameSketch gs)
+    public void draw(RenderBackend r)
     {
-        gs.pushMatrix();
+        r.pushMatrix();
 
-        gs.translate(pos[I_X], pos[I_Y], pos[I_Z]);
-        gs.scale(size[I_X], size[I_Y], size[I_Z]);
-        gs.rotateZ(angle[I_Z]);
-        gs.rotateY(angle[I_Y]);
+        r.translate(pos[I_X], pos[I_Y], pos[I_Z]);
+        r.scale(size[I_X], size[I_Y], size[I_Z]);
+        r.rotateZ(angle[I_Z]);
+        r.rotateY(angle[I_Y]);
 
-        gs.beginShape(TRIANGLE_STRIP);
-        gs.texture(this.staticTexture);
+        r.beginShape(TRIANGLE_STRIP);
+        r.texture(this.staticTexture);
 
         // cockpit - 1 triangle
-        gs.vertex(COCKPIT_TIP_X, COCKPIT_TIP_Y, 0, TEX_COCKPIT_X, TEX_COCKPIT_Y);
-        gs.vertex(WINGS_FRONT_X, WINGS_FRONT_Y, 0, TEX_WFRONT_X, TEX_WFRONT_Y_T);
-        gs.vertex(WINGS_FRONT_X, -WINGS_FRONT_Y, 0, TEX_WFRONT_X, TEX_WFRONT_Y_B);
-        // gs.vertex(-WINGS_FRONT_X, WINGS_FRONT_Y, 0, TEX_WFRONT_X_L, TEX_WFRONT_Y);
-        // gs.vertex(WINGS_FRONT_X, WINGS_FRONT_Y, 0, TEX_WFRONT_X_R, TEX_WFRONT_Y);
+        r.vertex(COCKPIT_TIP_X, COCKPIT_TIP_Y, 0, TEX_COCKPIT_X, TEX_COCKPIT_Y);
+        r.vertex(WINGS_FRONT_X, WINGS_FRONT_Y, 0, TEX_WFRONT_X, TEX_WFRONT_Y_T);
+        r.vertex(WINGS_FRONT_X, -WINGS_FRONT_Y, 0, TEX_WFRONT_X, TEX_WFRONT_Y_B);
+        // r.vertex(-WINGS_FRONT_X, WINGS_FRONT_Y, 0, TEX_WFRONT_X_L, TEX_WFRONT_Y);
+        // r.vertex(WINGS_FRONT_X, WINGS_FRONT_Y, 0, TEX_WFRONT_X_R, TEX_WFRONT_Y);
         // wings - 2 triangles
-        // gs.vertex(-WINGS_BACK_X, WINGS_BACK_Y, 0, TEX_WBACK_X_L, TEX_WBACK_Y);
-        // gs.vertex(WINGS_BACK_X, WINGS_BACK_Y, 0, TEX_WBACK_X_R, TEX_WBACK_Y);
-        gs.vertex(WINGS_BACK_X, WINGS_BACK_Y, 0, TEX_WBACK_X, TEX_WBACK_Y_T);
-        gs.vertex(WINGS_BACK_X, -WINGS_BACK_Y, 0, TEX_WBACK_X, TEX_WBACK_Y_B);
+        // r.vertex(-WINGS_BACK_X, WINGS_BACK_Y, 0, TEX_WBACK_X_L, TEX_WBACK_Y);
+        // r.vertex(WINGS_BACK_X, WINGS_BACK_Y, 0, TEX_WBACK_X_R, TEX_WBACK_Y);
+        r.vertex(WINGS_BACK_X, WINGS_BACK_Y, 0, TEX_WBACK_X, TEX_WBACK_Y_T);
+        r.vertex(WINGS_BACK_X, -WINGS_BACK_Y, 0, TEX_WBACK_X, TEX_WBACK_Y_B);
         // back - 2 triangles
-        // gs.vertex(-SHIP_BACK_X, SHIP_BACK_Y, 0, TEX_SBACK_X_L, TEX_SBACK_Y);
-        // gs.vertex(SHIP_BACK_X, SHIP_BACK_Y, 0, TEX_SBACK_X_R, TEX_SBACK_Y);
-        gs.vertex(SHIP_BACK_X, SHIP_BACK_Y, 0, TEX_SBACK_X, TEX_SBACK_Y_T);
-        gs.vertex(SHIP_BACK_X, -SHIP_BACK_Y, 0, TEX_SBACK_X, TEX_SBACK_Y_B);
+        // r.vertex(-SHIP_BACK_X, SHIP_BACK_Y, 0, TEX_SBACK_X_L, TEX_SBACK_Y);
+        // r.vertex(SHIP_BACK_X, SHIP_BACK_Y, 0, TEX_SBACK_X_R, TEX_SBACK_Y);
+        r.vertex(SHIP_BACK_X, SHIP_BACK_Y, 0, TEX_SBACK_X, TEX_SBACK_Y_T);
+        r.vertex(SHIP_BACK_X, -SHIP_BACK_Y, 0, TEX_SBACK_X, TEX_SBACK_Y_B);
 
-        gs.endShape();
-        gs.popMatrix();
+        r.endShape();
+        r.popMatrix();
     }
 }
 
@@ -8,6 +8,11 @@ public class EnemyBullet extends Bullet
     private static final float ANIM_LEN = 800.f;
     private static final float[] SIZE = {0.03f, 0.03f, 0.f};
 
+    public EnemyBullet()
+    {
+        super(ANIM_FRAMES, ANIM_LEN, Textures.ENEMY_BULLET, SIZE);
+    }
+
     public EnemyBullet(float[] pos, float[] vel, float[] angle)
     {
         super(pos, vel, angle, ANIM_FRAMES, ANIM_LEN, Textures.ENEMY_BULLET, SIZE);
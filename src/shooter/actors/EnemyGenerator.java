@@ -1,6 +1,7 @@
 package shooter.actors;
 
 import shooter.GameConstants;
+import shooter.GameRandom;
 import shooter.particles.ParticleTracker;
 import shooter.Textures;
 
@@ -34,36 +35,33 @@ public class EnemyGenerator implements GameConstants
 
     private static int lastQuad = -1;
 
-    public static Enemy generateEnemy(ParticleTracker particles)
+    // create a blank enemy for an ActorPool, give it a starting state with resetEnemy()
+    public static Enemy createEnemy(ParticleTracker particles)
+    {
+        return new Enemy(particles, SIZE, COLLISION, Textures.ENEMY_BASE, 0);
+    }
+
+    // reset a pooled enemy so it enters from a random quadrant
+    public static void resetEnemy(Enemy e)
     {
         // spawn in a random quadrant
         int quad = lastQuad;
         int attempts = 0;
         while (quad == lastQuad && attempts++ < 4)
-            quad = (int)(Math.random() * 4);
+            quad = GameRandom.SPAWNING.nextInt(4);
         lastQuad = quad;
 
-        Enemy e;
         switch (quad)
         {
             // lower left
-            case 0 -> {
-                e = new Enemy(particles, SIZE, COLLISION, Textures.ENEMY_BASE, 0, POS_Q0, ANGLE_Q0, VEL_BOT, ROT_CW);
-            }
+            case 0 -> e.reset(POS_Q0, ANGLE_Q0, VEL_BOT, ROT_CW);
             // lower right
-            case 1 -> {
-                e = new Enemy(particles, SIZE, COLLISION, Textures.ENEMY_BASE, 0, POS_Q1, ANGLE_Q1, VEL_BOT, ROT_CCW);
-            }
+            case 1 -> e.reset(POS_Q1, ANGLE_Q1, VEL_BOT, ROT_CCW);
             // upper left
-            case 2 -> {
-                e = new Enemy(particles, SIZE, COLLISION, Textures.ENEMY_BASE, 0, POS_Q2, ANGLE_Q2, VEL_TOP, ROT_CCW);
-            }
+            case 2 -> e.reset(POS_Q2, ANGLE_Q2, VEL_TOP, ROT_CCW);
             // upper right
-            case 3 -> {
-                e = new Enemy(particles, SIZE, COLLISION, Textures.ENEMY_BASE, 0, POS_Q3, ANGLE_Q3, VEL_TOP, ROT_CW);
-            }
+            case 3 -> e.reset(POS_Q3, ANGLE_Q3, VEL_TOP, ROT_CW);
             default -> throw new IllegalStateException("Unexpected value: " + quad);
         }
-        return e;
     }
 }
@@ -1,9 +1,10 @@
 package shooter.actors;
 
 import processing.core.PConstants;
-import processing.core.PImage;
 import shooter.*;
-import shooter.particles.LifespanParticle;
+import shooter.particles.EffectFactory;
+import shooter.particles.ParticleBatcher;
+import shooter.particles.ParticleBudget;
 import shooter.particles.ParticleEmitter;
 
 public class Player extends FrameAnimatedActor implements GameConstants
@@ -41,33 +42,7 @@ public class Player extends FrameAnimatedActor implements GameConstants
 
 
     private static final float[]
-            PLAYER_SIZE    = {0.15f, 0.15f, 0.15f},
-            // engine particle emitter settings
-            ENGINE_POS_R   = {0.f, 0.f, 0.f},
-            ENGINE_VEL     = {-0.003f, 0.f, -0.00006f},
-            ENGINE_VEL_R   = {0.0012f, 0.0006f, 0.f},
-            ENGINE_ACCEL   = {0.f, 0.f, 0.f},
-            ENGINE_ACCEL_R = {0.f, 0.f, 0.f},
-            ENGINE_ANGLE   = {0.f, 0.f, 0.f},
-            ENGINE_ANGLE_R = {0.f, 0.f, PI},
-            ENGINE_ROT     = {0.f, 0.f, 0.f},
-            ENGINE_ROT_R   = {0.f, 0.f, QUARTER_PI * 0.015f},
-            ENGINE_OFFSET  = {-0.1f, 0.f, 0.f},
-            ENGINE_SIZE    = {0.03f, 0.03f, 0.f},
-            ENGINE_SIZE_R  = {0.f, 0.f, 0.f};
-
-    private static final ParticleEmitter.Type ENGINE_EMIT_TYPE = ParticleEmitter.Type.SUSTAINED;
-    private static final LifespanParticle.Shape ENGINE_SHAPE = LifespanParticle.Shape.DIAMOND;
-    private static final PImage ENGINE_TEXTURE = Textures.SPARK;
-
-    private static final float
-            ENGINE_FREQ = 120.f, // engine particles per second
-            ENGINE_PART_LIFESPAN = 500.f,
-            ENGINE_EMIT_LIFESPAN = -1.f;
-
-    private static final int
-            ENGINE_COLOR = 0xFF80EEEE,
-            ENGINE_COLOR_R = 0xFF401111;
+            PLAYER_SIZE    = {0.15f, 0.15f, 0.15f};
 
     private static final float
             BULLET_ANGLE_EXTRA = 1.5f,
@@ -87,6 +62,8 @@ public class Player extends FrameAnimatedActor implements GameConstants
 
     private final ParticleEmitter engineParticles;
     private final GameState state;
+    // offset of each bullet fired from the player's position
+    private final float[] bulletOffset = new float[3];
 
     public Player(GameState state)
     {
@@ -95,46 +72,69 @@ public class Player extends FrameAnimatedActor implements GameConstants
         this.pos[I_X] = PLAYER_START_X;
         this.pos[I_Y] = PLAYER_START_Y;
         this.pos[I_Z] = PLAYER_START_Z;
+        savePrevPos();
         this.angle[I_Z] = CENTRE_H_ANGLE;
         this.state = state;
-        engineParticles = new ParticleEmitter (
-                ENGINE_EMIT_TYPE, ENGINE_SHAPE, ENGINE_PART_LIFESPAN, ENGINE_EMIT_LIFESPAN,
-                pos, ENGINE_POS_R, ENGINE_VEL, ENGINE_VEL_R, ENGINE_ACCEL, ENGINE_ACCEL_R,
-                ENGINE_ANGLE, ENGINE_ANGLE_R, ENGINE_ROT, ENGINE_ROT_R, ENGINE_SIZE, ENGINE_SIZE_R,
-                ENGINE_OFFSET, ENGINE_TEXTURE, ENGINE_COLOR, ENGINE_COLOR_R, ENGINE_FREQ);
+        engineParticles = new ParticleEmitter(EffectFactory.ENGINE, pos, null);
     }
 
+    // bring the player back to its starting state after being killed
+    public void reset()
+    {
+        recycle();
+        this.pos[I_X] = PLAYER_START_X;
+        this.pos[I_Y] = PLAYER_START_Y;
+        this.pos[I_Z] = PLAYER_START_Z;
+        savePrevPos();
+        this.angle[I_Z] = CENTRE_H_ANGLE;
+        this.animTimer = -1.f;
+        this.hFlip = 1;
+        this.immune = false;
+        engineParticles.reset();
+        engineParticles.setPosition(pos);
+    }
+
+    public void setParticleBudget(ParticleBudget budget) {engineParticles.setBudget(budget);}
+    public int getNumParticles() {return engineParticles.getNumParticles();}
+
     public void setImmune(boolean i) {immune = i;}
     public boolean isImmune() {return immune;}
 
-    public void draw(GameSketch gs)
+    // the engine trail is drawn in a batch with other particles, before the player
+    public void addParticles(ParticleBatcher batcher)
     {
         if (killed || invisible) return;
 
-        engineParticles.draw(gs);
+        engineParticles.addTo(batcher);
+    }
+
+    public void draw(RenderBackend r)
+    {
+        if (killed || invisible) return;
 
-        gs.pushMatrix();
-        gs.translate(pos[I_X], pos[I_Y], pos[I_Z]);
-        gs.scale(size[I_X], size[I_Y], size[I_Z]);
-        gs.rotateZ(angle[I_Z]);
-        gs.rotateY(angle[I_Y]);
+        r.pushMatrix();
+        r.translate(pos[I_X], pos[I_Y], pos[I_Z]);
+        r.scale(size[I_X], size[I_Y], size[I_Z]);
+        r.rotateZ(angle[I_Z]);
+        r.rotateY(angle[I_Y]);
 
-        gs.beginShape(PConstants.TRIANGLE_STRIP);
-        gs.texture(this.getCurrTexture());
+        r.beginShape(PConstants.TRIANGLE_STRIP);
+        r.texture(this.getCurrTexture());
 
-        gs.vertex(1.f, 1.f, 0.f, 1.f, 0.f);
-        gs.vertex(-1.f, 1.f, 0.f, 0.f, 0.f);
-        gs.vertex(1.f, -1.f, 0.f, 1.f, 1.f * hFlip);
-        gs.vertex(-1.f, -1.f, 0.f, 0.f, 1.f * hFlip);
+        r.vertex(1.f, 1.f, 0.f, 1.f, 0.f);
+        r.vertex(-1.f, 1.f, 0.f, 0.f, 0.f);
+        r.vertex(1.f, -1.f, 0.f, 1.f, 1.f * hFlip);
+        r.vertex(-1.f, -1.f, 0.f, 0.f, 1.f * hFlip);
 
-        gs.endShape();
-        gs.popMatrix();
+        r.endShape();
+        r.popMatrix();
     }
 
     public void update(float elapsedMillis)
     {
         if (killed) return;
 
+        savePrevPos();
         applyFriction(elapsedMillis);
         updateVelocity(elapsedMillis);
         updatePosition();
@@ -267,13 +267,11 @@ public class Player extends FrameAnimatedActor implements GameConstants
                             bulletAngle = MIN_H_ANGLE;
                         else if (bulletAngle > MAX_H_ANGLE)
                             bulletAngle = MAX_H_ANGLE;
-                        bulletAngle += GameMath.biRand(BULLET_ANGLE_SPREAD);
+                        bulletAngle += GameMath.biRand(GameRandom.SPAWNING, BULLET_ANGLE_SPREAD);
 
-                        float[] bulletOffset = {
-                                BULLET_OFFSET_X,
-                                BULLET_OFFSET_Y * hFlip,
-                                BULLET_OFFSET_Z
-                        };
+                        bulletOffset[I_X] = BULLET_OFFSET_X;
+                        bulletOffset[I_Y] = BULLET_OFFSET_Y * hFlip;
+                        bulletOffset[I_Z] = BULLET_OFFSET_Z;
                         state.playerShoot(this.pos, bulletOffset, bulletAngle);
                     }
                 }
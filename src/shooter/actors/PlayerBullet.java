@@ -11,11 +11,15 @@ public class PlayerBullet extends Bullet
             PB_ANIM_LENGTH = 1.f;
 
     private static final float[] PB_SIZE = {0.04f, 0.025f, 0.f};
+    private static final PImage[] PB_FRAME_TEXTURES = {Textures.PLAYER_BULLET};
+
+    public PlayerBullet()
+    {
+        super(PB_FRAMES, PB_ANIM_LENGTH, PB_FRAME_TEXTURES, PB_SIZE);
+    }
 
     public PlayerBullet(float[] p, float[] v, float[] a)
     {
-        super(p, v, a, PB_FRAMES, PB_ANIM_LENGTH,
-                new PImage[]{Textures.PLAYER_BULLET},
-                PB_SIZE);
+        super(p, v, a, PB_FRAMES, PB_ANIM_LENGTH, PB_FRAME_TEXTURES, PB_SIZE);
     }
 }
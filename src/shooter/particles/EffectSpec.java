@@ -0,0 +1,192 @@
+package shooter.particles;
+
+import processing.core.PImage;
+import shooter.GameConstants;
+import shooter.Textures;
+
+import java.util.Properties;
+
+/* EffectSpec
+ *
+ * Immutable template for a particle effect, built once when
+ * effects are loaded. Emitters keep a reference to their spec
+ * and only store their own position and velocity, so spawning
+ * an effect copies nothing out of it. Most values come as a
+ * base and a range: each particle is given the base plus a
+ * random amount up to the range in either direction.
+ */
+
+public final class EffectSpec implements GameConstants
+{
+    public enum Priority
+    {
+        LOW, // spawns fewer, shorter-lived particles when the particle budget is under pressure
+        HIGH // always spawns every particle
+    }
+
+    // extra room given to sustained emitters' pools, as a long frame
+    // can spawn several particles before any expire
+    private static final float SUSTAINED_HEADROOM = 1.5f;
+
+    private final String name;
+    // index of this spec among all loaded specs
+    private final int id;
+
+    // the arrays below are never modified or handed out, which keeps specs immutable
+    final ParticleEmitter.Type type;
+    final LifespanParticle.Shape shape;
+    final Priority priority;
+    final ParticlePool.Motion motion;
+    final float
+            particleLifespan,
+            emitterLifespan, // negative if the emitter never switches off
+            particlesPerSec; // for bursts, the number of particles emitted
+    // if true, the velocity given when spawning the effect is added to the base velocity
+    final boolean inheritVelocity;
+    // fraction of their speed into the terrain particles keep when they bounce
+    // off it, negative if they pass through it
+    final float bounce;
+    final float[]
+            posRange,
+            velocity, velRange,
+            acceleration, accelRange,
+            angle, angleRange,
+            rotation, rotRange,
+            size, sizeRange,
+            posOffset;
+    final PImage texture;
+    // colour components, unpacked once here instead of every time the effect is spawned
+    final int[] tint, tintRange;
+    // number of particles an emitter's pool needs room for
+    final int capacity;
+
+    public EffectSpec(String name, int id, ParticleEmitter.Type type,
+                      LifespanParticle.Shape shape, Priority priority, ParticlePool.Motion motion,
+                      float particleLife, float emitterLife, float perSec, boolean inheritVel,
+                      float bounce, float[] posR, float[] vel, float[] velR,
+                      float[] acc, float[] accR, float[] ang, float[] angR,
+                      float[] rot, float[] rotR, float[] sz, float[] szR,
+                      float[] off, PImage tex, int col, int colR)
+    {
+        this.name = name;
+        this.id = id;
+        this.type = type;
+        this.shape = shape;
+        this.priority = priority;
+        this.motion = motion;
+        this.particleLifespan = particleLife;
+        this.emitterLifespan = emitterLife;
+        this.particlesPerSec = perSec;
+        this.inheritVelocity = inheritVel;
+        this.bounce = bounce;
+        this.posRange = posR.clone();
+        this.velocity = vel.clone();
+        this.velRange = velR.clone();
+        this.acceleration = acc.clone();
+        this.accelRange = accR.clone();
+        this.angle = ang.clone();
+        this.angleRange = angR.clone();
+        this.rotation = rot.clone();
+        this.rotRange = rotR.clone();
+        this.size = sz.clone();
+        this.sizeRange = szR.clone();
+        this.posOffset = off.clone();
+        this.texture = tex;
+        this.tint = new int[] {
+                (col >> 16) & 0xFF,
+                (col >> 8) & 0xFF,
+                col & 0xFF
+        };
+        this.tintRange = new int[] {
+                (colR >> 16) & 0xFF,
+                (colR >> 8) & 0xFF,
+                colR & 0xFF
+        };
+
+        // burst emitters spawn all of their particles at once, sustained
+        // emitters need room for every particle spawned within one lifespan
+        if (type == ParticleEmitter.Type.BURST)
+            this.capacity = (int)Math.ceil(perSec);
+        else
+            this.capacity = (int)Math.ceil(perSec * particleLife / 1000.f * SUSTAINED_HEADROOM) + 1;
+    }
+
+    // Build the spec called name out of the keys "name.<property>" in props.
+    // Vectors are written as three comma-separated numbers, colours as hex
+    // (0xRRGGBB) and textures as the name of a field in Textures, or "none".
+    public static EffectSpec fromProperties(Properties props, String name, int id)
+    {
+        return new EffectSpec(name, id,
+                ParticleEmitter.Type.valueOf(required(props, name, "type")),
+                LifespanParticle.Shape.valueOf(required(props, name, "shape")),
+                Priority.valueOf(props.getProperty(name + ".priority", "HIGH").trim()),
+                ParticlePool.Motion.valueOf(props.getProperty(name + ".motion", "INTEGRATED").trim()),
+                Float.parseFloat(required(props, name, "particleLifespan")),
+                Float.parseFloat(props.getProperty(name + ".emitterLifespan",
+                        required(props, name, "particleLifespan"))),
+                Float.parseFloat(required(props, name, "particles")),
+                Boolean.parseBoolean(props.getProperty(name + ".inheritVelocity", "false")),
+                Float.parseFloat(props.getProperty(name + ".bounce", "-1").trim()),
+                vector(props, name, "posRange"),
+                vector(props, name, "vel"),
+                vector(props, name, "velRange"),
+                vector(props, name, "accel"),
+                vector(props, name, "accelRange"),
+                vector(props, name, "angle"),
+                vector(props, name, "angleRange"),
+                vector(props, name, "rotation"),
+                vector(props, name, "rotationRange"),
+                vector(props, name, "size"),
+                vector(props, name, "sizeRange"),
+                vector(props, name, "offset"),
+                texture(props.getProperty(name + ".texture", "none").trim()),
+                Integer.decode(props.getProperty(name + ".tint", "0x000000").trim()),
+                Integer.decode(props.getProperty(name + ".tintRange", "0x000000").trim()));
+    }
+
+    public String getName() {return name;}
+    public int getId() {return id;}
+    public ParticleEmitter.Type getType() {return type;}
+    public Priority getPriority() {return priority;}
+    public ParticlePool.Motion getMotion() {return motion;}
+    public int getCapacity() {return capacity;}
+    public boolean collidesWithTerrain() {return bounce >= 0.f;}
+
+    private static String required(Properties props, String name, String key)
+    {
+        String value = props.getProperty(name + "." + key);
+        if (value == null)
+            throw new IllegalArgumentException("Effect " + name + " is missing " + key);
+        return value.trim();
+    }
+
+    // missing vectors are zero
+    private static float[] vector(Properties props, String name, String key)
+    {
+        float[] result = new float[3];
+        String value = props.getProperty(name + "." + key);
+        if (value != null)
+        {
+            String[] parts = value.split(",");
+            if (parts.length != 3)
+                throw new IllegalArgumentException("Effect " + name + ": " + key + " must have 3 components");
+            for (int i = I_X; i <= I_Z; i++)
+                result[i] = Float.parseFloat(parts[i].trim());
+        }
+        return result;
+    }
+
+    private static PImage texture(String fieldName)
+    {
+        if (fieldName.equals("none"))
+            return null;
+        try
+        {
+            return (PImage)Textures.class.getField(fieldName).get(null);
+        }
+        catch (ReflectiveOperationException | ClassCastException e)
+        {
+            throw new IllegalArgumentException("Unknown texture " + fieldName, e);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package shooter.particles;
 
 import processing.core.PImage;
 import shooter.GameConstants;
-import shooter.GameSketch;
+import shooter.RenderBackend;
+
+import java.util.Arrays;
 
 public abstract class Particle implements GameConstants
 {
@@ -56,8 +58,21 @@ public abstract class Particle implements GameConstants
         this.lastMillis = 1.f;
     }
 
+    // return the particle to the state it had when constructed, so it can be reused
+    protected void recycle()
+    {
+        Arrays.fill(pos, 0.f);
+        Arrays.fill(vel, 0.f);
+        Arrays.fill(accel, 0.f);
+        Arrays.fill(angle, 0.f);
+        Arrays.fill(rotation, 0.f);
+        this.dead = false;
+        this.invisible = false;
+        this.lastMillis = 1.f;
+    }
+
     public abstract void update(float elapsedMillis);
-    public abstract void draw(GameSketch gs);
+    public abstract void draw(RenderBackend r);
 
     public void setInvisible(boolean i) {this.invisible = i;}
 
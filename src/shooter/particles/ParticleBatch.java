@@ -0,0 +1,134 @@
+package shooter.particles;
+
+import processing.core.PConstants;
+import processing.core.PImage;
+import shooter.GameConstants;
+import shooter.RenderBackend;
+
+/* ParticleBatch
+ *
+ * Collects the geometry of every particle drawn with one
+ * texture during a frame, so they can all be submitted as a
+ * single shape instead of one shape per particle. Each
+ * particle's shape is transformed into world space on the CPU
+ * and appended to one interleaved vertex array, laid out as
+ * STRIDE floats per vertex: x, y, z, u, v and the colour's
+ * bits (see Float.intBitsToFloat). Building a batch only
+ * touches arrays, so it can be tested without a GL context.
+ */
+
+public class ParticleBatch implements GameConstants
+{
+    public static final int
+            V_X = 0,
+            V_Y = 1,
+            V_Z = 2,
+            V_U = 3,
+            V_V = 4,
+            V_COLOR = 5,
+            STRIDE = 6;
+    private static final int INITIAL_VERTICES = 1024;
+
+    // may be null for untextured particles, which are drawn with their fill colour
+    private final PImage texture;
+    private float[] vertices;
+    private int numVertices;
+
+    public ParticleBatch(PImage texture)
+    {
+        this.texture = texture;
+        this.vertices = new float[INITIAL_VERTICES * STRIDE];
+        this.numVertices = 0;
+    }
+
+    // Append the shape of the particle whose position, angle and size
+    // components begin at index i. The shape is transformed as the matrix
+    // stack would: translate, scale, then rotate about z, y and x.
+    public void add(LifespanParticle.Shape shape, int tint,
+                    float[] pos, float[] angle, float[] size, int i)
+    {
+        float[] local = LifespanParticle.vertices(shape);
+        int n = local.length / 4;
+        ensureCapacity(numVertices + n);
+
+        float
+                sx = (float)Math.sin(angle[i + I_X]), cx = (float)Math.cos(angle[i + I_X]),
+                sy = (float)Math.sin(angle[i + I_Y]), cy = (float)Math.cos(angle[i + I_Y]),
+                sz = (float)Math.sin(angle[i + I_Z]), cz = (float)Math.cos(angle[i + I_Z]);
+        // shapes are flat with z = 0, so only the first two columns of
+        // the rotation matrix (rz * ry * rx) are needed, pre-scaled by size
+        float
+                ax = cz * cy * size[i + I_X],
+                ay = sz * cy * size[i + I_Y],
+                az = -sy * size[i + I_Z],
+                bx = (cz * sy * sx - sz * cx) * size[i + I_X],
+                by = (sz * sy * sx + cz * cx) * size[i + I_Y],
+                bz = cy * sx * size[i + I_Z];
+        float
+                px = pos[i + I_X],
+                py = pos[i + I_Y],
+                pz = pos[i + I_Z],
+                color = Float.intBitsToFloat(tint);
+
+        int out = numVertices * STRIDE;
+        for (int v = 0; v < local.length; v += 4)
+        {
+            float lx = local[v], ly = local[v + 1];
+            vertices[out + V_X] = px + ax * lx + bx * ly;
+            vertices[out + V_Y] = py + ay * lx + by * ly;
+            vertices[out + V_Z] = pz + az * lx + bz * ly;
+            vertices[out + V_U] = local[v + 2];
+            vertices[out + V_V] = local[v + 3];
+            vertices[out + V_COLOR] = color;
+            out += STRIDE;
+        }
+        numVertices += n;
+    }
+
+    // submit every vertex as one shape
+    public void draw(RenderBackend r)
+    {
+        if (numVertices == 0)
+            return;
+
+        r.beginShape(PConstants.TRIANGLES);
+        r.texture(texture);
+        int end = numVertices * STRIDE;
+        for (int v = 0; v < end; v += STRIDE)
+        {
+            // textured vertices are coloured by the tint, others by the fill
+            int color = Float.floatToRawIntBits(vertices[v + V_COLOR]);
+            if (texture == null)
+                r.fill(color);
+            else
+                r.tint(color);
+            r.vertex(vertices[v + V_X], vertices[v + V_Y], vertices[v + V_Z],
+                    vertices[v + V_U], vertices[v + V_V]);
+        }
+        r.endShape();
+        r.noTint();
+    }
+
+    public void clear() {numVertices = 0;}
+    public PImage getTexture() {return texture;}
+    public int getNumVertices() {return numVertices;}
+    public boolean isEmpty() {return numVertices == 0;}
+
+    // the interleaved vertex data, only the first getNumVertices() * STRIDE floats are in use
+    public float[] getVertices() {return vertices;}
+
+    public int getColor(int vertex)
+    {
+        return Float.floatToRawIntBits(vertices[vertex * STRIDE + V_COLOR]);
+    }
+
+    private void ensureCapacity(int n)
+    {
+        if (vertices.length < n * STRIDE)
+        {
+            float[] larger = new float[Math.max(n, vertices.length / STRIDE * 2) * STRIDE];
+            System.arraycopy(vertices, 0, larger, 0, numVertices * STRIDE);
+            vertices = larger;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package shooter.particles;
+
+import processing.core.PImage;
+import shooter.RenderBackend;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* ParticleBatcher
+ *
+ * One ParticleBatch for each texture used by particles. Every
+ * frame the batches are cleared, each emitter adds its
+ * particles to the batch for its texture, then each non-empty
+ * batch is drawn as a single shape. Batches are kept between
+ * frames so their vertex arrays are reused.
+ */
+
+public class ParticleBatcher
+{
+    // only a handful of textures are used by particles, so a linear search is fine
+    private final List<ParticleBatch> batches = new ArrayList<>();
+
+    // the batch for the given texture, created the first time the texture is seen
+    public ParticleBatch get(PImage texture)
+    {
+        for (int i = 0; i < batches.size(); i++)
+        {
+            if (batches.get(i).getTexture() == texture)
+                return batches.get(i);
+        }
+        ParticleBatch result = new ParticleBatch(texture);
+        batches.add(result);
+        return result;
+    }
+
+    public void clear()
+    {
+        for (int i = 0; i < batches.size(); i++)
+            batches.get(i).clear();
+    }
+
+    public void draw(RenderBackend r)
+    {
+        for (int i = 0; i < batches.size(); i++)
+            batches.get(i).draw(r);
+    }
+
+    public int getNumBatches() {return batches.size();}
+
+    // number of batches which have vertices this frame
+    public int getNumShapes()
+    {
+        int result = 0;
+        for (int i = 0; i < batches.size(); i++)
+            result += batches.get(i).isEmpty() ? 0 : 1;
+        return result;
+    }
+}
@@ -0,0 +1,89 @@
+package shooter.particles;
+
+/* ParticleBudget
+ *
+ * Limits the number of live particles across every emitter.
+ * Once the count passes a soft limit, low priority effects
+ * spawn fewer particles and their particles expire sooner,
+ * scaling down to nothing at the budget itself. High priority
+ * effects are never degraded, so an explosion always looks
+ * the same regardless of how much debris is on screen.
+ */
+
+public class ParticleBudget
+{
+    public static final int DEFAULT_MAX_PARTICLES = 3000;
+    private static final float
+            // fraction of the budget at which low priority effects begin to degrade
+            SOFT_LIMIT = 0.5f,
+            // fraction of their lifespan low priority particles keep when the budget is full
+            MIN_LIFESPAN_SCALE = 0.25f;
+
+    private final int maxParticles, softLimit;
+    // number of live particles at the start of the frame
+    private int liveParticles;
+    // fraction of particles spawned and lifespan kept by low priority effects this frame
+    private float countScale, lifespanScale;
+
+    // stats for debug info
+    private int peakParticles;
+    private long frames, pressuredFrames, fullFrames;
+
+    public ParticleBudget()
+    {
+        this(DEFAULT_MAX_PARTICLES);
+    }
+
+    public ParticleBudget(int maxParticles)
+    {
+        this.maxParticles = maxParticles;
+        this.softLimit = (int)(maxParticles * SOFT_LIMIT);
+        update(0);
+    }
+
+    // Called once per frame, before any emitters are updated, with the
+    // number of particles alive after the previous frame.
+    public void update(int live)
+    {
+        liveParticles = live;
+        peakParticles = Math.max(peakParticles, live);
+        ++frames;
+
+        if (live <= softLimit)
+            countScale = 1.f;
+        else
+        {
+            ++pressuredFrames;
+            if (live >= maxParticles)
+                ++fullFrames;
+            countScale = Math.max(0.f, (float)(maxParticles - live) / (maxParticles - softLimit));
+        }
+        lifespanScale = MIN_LIFESPAN_SCALE + (1.f - MIN_LIFESPAN_SCALE) * countScale;
+    }
+
+    // fraction of its particles an effect of the given priority should spawn
+    public float getCountScale(EffectSpec.Priority priority)
+    {
+        return priority == EffectSpec.Priority.LOW ? countScale : 1.f;
+    }
+
+    // fraction of their lifespan an effect's particles should live for
+    public float getLifespanScale(EffectSpec.Priority priority)
+    {
+        return priority == EffectSpec.Priority.LOW ? lifespanScale : 1.f;
+    }
+
+    public int getMaxParticles() {return maxParticles;}
+    public int getLiveParticles() {return liveParticles;}
+
+    public void printDebugInfo()
+    {
+        System.out.printf("""
+                Number of particles: %d of %d budget (peak %d)
+                Low priority effects: %.0f%% of particles, %.0f%% of lifespan
+                Frames over soft limit: %d of %d (%d at full budget)
+                """, liveParticles, maxParticles, peakParticles,
+                countScale * 100.f, lifespanScale * 100.f,
+                pressuredFrames, frames, fullFrames);
+    }
+}
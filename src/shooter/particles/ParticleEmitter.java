@@ -1,14 +1,6 @@
 package shooter.particles;
 
-import processing.core.PImage;
-import processing.core.PMatrix3D;
 import shooter.*;
-import shooter.particles.LifespanParticle;
-import shooter.particles.Particle;
-
-import java.util.LinkedList;
-import java.util.List;
-import java.util.ListIterator;
 
 import static shooter.GameMath.biRand;
 
@@ -19,108 +11,195 @@ public class ParticleEmitter implements GameConstants
         BURST, // immediately emits number of particles equal to particlesPerSec then switches off
         SUSTAINED // emits particles at consistent rate then switches off
     }
-    private final Type type;
-    private final LifespanParticle.Shape shape;
 
-    private final float[]
-            position, posRange,
-            velocity, velRange,
-            acceleration, accelRange,
-            angle, angleRange,
-            rotation, rotRange,
-            size, sizeRange,
-            posOffset;
-    private final PImage texture;
-    private final int[] tint, tintRange;
+    // shared template describing the effect, never modified
+    private final EffectSpec spec;
+    // the only values which differ between emitters spawned from the same spec
+    private final float[] position, velocity;
     private float particlesPerSec; // todo: increase rate when player accelerates, decrease when player brakes
     private float spawnCounter;
-    private final List<LifespanParticle> particles;
-    private PMatrix3D xAngle, yAngle, zAngle;
-    private final float myLifespan;
-    private final float particleLifespan;
+    private final ParticlePool particles;
+    // direction the emitter faces, the offset and velocity of new particles are rotated by these
+    private final Rotations.CachedAngle xAngle, zAngle;
     private float lifespanCounter;
     private boolean switchedOn;
+    // shared limit on live particles, may be null for an unlimited emitter
+    private ParticleBudget budget;
+
+    // Running bounds of the particles spawned since the pool was last empty:
+    // the range of their starting positions, velocities and accelerations.
+    // Where a particle can be after t milliseconds follows from these,
+    // so keeping them costs a few comparisons per spawned particle.
+    private final float[]
+            spawnMin = new float[3], spawnMax = new float[3],
+            velMin = new float[3], velMax = new float[3],
+            accelMin = new float[3], accelMax = new float[3];
+    private float maxSize;
+    // milliseconds since reset, and its value when the bounds were started
+    private float clock, boundsStart, lastElapsed;
+    // false if the emitter was off screen during its last update
+    private boolean onScreen;
+
+    public ParticleEmitter(EffectSpec spec)
+    {
+        this.spec = spec;
+        this.position = new float[3];
+        this.velocity = spec.velocity.clone();
+        this.particlesPerSec = spec.particlesPerSec;
+        this.particles = new ParticlePool(spec.capacity, spec.motion);
+        this.xAngle = new Rotations.CachedAngle();
+        this.zAngle = new Rotations.CachedAngle();
+        reset();
+    }
 
-    public ParticleEmitter (Type type, LifespanParticle.Shape shape,
-                            float particleLife, float emitterLife,
-                            float[] pos, float[] posR, float[] vel, float[] velR,
-                            float[] acc, float[] accR, float[] ang, float[] angR,
-                            float[] rot, float[] rotR, float[] sz, float[] szR,
-                            float[] off, PImage tex, int col, int colR, float perSec)
-    {
-        this.type = type;
-        this.shape = shape;
-        this.particleLifespan = particleLife;
-        this.myLifespan = emitterLife;
-        this.position = pos.clone();
-        this.posRange = posR.clone();
-        this.velocity = vel.clone();
-        this.velRange = velR.clone();
-        this.acceleration = acc.clone();
-        this.accelRange = accR.clone();
-        this.angle = ang.clone();
-        this.angleRange = angR.clone();
-        this.rotation = rot.clone();
-        this.rotRange = rotR.clone();
-        this.size = sz.clone();
-        this.sizeRange = szR.clone();
-        this.posOffset = off.clone();
-        this.texture = tex;
-        this.tint = new int[] {
-                (col >> 16) & 0xFF,
-                (col >> 8) & 0xFF,
-                col & 0xFF
-        };
-        this.tintRange = new int[] {
-                (colR >> 16) & 0xFF,
-                (colR >> 8) & 0xFF,
-                colR & 0xFF
-        };
-        this.particlesPerSec = perSec;
-        this.lifespanCounter = 0.f;
-        this.switchedOn = true;
-        this.particles = new LinkedList<>();
-        this.xAngle = Matrices.identity();
-        this.yAngle = Matrices.identity();
-        this.zAngle = Matrices.identity();
+    public ParticleEmitter(EffectSpec spec, float[] pos, float[] vel)
+    {
+        this(spec);
+        reset(pos, vel);
+    }
+
+    public void update(float elapsedMillis)
+    {
+        update(elapsedMillis, true);
     }
 
     // 1) Spawn new particles
-    // 2) Call on all particles to update
+    // 2) Call on all particles to update, or only age them if the emitter is off screen
     // 3) Delete dead particles
-    public void update(float elapsedMillis)
+    public void update(float elapsedMillis, boolean visible)
     {
+        onScreen = visible;
+        // low priority effects are cut back while the budget is under pressure
+        float countScale = 1.f, lifespanScale = 1.f;
+        if (budget != null)
+        {
+            countScale = budget.getCountScale(spec.priority);
+            lifespanScale = budget.getLifespanScale(spec.priority);
+        }
+
         // spawn new particles, switch off if past lifespan
         if (switchedOn)
         {
-            if (type == Type.BURST)
-                spawnCounter += particlesPerSec;
-            else if (type == Type.SUSTAINED)
-                spawnCounter += particlesPerSec * elapsedMillis / 1000.f;
+            if (spec.type == Type.BURST)
+                spawnCounter += particlesPerSec * countScale;
+            else if (spec.type == Type.SUSTAINED)
+                spawnCounter += particlesPerSec * countScale * elapsedMillis / 1000.f;
             while (spawnCounter >= 1.f)
             {
                 spawnParticle();
                 spawnCounter -= 1.f;
             }
-            if (type == Type.BURST || (myLifespan >= 0.f && (lifespanCounter += elapsedMillis) >= myLifespan))
+            if (spec.type == Type.BURST
+                    || (spec.emitterLifespan >= 0.f && (lifespanCounter += elapsedMillis) >= spec.emitterLifespan))
                 switchedOn = false;
         }
 
-        // update all particles, remove dead ones
-        ListIterator<LifespanParticle> iterator = particles.listIterator();
-        while (iterator.hasNext())
+        // update all particles, remove dead ones, existing particles
+        // are also shortened so the budget recovers quickly
+        if (visible)
+            particles.update(elapsedMillis, spec.particleLifespan * lifespanScale);
+        else
+            particles.age(elapsedMillis, spec.particleLifespan * lifespanScale);
+        clock += elapsedMillis;
+        lastElapsed = elapsedMillis;
+    }
+
+    // Compute a box containing every particle into min and max. The box is
+    // exact for the starting positions and grows with the oldest particle's
+    // age, so it's tight for bursts and loose for long sustained effects.
+    public void getBounds(float[] min, float[] max)
+    {
+        // one frame ahead of the oldest particle, which also covers the
+        // integrator's drift from the closed-form motion
+        float t = Math.min(clock - boundsStart, spec.particleLifespan) + lastElapsed;
+        float halfT2 = 0.5f * t * t;
+        for (int i = I_X; i <= I_Z; i++)
+        {
+            min[i] = spawnMin[i] + Math.min(0.f, velMin[i]) * t + Math.min(0.f, accelMin[i]) * halfT2 - maxSize;
+            max[i] = spawnMax[i] + Math.max(0.f, velMax[i]) * t + Math.max(0.f, accelMax[i]) * halfT2 + maxSize;
+        }
+    }
+
+    // Keep the particles of an effect which bounces off the terrain above the
+    // ground, after an update in which they moved. The effect's bounds are
+    // checked first, and while they're above the highest ground under them
+    // no particle needs to be. Returns the number of particles which
+    // touched the ground.
+    public int collide(HeightField ground)
+    {
+        if (!spec.collidesWithTerrain() || particles.isEmpty())
+            return 0;
+        getBounds(boundsMin, boundsMax);
+        if (boundsMin[I_Z] > ground.getMaxHeight(boundsMin[I_X], boundsMin[I_Y], boundsMax[I_X], boundsMax[I_Y]))
+            return 0;
+        return particles.collide(ground, lastElapsed, spec.bounce, velMin, velMax);
+    }
+
+    // true unless every particle is outside of the view, an emitter with
+    // no particles is visible so that it still spawns them normally
+    public boolean isVisible(ViewVolume view)
+    {
+        if (particles.isEmpty())
+            return true;
+        getBounds(boundsMin, boundsMax);
+        return view.intersects(boundsMin, boundsMax);
+    }
+
+    public void addTo(ParticleBatcher batcher)
+    {
+        if (onScreen && !particles.isEmpty())
+            particles.addTo(batcher.get(spec.texture), spec.shape);
+    }
+
+    // remove every particle and start emitting again from the beginning of the emitter's lifespan
+    public void reset()
+    {
+        particles.clear();
+        spawnCounter = 0.f;
+        lifespanCounter = 0.f;
+        switchedOn = true;
+        clock = 0.f;
+        lastElapsed = 0.f;
+        onScreen = true;
+    }
+
+    // Restart the emitter at a new position, so an expired emitter can be
+    // reused for another effect with the same spec. If the spec inherits
+    // velocity, vel is added to the spec's base velocity, vel may be null.
+    public void reset(float[] pos, float[] vel)
+    {
+        reset();
+        System.arraycopy(pos, 0, position, 0, 3);
+        for (int i = I_X; i <= I_Z; i++)
         {
-            Particle p = iterator.next();
-            p.update(elapsedMillis);
-            if (p.isDead())
-                iterator.remove();
+            velocity[i] = spec.velocity[i];
+            if (spec.inheritVelocity && vel != null)
+                velocity[i] += vel[i];
         }
+        particlesPerSec = spec.particlesPerSec;
+        xAngle.set(0.f);
+        zAngle.set(0.f);
+    }
+
+    public void setBudget(ParticleBudget b)
+    {
+        budget = b;
     }
 
-    public void draw(GameSketch gs)
+    public int getNumParticles()
     {
-        for (Particle p : particles)
-            p.draw(gs);
+        return particles.size();
+    }
+
+    // copy the current position of particle i into dest
+    public void getParticlePosition(int i, float[] dest)
+    {
+        particles.getPosition(i, dest);
+    }
+
+    public EffectSpec getSpec()
+    {
+        return spec;
     }
 
     public boolean isExpired()
@@ -130,17 +209,13 @@ public class ParticleEmitter implements GameConstants
 
     public void setXAngle(float angle)
     {
-        xAngle = Matrices.rotateX(angle);
+        xAngle.set(angle);
     }
 
-    // public void setYAngle(float angle)
-    // {
-    //     yAngle = Matrices.rotateY(angle);
-    // }
 
     public void setZAngle(float angle)
     {
-        zAngle = Matrices.rotateZ(angle);
+        zAngle.set(angle);
     }
 
     public void setPosition(float[] p)
@@ -148,8 +223,8 @@ public class ParticleEmitter implements GameConstants
         System.arraycopy(p, 0, position, 0, 3);
     }
 
-    // reused for every particle, particles deep-copy
-    // the arrays passed to their constructors
+    // reused for every particle, the pool copies
+    // the values out of these arrays
     private final float[]
             currPos = new float[3],
             currVel = new float[3],
@@ -158,33 +233,53 @@ public class ParticleEmitter implements GameConstants
             currAngle = new float[3],
             currRot = new float[3],
             currSize = new float[3],
-            currOff = new float[3],
-            finalOff = new float[3];
+            finalOff = new float[3],
+            boundsMin = new float[3],
+            boundsMax = new float[3];
     private final int[] currTint = new int[3];
     private void spawnParticle()
     {
-        // multiply offset by direction angle
-        // xAngle.mult(posOffset, currOff);
-        yAngle.mult(posOffset, currOff);
-        zAngle.mult(currOff, finalOff);
+        // if the pool is full, drop the particle rather than allocate more room
+        if (particles.isFull())
+            return;
+
+        // rotate offset by direction angle
+        // Rotations.rotateX(spec.posOffset, xAngle, finalOff);
+        Rotations.rotateZ(spec.posOffset, zAngle, finalOff);
         // generate other parameters
         for (int i = I_X; i <= I_Z; i++)
         {
-            currPos[i] = position[i] + biRand(posRange[i]);
+            currPos[i] = position[i] + biRand(GameRandom.PARTICLES, spec.posRange[i]);
             currPos[i] += finalOff[i];
-            currVel[i] = velocity[i] + biRand(velRange[i]);
-            currAccel[i] = acceleration[i] + biRand(accelRange[i]);
-            currAngle[i] = angle[i] + biRand(angleRange[i]);
-            currRot[i] = rotation[i] + biRand(rotRange[i]);
-            currSize[i] = size[i] + biRand(sizeRange[i]);
-            currTint[i] = tint[i] + biRand(tintRange[i]);
+            currVel[i] = velocity[i] + biRand(GameRandom.PARTICLES, spec.velRange[i]);
+            currAccel[i] = spec.acceleration[i] + biRand(GameRandom.PARTICLES, spec.accelRange[i]);
+            currAngle[i] = spec.angle[i] + biRand(GameRandom.PARTICLES, spec.angleRange[i]);
+            currRot[i] = spec.rotation[i] + biRand(GameRandom.PARTICLES, spec.rotRange[i]);
+            currSize[i] = spec.size[i] + biRand(GameRandom.PARTICLES, spec.sizeRange[i]);
+            currTint[i] = spec.tint[i] + biRand(GameRandom.PARTICLES, spec.tintRange[i]);
             currTint[i] = GameMath.constrain(currTint[i], 0, 0xFF);
         }
-        zAngle.mult(currVel, finalVel);
+        Rotations.rotateZ(currVel, zAngle, finalVel);
         int t = StaticColor.color(currTint);
 
-        particles.add(new LifespanParticle(shape, particleLifespan,
-                currPos, finalVel, currAccel, currAngle, currRot,
-                currSize, texture, t));
+        // start new bounds if this is the only particle, otherwise expand them
+        boolean first = particles.isEmpty();
+        if (first)
+        {
+            boundsStart = clock;
+            maxSize = 0.f;
+        }
+        for (int i = I_X; i <= I_Z; i++)
+        {
+            spawnMin[i] = first ? currPos[i] : Math.min(spawnMin[i], currPos[i]);
+            spawnMax[i] = first ? currPos[i] : Math.max(spawnMax[i], currPos[i]);
+            velMin[i] = first ? finalVel[i] : Math.min(velMin[i], finalVel[i]);
+            velMax[i] = first ? finalVel[i] : Math.max(velMax[i], finalVel[i]);
+            accelMin[i] = first ? currAccel[i] : Math.min(accelMin[i], currAccel[i]);
+            accelMax[i] = first ? currAccel[i] : Math.max(accelMax[i], currAccel[i]);
+            maxSize = Math.max(maxSize, Math.abs(currSize[i]));
+        }
+
+        particles.add(currPos, finalVel, currAccel, currAngle, currRot, currSize, t);
     }
 }
@@ -0,0 +1,376 @@
+package shooter.particles;
+
+import shooter.GameConstants;
+import shooter.HeightField;
+
+/* ParticlePool
+ *
+ * Fixed-capacity storage for the particles of one emitter.
+ * The state of every particle is kept in flat primitive
+ * arrays instead of one object per particle, so spawning a
+ * burst allocates nothing and updating is a single pass
+ * over contiguous memory. A dead particle is removed by
+ * moving the last live particle into its slot.
+ *
+ * Particles move with constant acceleration and spin, so a
+ * pool can also run in ANALYTIC mode: only each particle's
+ * spawn time and initial state are stored, and its position
+ * and angle are computed in closed form when it is drawn.
+ * Updating is then just an expiry check, and particles which
+ * aren't drawn cost nothing else.
+ *
+ * Particles can be kept above the ground. A particle which
+ * bounces is given a new velocity from where it is, and in
+ * ANALYTIC mode its initial state is replaced by the one which
+ * leads there, so its spawn time still counts down its life.
+ */
+
+public class ParticlePool implements GameConstants
+{
+    public enum Motion
+    {
+        INTEGRATED, // velocity, position and angle are stepped forward every update
+        ANALYTIC // position and angle are computed from the time since spawning
+    }
+
+    private final Motion motion;
+    private final int capacity;
+    private int count;
+
+    // components of particle i are stored at [i * 3 + I_X], [i * 3 + I_Y], [i * 3 + I_Z]
+    private final float[]
+            pos,
+            vel,
+            accel,
+            angle,
+            rotation,
+            size;
+    // in INTEGRATED mode, milliseconds each particle has been alive
+    private final float[] age;
+    // in ANALYTIC mode, the pool's time when each particle was spawned, pos, vel and
+    // angle keep their initial values. Doubles keep long-lived pools precise.
+    private final double[] spawnTime;
+    private double time;
+    // in INTEGRATED mode, milliseconds the pool was only aged for, not yet integrated
+    private float pendingMillis;
+    private final int[] tint;
+
+    private static final float
+            // fraction of its speed along the ground a particle keeps each update it touches it
+            GROUND_FRICTION = 0.8f,
+            // speed away from the ground, in units per millisecond, below which a particle stops bouncing
+            REST_SPEED = 0.0003f;
+
+    // scratch space for one analytic particle's current position and angle
+    private final float[]
+            currPos = new float[3],
+            currVel = new float[3],
+            currAngle = new float[3],
+            currSize = new float[3];
+
+    public ParticlePool(int capacity)
+    {
+        this(capacity, Motion.INTEGRATED);
+    }
+
+    public ParticlePool(int capacity, Motion motion)
+    {
+        this.motion = motion;
+        this.capacity = capacity;
+        this.count = 0;
+        this.pos = new float[capacity * 3];
+        this.vel = new float[capacity * 3];
+        this.accel = new float[capacity * 3];
+        this.angle = new float[capacity * 3];
+        this.rotation = new float[capacity * 3];
+        this.size = new float[capacity * 3];
+        this.age = motion == Motion.INTEGRATED ? new float[capacity] : null;
+        this.spawnTime = motion == Motion.ANALYTIC ? new double[capacity] : null;
+        this.time = 0.0;
+        this.tint = new int[capacity];
+    }
+
+    // copy the given state into the next free slot, returns false if the pool is full
+    public boolean add(float[] p, float[] v, float[] a,
+                       float[] ang, float[] rot, float[] sz, int t)
+    {
+        if (count >= capacity)
+            return false;
+        // the particles already here are moved by the time the pool was aged
+        // for now, as the new one didn't live through it
+        if (motion == Motion.INTEGRATED)
+            catchUp();
+
+        int base = count * 3;
+        for (int c = I_X; c <= I_Z; c++)
+        {
+            pos[base + c] = p[c];
+            vel[base + c] = v[c];
+            accel[base + c] = a[c];
+            angle[base + c] = ang[c];
+            rotation[base + c] = rot[c];
+            size[base + c] = sz[c];
+        }
+        if (motion == Motion.ANALYTIC)
+            spawnTime[count] = time;
+        else
+            age[count] = 0.f;
+        tint[count] = t;
+        ++count;
+        return true;
+    }
+
+    // integrate every particle and remove the ones which have reached the given lifespan
+    public void update(float elapsedMillis, float lifespan)
+    {
+        if (motion == Motion.ANALYTIC)
+        {
+            expire(elapsedMillis, lifespan);
+            return;
+        }
+        catchUp();
+
+        int i = 0;
+        while (i < count)
+        {
+            if ((age[i] += elapsedMillis) >= lifespan)
+            {
+                // the last particle is moved here and has not been updated yet, so don't advance i
+                remove(i);
+                continue;
+            }
+
+            int end = i * 3 + 3;
+            for (int c = i * 3; c < end; c++)
+            {
+                vel[c] += accel[c] * elapsedMillis;
+                pos[c] += vel[c] * elapsedMillis;
+                angle[c] += rotation[c] * elapsedMillis;
+            }
+            ++i;
+        }
+    }
+
+    // Age every particle and remove expired ones, without moving them. Used
+    // while no particles can be seen. Integrated particles are moved by the
+    // skipped time in one step at their next update, or before another is
+    // spawned, analytic particles don't need to be moved at all.
+    public void age(float elapsedMillis, float lifespan)
+    {
+        if (motion == Motion.ANALYTIC)
+        {
+            expire(elapsedMillis, lifespan);
+            return;
+        }
+
+        pendingMillis += elapsedMillis;
+        int i = 0;
+        while (i < count)
+        {
+            if ((age[i] += elapsedMillis) >= lifespan)
+                remove(i);
+            else
+                ++i;
+        }
+    }
+
+    // move integrated particles by the time they were only aged for,
+    // using the exact motion for that time rather than many small steps
+    private void catchUp()
+    {
+        if (pendingMillis == 0.f)
+            return;
+        float t = pendingMillis, halfT2 = 0.5f * t * t;
+        int end = count * 3;
+        for (int c = 0; c < end; c++)
+        {
+            pos[c] += vel[c] * t + accel[c] * halfT2;
+            vel[c] += accel[c] * t;
+            angle[c] += rotation[c] * t;
+        }
+        pendingMillis = 0.f;
+    }
+
+    // advance the pool's time, analytic particles only need to be checked for expiry
+    private void expire(float elapsedMillis, float lifespan)
+    {
+        time += elapsedMillis;
+        int i = 0;
+        while (i < count)
+        {
+            if (time - spawnTime[i] >= lifespan)
+                remove(i);
+            else
+                ++i;
+        }
+    }
+
+    // Keep every particle above the ground, after an update of elapsedMillis.
+    // A particle which has fallen onto the ground bounces, keeping the given
+    // fraction of its speed into it, and rests once it's too slow to bounce.
+    // A particle which has run into the side of a taller column of ground is
+    // put back where it was and bounces off it. Resting and sliding particles
+    // are carried along with the ground. velMin and velMax are widened to
+    // include every velocity a bounce gives. Returns the number of particles
+    // which touched the ground.
+    public int collide(HeightField ground, float elapsedMillis, float bounce, float[] velMin, float[] velMax)
+    {
+        final float groundVel = ground.getVelocityY();
+        int touched = 0;
+        for (int i = 0; i < count; i++)
+        {
+            final int base = i * 3;
+            float t = 0.f;
+            if (motion == Motion.ANALYTIC)
+            {
+                t = (float)(time - spawnTime[i]);
+                for (int c = I_X; c <= I_Z; c++)
+                {
+                    currPos[c] = pos[base + c] + (vel[base + c] + 0.5f * accel[base + c] * t) * t;
+                    currVel[c] = vel[base + c] + accel[base + c] * t;
+                }
+            }
+            else
+            {
+                System.arraycopy(pos, base, currPos, 0, 3);
+                System.arraycopy(vel, base, currVel, 0, 3);
+            }
+
+            final float height = ground.getHeight(currPos[I_X], currPos[I_Y]);
+            if (currPos[I_Z] >= height)
+                continue;
+            ++touched;
+
+            // where the particle was last update, moved along with the ground since
+            float prevX = currPos[I_X] - currVel[I_X] * elapsedMillis,
+                  prevY = currPos[I_Y] - (currVel[I_Y] - groundVel) * elapsedMillis,
+                  prevZ = currPos[I_Z] - currVel[I_Z] * elapsedMillis;
+            final float prevHeight = ground.getHeight(prevX, prevY);
+            if (prevZ >= height || prevZ < prevHeight)
+            {
+                // came down from above, or was already in the ground: land on top
+                currPos[I_Z] = height;
+                currVel[I_Z] = Math.max(0.f, -currVel[I_Z] * bounce);
+                if (currVel[I_Z] < REST_SPEED)
+                    currVel[I_Z] = 0.f;
+                currVel[I_X] *= GROUND_FRICTION;
+                currVel[I_Y] = groundVel + (currVel[I_Y] - groundVel) * GROUND_FRICTION;
+            }
+            else
+            {
+                // came from the side, below the top: bounce back off the wall
+                currPos[I_X] = prevX;
+                currPos[I_Y] = prevY;
+                currPos[I_Z] = Math.max(currPos[I_Z], prevHeight);
+                currVel[I_X] *= -bounce;
+                currVel[I_Y] = groundVel - (currVel[I_Y] - groundVel) * bounce;
+            }
+
+            for (int c = I_X; c <= I_Z; c++)
+            {
+                velMin[c] = Math.min(velMin[c], currVel[c]);
+                velMax[c] = Math.max(velMax[c], currVel[c]);
+                if (motion == Motion.ANALYTIC)
+                {
+                    // the initial state whose motion passes through the new one at time t
+                    vel[base + c] = currVel[c] - accel[base + c] * t;
+                    pos[base + c] = currPos[c] - (vel[base + c] + 0.5f * accel[base + c] * t) * t;
+                }
+                else
+                {
+                    pos[base + c] = currPos[c];
+                    vel[base + c] = currVel[c];
+                }
+            }
+        }
+        return touched;
+    }
+
+    // append every particle's geometry to a batch, to be drawn with other particles of the same texture
+    public void addTo(ParticleBatch batch, LifespanParticle.Shape shape)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            if (motion == Motion.ANALYTIC)
+            {
+                evaluate(i);
+                batch.add(shape, tint[i], currPos, currAngle, currSize, 0);
+            }
+            else
+                batch.add(shape, tint[i], pos, angle, size, i * 3);
+        }
+    }
+
+    // copy particle i's current position into dest
+    public void getPosition(int i, float[] dest)
+    {
+        if (motion == Motion.ANALYTIC)
+        {
+            evaluate(i);
+            System.arraycopy(currPos, 0, dest, 0, 3);
+        }
+        else
+            System.arraycopy(pos, i * 3, dest, 0, 3);
+    }
+
+    // copy particle i's current angle into dest
+    public void getAngle(int i, float[] dest)
+    {
+        if (motion == Motion.ANALYTIC)
+        {
+            evaluate(i);
+            System.arraycopy(currAngle, 0, dest, 0, 3);
+        }
+        else
+            System.arraycopy(angle, i * 3, dest, 0, 3);
+    }
+
+    // Compute analytic particle i's current state into the scratch arrays.
+    // Each update the integrator adds acceleration to velocity before moving,
+    // which is the exact solution plus a drift of a * t * dt / 2 that shrinks
+    // with the frame length, so the two modes agree to within that drift.
+    private void evaluate(int i)
+    {
+        float t = (float)(time - spawnTime[i]);
+        int base = i * 3;
+        for (int c = I_X; c <= I_Z; c++)
+        {
+            currPos[c] = pos[base + c] + (vel[base + c] + 0.5f * accel[base + c] * t) * t;
+            currAngle[c] = angle[base + c] + rotation[base + c] * t;
+            currSize[c] = size[base + c];
+        }
+    }
+
+    public void clear()
+    {
+        count = 0;
+        time = 0.0;
+        pendingMillis = 0.f;
+    }
+
+    public Motion getMotion() {return motion;}
+    public int size() {return count;}
+    public int getCapacity() {return capacity;}
+    public boolean isEmpty() {return count == 0;}
+    public boolean isFull() {return count >= capacity;}
+
+    // overwrite particle i with the last particle
+    private void remove(int i)
+    {
+        int last = --count;
+        if (i != last)
+        {
+            System.arraycopy(pos, last * 3, pos, i * 3, 3);
+            System.arraycopy(vel, last * 3, vel, i * 3, 3);
+            System.arraycopy(accel, last * 3, accel, i * 3, 3);
+            System.arraycopy(angle, last * 3, angle, i * 3, 3);
+            System.arraycopy(rotation, last * 3, rotation, i * 3, 3);
+            System.arraycopy(size, last * 3, size, i * 3, 3);
+            if (motion == Motion.ANALYTIC)
+                spawnTime[i] = spawnTime[last];
+            else
+                age[i] = age[last];
+            tint[i] = tint[last];
+        }
+    }
+}
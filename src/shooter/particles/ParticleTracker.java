@@ -1,34 +1,49 @@
 package shooter.particles;
 
-import processing.core.PMatrix3D;
-import processing.core.PVector;
 import shooter.GameConstants;
 import shooter.GameMath;
-import shooter.GameSketch;
-import shooter.Matrices;
+import shooter.GameRandom;
+import shooter.RenderBackend;
+import shooter.HeightField;
+import shooter.Rotations;
+import shooter.ViewVolume;
 import shooter.actors.*;
-import shooter.particles.DeathEffect;
-import shooter.particles.EffectFactory;
-import shooter.particles.ParticleEmitter;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.ListIterator;
 
 public class ParticleTracker implements GameConstants
 {
-    // the current player (when player loses a life and respawns, a new player object is given to this class)
+    // the current player (when player loses a life and respawns, it is given to this class again)
     private Player player;
-    // having the player in an ArrayList lets it be passed to the collision checking methods in this class
-    private final List<Actor> playerInList = new LinkedList<>();
-    // the bullets fired by the player, deleted once offscreen
-    private final List<Actor> playerBullets = new LinkedList<>();
-    // current enemies, get removed once their movement animation is finished
-    private final List<Actor> enemies = new LinkedList<>();
-    // the bullets fired by all enemies, deleted once offscreen
-    private final List<Actor> enemyBullets = new LinkedList<>();
+    // having the player in a pool lets it be passed to the collision checking methods in this class,
+    // the player is created by GameState rather than by the pool
+    private final ActorPool<Player> playerInPool = new ActorPool<>(null, 1);
+    // the bullets fired by the player, recycled once offscreen
+    private final ActorPool<PlayerBullet> playerBullets = new ActorPool<>(PlayerBullet::new);
+    // current enemies, get recycled once their movement animation is finished
+    private final ActorPool<Enemy> enemies = new ActorPool<>(() -> EnemyGenerator.createEnemy(this));
+    // the bullets fired by all enemies, recycled once offscreen
+    private final ActorPool<EnemyBullet> enemyBullets = new ActorPool<>(EnemyBullet::new);
     // effects produced by an actor colliding, such as an explosion
-    private final List<ParticleEmitter> effects = new LinkedList<>();
+    private final List<ParticleEmitter> effects = new ArrayList<>();
+    // expired emitters waiting to be reused, indexed by the id of their effect's spec
+    private final List<List<ParticleEmitter>> freeEffects = new ArrayList<>();
+    // limits the particles of every effect and the player's engine trail
+    private final ParticleBudget budget = new ParticleBudget();
+    // what the camera can see, effects outside of it are neither drawn nor moved
+    private ViewVolume view = new ViewVolume();
+    // terrain that effects which bounce are kept above, none until one is given
+    private HeightField ground;
+    // number of effects found to be off screen in the last update
+    private int numCulled = 0;
+    // builds the geometry of every particle each frame
+    private final ParticleBatcher batcher = new ParticleBatcher();
+    // broadphase grids, rebuilt each frame from the lists checked against them
+    private final SpatialHash
+            playerBulletGrid = new SpatialHash(),
+            enemyGrid = new SpatialHash(),
+            enemyBulletGrid = new SpatialHash();
 
     private static final int MAX_ENEMIES = 4;
     private static final float
@@ -39,7 +54,10 @@ public class ParticleTracker implements GameConstants
             DIFFICULTY_PER_ENEMY = 1.f / 20000.f,
             // start value for difficulty
             START_DIFFICULTY = 1.f / 4000.f;
-    private static final float[] PLAYER_BULLET_SPEED = {0.006f, 0.f, 0.f};// {0.f, 0.006f, 0.f};
+    private static final float[]
+            PLAYER_BULLET_SPEED = {0.006f, 0.f, 0.f},// {0.f, 0.006f, 0.f};
+            // enemies aim at a random point this far from the player
+            ENEMY_INACCURACY = {0.3f, 0.3f, 0.f};
 
     private static float
             // Each millisecond, spawnCounter is increased by this value
@@ -47,55 +65,92 @@ public class ParticleTracker implements GameConstants
             // When this value is >= 1, an enemy is spawned
             spawnCounter = 0.f;
 
+    public ParticleTracker()
+    {
+        for (int i = 0; i < EffectFactory.getNumEffects(); i++)
+            freeEffects.add(new ArrayList<>());
+    }
+
+    public void setViewVolume(ViewVolume v)
+    {
+        view = v;
+    }
+
+    // Keep the particles of effects which bounce above this ground. Effects
+    // off screen aren't moved, so they aren't kept above it either.
+    public void setGround(HeightField g)
+    {
+        ground = g;
+    }
+
     public void setPlayer(Player p)
     {
         player = p;
-        playerInList.clear();
-        playerInList.add(p);
+        playerInPool.clear();
+        playerInPool.add(p);
+        p.setParticleBudget(budget);
     }
 
     public void update(float elapsedMillis, boolean collisionsOn, boolean gameOver)
     {
+        budget.update(countParticles());
+
         // update tracked particles, delete if dead
         player.update(elapsedMillis);
-        updateList(playerBullets, elapsedMillis);
-        updateList(enemies, elapsedMillis);
-        updateList(enemyBullets, elapsedMillis);
+        updatePool(playerBullets, elapsedMillis);
+        updatePool(enemies, elapsedMillis);
+        updatePool(enemyBullets, elapsedMillis);
 
-        // update particle emitters, delete if dead
-        ListIterator<ParticleEmitter> fx = effects.listIterator();
-        while (fx.hasNext())
+        // update particle emitters, recycle if expired
+        numCulled = 0;
+        int fx = 0;
+        while (fx < effects.size())
         {
-            ParticleEmitter e = fx.next();
-            e.update(elapsedMillis);
+            ParticleEmitter e = effects.get(fx);
+            boolean visible = e.isVisible(view);
+            numCulled += visible ? 0 : 1;
+            e.update(elapsedMillis, visible);
+            if (visible && ground != null)
+                e.collide(ground);
             if (e.isExpired())
-                fx.remove();
+            {
+                // swap the last emitter into this index, order doesn't matter
+                int last = effects.size() - 1;
+                effects.set(fx, effects.get(last));
+                effects.remove(last);
+                freeEffects.get(e.getSpec().getId()).add(e);
+            }
+            else
+                ++fx;
         }
 
         // check for collisions
         if (collisionsOn)
         {
+            playerBulletGrid.rebuild(playerBullets);
             // player's bullets vs. enemy bullets
-            checkCollisions(enemyBullets, playerBullets);
+            playerBulletGrid.checkCollisions(enemyBullets);
             // player's bullets vs. enemies
-            checkCollisions(enemies, playerBullets);
+            playerBulletGrid.checkCollisions(enemies);
             if (!player.isImmune())
             {
+                enemyGrid.rebuild(enemies);
+                enemyBulletGrid.rebuild(enemyBullets);
                 // enemies vs. player
-                checkCollisions(playerInList, enemies);
+                enemyGrid.checkCollisions(playerInPool);
                 // enemy bullets vs. player
-                checkCollisions(playerInList, enemyBullets);
+                enemyBulletGrid.checkCollisions(playerInPool);
             }
         }
 
         // perform on-death tasks for killed actors, then remove
-        // them from the list, effectively deleting them
+        // them from their pools to be reused
         int killedEnemies = handleKilledActors(enemies, DeathEffect.DEBRIS_EXPLOSION);
         handleKilledActors(enemyBullets, DeathEffect.BULLET_SPARK);
         handleKilledActors(playerBullets, DeathEffect.BULLET_SPARK);
-        // here, the player is removed from playerInList,
+        // here, the player is removed from playerInPool,
         // but is still referenced by the player instance variable
-        handleKilledActors(playerInList, DeathEffect.DEBRIS_EXPLOSION);
+        handleKilledActors(playerInPool, DeathEffect.DEBRIS_EXPLOSION);
 
         if (!gameOver)
         {
@@ -110,46 +165,69 @@ public class ParticleTracker implements GameConstants
         }
     }
 
-    public void drawParticles(GameSketch gs)
+    public void drawParticles(RenderBackend r)
     {
-        drawList(playerBullets, gs);
-        drawList(enemies, gs);
-        drawList(enemyBullets, gs);
-        for (ParticleEmitter pe : effects)
-            pe.draw(gs);
-        player.draw(gs);
+        drawPool(playerBullets, r);
+        drawPool(enemies, r);
+        drawPool(enemyBullets, r);
+        // every effect's particles are drawn as one shape per texture
+        batcher.clear();
+        for (int i = 0; i < effects.size(); i++)
+            effects.get(i).addTo(batcher);
+        player.addParticles(batcher);
+        batcher.draw(r);
+        player.draw(r);
     }
 
     public void printDebugInfo()
     {
         System.out.printf("""
                 Number of players: %d
-                Number of enemies: %d
-                Number of player bullets: %d
-                Number of enemy bullets: %d
-                Number of emitters: %d
-                """, playerInList.size(), enemies.size(),
-                playerBullets.size(), enemyBullets.size(),
-                effects.size() + playerInList.size());
+                Number of enemies: %d (high-water mark %d, %d created)
+                Number of player bullets: %d (high-water mark %d, %d created)
+                Number of enemy bullets: %d (high-water mark %d, %d created)
+                Number of emitters: %d (%d off screen)
+                Number of particle batches: %d (%d drawn last frame)
+                """, playerInPool.size(),
+                enemies.size(), enemies.getHighWater(), enemies.getNumCreated(),
+                playerBullets.size(), playerBullets.getHighWater(), playerBullets.getNumCreated(),
+                enemyBullets.size(), enemyBullets.getHighWater(), enemyBullets.getNumCreated(),
+                effects.size() + playerInPool.size(), numCulled,
+                batcher.getNumBatches(), batcher.getNumShapes());
+        budget.printDebugInfo();
     }
 
+    // number of live particles in every emitter, including the player's engine
+    private int countParticles()
+    {
+        int total = player.getNumParticles();
+        for (int i = 0; i < effects.size(); i++)
+            total += effects.get(i).getNumParticles();
+        return total;
+    }
+
+    // reused for every bullet fired, the bullets copy these values
+    private final float[]
+            shotPos = new float[3],
+            shotVel = new float[3],
+            shotAngle = new float[3],
+            playerPos = new float[3];
+
     public void playerShoot(float[] origin, float[] offset, float zAngle)
     {
-        final float[]
-                posDest = new float[3],
-                velDest = new float[3],
-                angleDest = new float[3];
-        // rotate the bullet's offset and velocity with a rotation matrix
-        PMatrix3D angleMat = Matrices.rotateZ(zAngle);
-        angleMat.mult(offset, posDest); // posDest gets rotated offset
+        // rotate the bullet's offset and velocity by zAngle
+        float sin = (float)Math.sin(zAngle), cos = (float)Math.cos(zAngle);
+        Rotations.rotateZ(offset, sin, cos, shotPos); // shotPos gets rotated offset
         // add origin to offset for final starting position
         for (int i = I_X; i <= I_Z; i++)
-            posDest[i] += origin[i];
-        angleMat.mult(PLAYER_BULLET_SPEED, velDest); // velDest gets rotated velocity
+            shotPos[i] += origin[i];
+        Rotations.rotateZ(PLAYER_BULLET_SPEED, sin, cos, shotVel); // shotVel gets rotated velocity
         // rotate bullet's sprite by zAngle
-        angleDest[I_Z] = zAngle;
+        shotAngle[I_X] = 0.f;
+        shotAngle[I_Y] = 0.f;
+        shotAngle[I_Z] = zAngle;
 
-        playerBullets.add(new PlayerBullet(posDest, velDest, angleDest));
+        playerBullets.obtain().reset(shotPos, shotVel, shotAngle);
     }
 
     // fire a bullet from the given position towards the player
@@ -158,88 +236,79 @@ public class ParticleTracker implements GameConstants
         // don't shoot if player is killed
         if (player.isKilled()) return;
 
-        final float[]
-                velToPlayer,
-                angle = new float[3],
-                playerPos = new float[3],
-                inaccuracy = {0.3f, 0.3f, 0.f};
-
         player.getPos(playerPos);
         for (int i = I_X; i <= I_Z; i++)
         {
-            playerPos[i] += GameMath.biRand(inaccuracy[i]);
+            playerPos[i] += GameMath.biRand(GameRandom.SPAWNING, ENEMY_INACCURACY[i]);
+            shotVel[i] = playerPos[i] - origin[i];
+            shotAngle[i] = 0.f;
         }
-        PVector toPlayer = new PVector (
-                playerPos[I_X] - origin[I_X],
-                playerPos[I_Y] - origin[I_Y],
-                playerPos[I_Z] - origin[I_Z]);
-        toPlayer.normalize();
-        velToPlayer = new float[]{toPlayer.x * ENEMY_BULLET_SPEED,
-                                  toPlayer.y * ENEMY_BULLET_SPEED,
-                                  toPlayer.z * ENEMY_BULLET_SPEED};
-        enemyBullets.add(new EnemyBullet(origin, velToPlayer, angle));
+        // normalize direction to the player, then scale to the bullet's speed
+        float dist = (float)Math.sqrt(shotVel[I_X] * shotVel[I_X]
+                + shotVel[I_Y] * shotVel[I_Y]
+                + shotVel[I_Z] * shotVel[I_Z]);
+        if (dist != 0.f)
+        {
+            for (int i = I_X; i <= I_Z; i++)
+                shotVel[i] = shotVel[i] / dist * ENEMY_BULLET_SPEED;
+        }
+        enemyBullets.obtain().reset(origin, shotVel, shotAngle);
     }
 
-    // Call on all particles in a list to update. If any particles are dead, remove them.
-    private void updateList(List<Actor> l, float elapsedMillis)
+    // Call on all actors in a pool to update. If any actors are dead, recycle them.
+    private void updatePool(ActorPool<? extends Actor> pool, float elapsedMillis)
     {
-        ListIterator<Actor> actors = l.listIterator();
-        while (actors.hasNext())
+        int i = 0;
+        while (i < pool.size())
         {
-            Actor a = actors.next();
+            Actor a = pool.get(i);
             a.update(elapsedMillis);
+            // removing swaps the last actor into this index, so only advance if nothing was removed
             if (a.isDead())
-                actors.remove();
+                pool.remove(i);
+            else
+                ++i;
         }
     }
 
-    private void drawList(List<Actor> actors, GameSketch gs)
+    private void drawPool(ActorPool<? extends Actor> pool, RenderBackend r)
     {
-        for (Actor a : actors)
-            a.draw(gs);
+        for (int i = 0; i < pool.size(); i++)
+            pool.get(i).draw(r);
     }
 
     private void spawnEnemy()
     {
-        enemies.add(EnemyGenerator.generateEnemy(this));
+        EnemyGenerator.resetEnemy(enemies.obtain());
     }
 
-    private final float[] A_POS = new float[3], B_POS = new float[3];
-    private void checkCollisions(List<Actor> listA, List<Actor> listB)
+    // start an effect at pos, reusing an expired emitter of the same effect if there is one
+    private void spawnEffect(EffectSpec spec, float[] pos, float[] vel)
     {
-        for (Actor a : listA)
+        List<ParticleEmitter> free = freeEffects.get(spec.getId());
+        if (free.isEmpty())
         {
-            if (a.isKilled())
-                continue;
-            a.getPos(A_POS);
-            for (Actor b : listB)
-            {
-                if (b.isKilled())
-                    continue;
-                b.getPos(B_POS);
-
-                float xDist = A_POS[I_X] - B_POS[I_X], yDist = A_POS[I_Y] - B_POS[I_Y];
-                float distSquared = xDist * xDist + yDist * yDist;
-                float radsSquared = a.getCollisionRadius() + b.getCollisionRadius();
-                radsSquared *= radsSquared;
-                if (distSquared <= radsSquared)
-                {
-                    a.setKilled();
-                    b.setKilled();
-                }
-            }
+            ParticleEmitter e = new ParticleEmitter(spec, pos, vel);
+            e.setBudget(budget);
+            effects.add(e);
+        }
+        else
+        {
+            ParticleEmitter e = free.remove(free.size() - 1);
+            e.reset(pos, vel);
+            effects.add(e);
         }
     }
 
     private final float[] ACTOR_POS = new float[3], ACTOR_VEL = new float[3];
-    private int handleKilledActors(List<Actor> actorList, DeathEffect effect)
+    private int handleKilledActors(ActorPool<? extends Actor> pool, DeathEffect effect)
     {
-        ListIterator<Actor> actors = actorList.listIterator();
         int numKilled = 0;
 
-        while (actors.hasNext())
+        int i = 0;
+        while (i < pool.size())
         {
-            Actor a = actors.next();
+            Actor a = pool.get(i);
             if (a.isKilled())
             {
                 ++numKilled;
@@ -249,16 +318,18 @@ public class ParticleTracker implements GameConstants
                     if (effect == DeathEffect.DEBRIS_EXPLOSION)
                     {
                         a.getVel(ACTOR_VEL);
-                        effects.add(EffectFactory.explosion(ACTOR_POS));
-                        effects.add(EffectFactory.debris(ACTOR_POS, ACTOR_VEL));
+                        spawnEffect(EffectFactory.EXPLOSION, ACTOR_POS, null);
+                        spawnEffect(EffectFactory.DEBRIS, ACTOR_POS, ACTOR_VEL);
                     }
                     else if (effect == DeathEffect.BULLET_SPARK)
                     {
-                        effects.add(EffectFactory.bulletSpark(ACTOR_POS));
+                        spawnEffect(EffectFactory.BULLET_SPARK, ACTOR_POS, null);
                     }
                 }
-                actors.remove();
+                pool.remove(i);
             }
+            else
+                ++i;
         }
 
         return numKilled;
@@ -0,0 +1,249 @@
+package shooter.particles;
+
+import shooter.GameConstants;
+import shooter.actors.Actor;
+import shooter.actors.ActorPool;
+
+import java.util.Arrays;
+
+/* SpatialHash
+ *
+ * Uniform grid broadphase for collisions between actors.
+ * The grid is rebuilt every frame from one pool of actors:
+ * each actor is entered into every cell its collision circle
+ * swept over during the frame overlaps, and cells are hashed
+ * into a fixed number of buckets so the grid needs no bounds.
+ * Checking another pool against the grid only runs the exact
+ * test on actors sharing a cell, and kills the same actors as
+ * checking every pair of the two pools.
+ *
+ * Collisions are continuous: two actors collide if their
+ * circles touch at any point while moving in a straight line
+ * from their previous positions to their current ones. A fast
+ * bullet can't pass through a target during a long frame.
+ */
+
+public class SpatialHash implements GameConstants
+{
+    private static final float
+            // width and height of one cell, larger than the biggest collision diameter
+            DEFAULT_CELL_SIZE = 0.25f,
+            // added to query bounds so rounding can never skip a cell touching a circle
+            BOUNDS_PADDING = 0.0001f;
+    private static final int
+            DEFAULT_BUCKETS = 512, // must be a power of two
+            HASH_X = 73856093,
+            HASH_Y = 19349663;
+
+    private final float cellSize;
+    private final int bucketMask;
+    // entries for bucket b are stored in entries[bucketStart[b]] to entries[bucketStart[b + 1] - 1]
+    private final int[] bucketStart, bucketFill;
+    private int[] entries;
+    private int numEntries;
+
+    // actors in the grid, with the range of cells each one covers
+    private Actor[] actors;
+    private int[] cellBounds;
+    private int numActors;
+
+    // actors found by the last query, stamped so each is only found once
+    private int[] candidates, queryStamps;
+    private int numCandidates, currStamp;
+
+    private final float[]
+            aPos = new float[3],
+            aPrev = new float[3],
+            bPos = new float[3],
+            bPrev = new float[3];
+
+    public SpatialHash()
+    {
+        this(DEFAULT_CELL_SIZE, DEFAULT_BUCKETS);
+    }
+
+    public SpatialHash(float cellSize, int numBuckets)
+    {
+        assert Integer.bitCount(numBuckets) == 1 : "Number of buckets must be a power of two";
+        this.cellSize = cellSize;
+        this.bucketMask = numBuckets - 1;
+        this.bucketStart = new int[numBuckets + 1];
+        this.bucketFill = new int[numBuckets];
+        this.entries = new int[64];
+        this.actors = new Actor[16];
+        this.cellBounds = new int[16 * 4];
+        this.candidates = new int[16];
+        this.queryStamps = new int[16];
+        this.numEntries = 0;
+        this.numActors = 0;
+        this.numCandidates = 0;
+        this.currStamp = 0;
+    }
+
+    // Empty the grid and enter every actor which has not been killed.
+    public void rebuild(ActorPool<? extends Actor> pool)
+    {
+        numActors = 0;
+        numEntries = 0;
+        ensureActorCapacity(pool.size());
+        Arrays.fill(bucketStart, 0);
+
+        // count how many entries go in each bucket
+        for (int p = 0; p < pool.size(); p++)
+        {
+            Actor a = pool.get(p);
+            if (a.isKilled())
+                continue;
+            a.getPos(aPos);
+            a.getPrevPos(aPrev);
+            float r = a.getCollisionRadius();
+            int bounds = numActors * 4;
+            cellBounds[bounds] = toCell(Math.min(aPrev[I_X], aPos[I_X]) - r);
+            cellBounds[bounds + 1] = toCell(Math.min(aPrev[I_Y], aPos[I_Y]) - r);
+            cellBounds[bounds + 2] = toCell(Math.max(aPrev[I_X], aPos[I_X]) + r);
+            cellBounds[bounds + 3] = toCell(Math.max(aPrev[I_Y], aPos[I_Y]) + r);
+            for (int cy = cellBounds[bounds + 1]; cy <= cellBounds[bounds + 3]; cy++)
+            {
+                for (int cx = cellBounds[bounds]; cx <= cellBounds[bounds + 2]; cx++)
+                {
+                    ++bucketStart[hash(cx, cy) + 1];
+                    ++numEntries;
+                }
+            }
+            actors[numActors++] = a;
+        }
+
+        // turn counts into the index of each bucket's first entry
+        for (int b = 1; b < bucketStart.length; b++)
+            bucketStart[b] += bucketStart[b - 1];
+        System.arraycopy(bucketStart, 0, bucketFill, 0, bucketFill.length);
+
+        // place each actor's index in the buckets of the cells it covers
+        if (entries.length < numEntries)
+            entries = new int[Math.max(numEntries, entries.length * 2)];
+        for (int i = 0; i < numActors; i++)
+        {
+            int bounds = i * 4;
+            for (int cy = cellBounds[bounds + 1]; cy <= cellBounds[bounds + 3]; cy++)
+                for (int cx = cellBounds[bounds]; cx <= cellBounds[bounds + 2]; cx++)
+                    entries[bucketFill[hash(cx, cy)]++] = i;
+        }
+    }
+
+    // Check every actor in the pool against the actors in the grid. Any pair
+    // found to be colliding is killed.
+    public void checkCollisions(ActorPool<? extends Actor> pool)
+    {
+        for (int p = 0; p < pool.size(); p++)
+        {
+            Actor a = pool.get(p);
+            if (a.isKilled())
+                continue;
+            a.getPos(aPos);
+            a.getPrevPos(aPrev);
+            float r = a.getCollisionRadius();
+            int found = query(
+                    Math.min(aPrev[I_X], aPos[I_X]) - r, Math.min(aPrev[I_Y], aPos[I_Y]) - r,
+                    Math.max(aPrev[I_X], aPos[I_X]) + r, Math.max(aPrev[I_Y], aPos[I_Y]) + r);
+            for (int i = 0; i < found; i++)
+            {
+                Actor b = actors[candidates[i]];
+                if (b.isKilled())
+                    continue;
+                b.getPos(bPos);
+                b.getPrevPos(bPrev);
+                if (sweptOverlap(aPrev, aPos, r, bPrev, bPos, b.getCollisionRadius()))
+                {
+                    a.setKilled();
+                    b.setKilled();
+                }
+            }
+        }
+    }
+
+    public int getNumActors() {return numActors;}
+    public int getNumEntries() {return numEntries;}
+
+    // Determine if two circles moving from their previous to current positions
+    // touch at any time during the move. Works in the frame of reference of b,
+    // where a moves along a line segment past a stationary circle.
+    public static boolean sweptOverlap(float[] aPrev, float[] aPos, float aRadius,
+                                       float[] bPrev, float[] bPos, float bRadius)
+    {
+        float radsSquared = aRadius + bRadius;
+        radsSquared *= radsSquared;
+
+        // separation at the end of the frame, same as a test on current positions only
+        float endX = aPos[I_X] - bPos[I_X], endY = aPos[I_Y] - bPos[I_Y];
+        if (endX * endX + endY * endY <= radsSquared)
+            return true;
+
+        // separation at the start of the frame, and how it changed during the frame
+        float startX = aPrev[I_X] - bPrev[I_X], startY = aPrev[I_Y] - bPrev[I_Y];
+        float moveX = endX - startX, moveY = endY - startY;
+        float moveSquared = moveX * moveX + moveY * moveY;
+        if (moveSquared == 0.f)
+            return false;
+
+        // fraction of the frame at which the circles were closest, clamped to the frame
+        float t = -(startX * moveX + startY * moveY) / moveSquared;
+        t = Math.max(0.f, Math.min(1.f, t));
+        float xDist = startX + moveX * t, yDist = startY + moveY * t;
+        return xDist * xDist + yDist * yDist <= radsSquared;
+    }
+
+    // find every actor entered in a cell overlapping the given bounds, returns number found
+    private int query(float minX, float minY, float maxX, float maxY)
+    {
+        numCandidates = 0;
+        if (++currStamp == 0)
+        {
+            // stamps wrapped around, old stamps could match again
+            Arrays.fill(queryStamps, 0);
+            currStamp = 1;
+        }
+
+        int cx0 = toCell(minX - BOUNDS_PADDING), cx1 = toCell(maxX + BOUNDS_PADDING);
+        int cy0 = toCell(minY - BOUNDS_PADDING), cy1 = toCell(maxY + BOUNDS_PADDING);
+        for (int cy = cy0; cy <= cy1; cy++)
+        {
+            for (int cx = cx0; cx <= cx1; cx++)
+            {
+                int b = hash(cx, cy);
+                for (int e = bucketStart[b]; e < bucketStart[b + 1]; e++)
+                {
+                    int index = entries[e];
+                    if (queryStamps[index] != currStamp)
+                    {
+                        queryStamps[index] = currStamp;
+                        candidates[numCandidates++] = index;
+                    }
+                }
+            }
+        }
+        return numCandidates;
+    }
+
+    private int toCell(float coord)
+    {
+        return (int)Math.floor(coord / cellSize);
+    }
+
+    private int hash(int cx, int cy)
+    {
+        return ((cx * HASH_X) ^ (cy * HASH_Y)) & bucketMask;
+    }
+
+    private void ensureActorCapacity(int n)
+    {
+        if (actors.length < n)
+        {
+            int newLength = Math.max(n, actors.length * 2);
+            actors = new Actor[newLength];
+            cellBounds = new int[newLength * 4];
+            candidates = new int[newLength];
+            queryStamps = new int[newLength];
+            currStamp = 0;
+        }
+    }
+}
@@ -2,5 +2,19 @@ package shooter.world;
 
 public enum Biome
 {
-    HILLS, DESERT, ICE
+    //     hills per chunk, height of hills
+    HILLS(8, 12, 1.f, 4.f),
+    DESERT(4, 8, 0.f, 0.5f),
+    ICE(6, 12, 0.25f, 1.f);
+
+    final int minHills, maxHills;
+    final float hillMinHeight, hillMaxHeight;
+
+    Biome(int minHills, int maxHills, float hillMinHeight, float hillMaxHeight)
+    {
+        this.minHills = minHills;
+        this.maxHills = maxHills;
+        this.hillMinHeight = hillMinHeight;
+        this.hillMaxHeight = hillMaxHeight;
+    }
 }
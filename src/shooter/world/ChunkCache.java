@@ -0,0 +1,71 @@
+package shooter.world;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/* ChunkCache
+ *
+ * Recently used chunks, keyed by their index in the world,
+ * so scrolling back over them doesn't have to make them
+ * again. Once the chunks' memory goes over the limit, the
+ * least recently used ones are dropped; a dropped chunk can
+ * always be generated again, so the cache only saves time.
+ * Only meant to be used from one thread.
+ */
+
+public class ChunkCache
+{
+    private final long maxBytes;
+    // iterates from least to most recently used
+    private final LinkedHashMap<Integer, WorldChunk> chunks = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+    private int hits, misses, evictions;
+
+    public ChunkCache(long maxBytes)
+    {
+        if (maxBytes < 0)
+            throw new IllegalArgumentException("The memory limit can't be negative");
+        this.maxBytes = maxBytes;
+    }
+
+    // the chunk with this index, or null if it isn't cached
+    public WorldChunk get(int index)
+    {
+        WorldChunk result = chunks.get(index);
+        if (result != null)
+            ++hits;
+        else
+            ++misses;
+        return result;
+    }
+
+    public void put(int index, WorldChunk chunk)
+    {
+        WorldChunk old = chunks.put(index, chunk);
+        if (old != null)
+            bytes -= old.getMemoryBytes();
+        bytes += chunk.getMemoryBytes();
+        evict();
+    }
+
+    // drop least recently used chunks until under the limit
+    private void evict()
+    {
+        Iterator<Map.Entry<Integer, WorldChunk>> it = chunks.entrySet().iterator();
+        while (bytes > maxBytes && it.hasNext())
+        {
+            bytes -= it.next().getValue().getMemoryBytes();
+            it.remove();
+            ++evictions;
+        }
+    }
+
+    public boolean contains(int index) {return chunks.containsKey(index);}
+    public int size() {return chunks.size();}
+    public long getBytes() {return bytes;}
+    public long getMaxBytes() {return maxBytes;}
+    public int getHits() {return hits;}
+    public int getMisses() {return misses;}
+    public int getEvictions() {return evictions;}
+}
@@ -0,0 +1,222 @@
+package shooter.world;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/* ChunkStore
+ *
+ * A sequence of chunks saved to a file, which a World can
+ * stream from instead of generating them, e.g. for repeatable
+ * benchmark runs or authored levels. The file is mapped into
+ * memory and chunks are read straight out of the mapping into
+ * their grids' arrays, so reading one only allocates the chunk
+ * itself; its mesh is baked again from the terrain.
+ *
+ * The file is little-endian:
+ *   header  int magic, int version, long seed, int chunk count,
+ *           short chunk width, short chunk length
+ *   index   int offset of each chunk's record
+ *   chunk   byte biome, short material count, short decoration count,
+ *           byte material ids (see TileMaterial.getId),
+ *           short heights in steps of TileGrid.HEIGHT_STEP,
+ *           byte material index of each tile, row by row,
+ *           then per decoration a byte kind and four floats:
+ *           x, y, angle and the height of its top (pillars and
+ *           pyramids) or base (snowmen)
+ *
+ * Generated heights are multiples of HEIGHT_STEP, so a stored
+ * chunk reads back exactly as it was written.
+ */
+
+public class ChunkStore
+{
+    private static final int
+            MAGIC = 0x4B484353, // "SCHK"
+            VERSION = 1,
+            HEADER_BYTES = 24,
+            CHUNK_HEADER_BYTES = 5,
+            DECORATION_BYTES = 1 + 4 * Float.BYTES;
+    private static final byte PILLAR = 0, PYRAMID = 1, SNOWMAN = 2;
+    private static final Biome[] BIOMES = Biome.values();
+
+    private final ByteBuffer data;
+    private final long seed;
+    private final int numChunks;
+
+    private ChunkStore(ByteBuffer data) throws IOException
+    {
+        this.data = data;
+        if (data.limit() < HEADER_BYTES || data.getInt(0) != MAGIC)
+            throw new IOException("Not a chunk file");
+        if (data.getInt(4) != VERSION)
+            throw new IOException("Unsupported chunk file version " + data.getInt(4));
+        if (data.getShort(20) != WorldChunk.CHUNK_W || data.getShort(22) != WorldChunk.CHUNK_H)
+            throw new IOException("Chunk file has chunks of the wrong size");
+        seed = data.getLong(8);
+        numChunks = data.getInt(16);
+    }
+
+    // Map a chunk file into memory. The mapping stays valid after the file
+    // is closed, and can be read from any number of threads.
+    public static ChunkStore open(Path file) throws IOException
+    {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ))
+        {
+            ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ChunkStore(data.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    // Save chunks of a world with the given seed to a file, in order. Every
+    // material they use must be built in.
+    public static void write(Path file, long seed, List<WorldChunk> chunks) throws IOException
+    {
+        int size = HEADER_BYTES + chunks.size() * Integer.BYTES;
+        for (WorldChunk c : chunks)
+            size += recordBytes(c);
+
+        ByteBuffer out = ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(MAGIC).putInt(VERSION).putLong(seed).putInt(chunks.size())
+                .putShort((short)WorldChunk.CHUNK_W).putShort((short)WorldChunk.CHUNK_H);
+        int offset = HEADER_BYTES + chunks.size() * Integer.BYTES;
+        for (WorldChunk c : chunks)
+        {
+            out.putInt(offset);
+            offset += recordBytes(c);
+        }
+        for (WorldChunk c : chunks)
+            writeChunk(out, c);
+
+        out.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+        {
+            while (out.hasRemaining())
+                channel.write(out);
+        }
+    }
+
+    private static int recordBytes(WorldChunk chunk)
+    {
+        TileGrid terrain = chunk.getTerrain();
+        return CHUNK_HEADER_BYTES + terrain.getNumMaterials()
+                + terrain.getWidth() * terrain.getLength() * (Short.BYTES + 1)
+                + chunk.getDecorations().size() * DECORATION_BYTES;
+    }
+
+    private static void writeChunk(ByteBuffer out, WorldChunk chunk)
+    {
+        TileGrid terrain = chunk.getTerrain();
+        List<WorldObject> decorations = chunk.getDecorations();
+        out.put((byte)chunk.getBiome().ordinal())
+                .putShort((short)terrain.getNumMaterials())
+                .putShort((short)decorations.size());
+
+        for (int m = 0; m < terrain.getNumMaterials(); m++)
+        {
+            int id = terrain.getMaterialByIndex(m).getId();
+            if (id < 0)
+                throw new IllegalArgumentException("Only built-in materials can be saved");
+            out.put((byte)id);
+        }
+
+        for (int y = 0; y < terrain.getLength(); y++)
+        {
+            for (int x = 0; x < terrain.getWidth(); x++)
+            {
+                int steps = Math.round(terrain.getHeight(x, y) / TileGrid.HEIGHT_STEP);
+                if (steps != (short)steps || steps * TileGrid.HEIGHT_STEP != terrain.getHeight(x, y))
+                    throw new IllegalArgumentException("Height " + terrain.getHeight(x, y) + " can't be stored exactly");
+                out.putShort((short)steps);
+            }
+        }
+        for (int y = 0; y < terrain.getLength(); y++)
+            for (int x = 0; x < terrain.getWidth(); x++)
+                out.put((byte)terrain.getMaterialIndex(x, y));
+
+        for (WorldObject o : decorations)
+        {
+            byte kind;
+            float z;
+            if (o instanceof Pillar)
+            {
+                kind = PILLAR;
+                z = o.TOP_Z;
+            }
+            else if (o instanceof Pyramid)
+            {
+                kind = PYRAMID;
+                z = o.TOP_Z;
+            }
+            else if (o instanceof Snowman)
+            {
+                kind = SNOWMAN;
+                z = o.BASE_Z;
+            }
+            else
+                throw new IllegalArgumentException("Decorations of type " + o.getClass().getSimpleName() + " can't be saved");
+            out.put(kind).putFloat(o.X_OFF).putFloat(o.Y_OFF).putFloat(o.Z_ANGLE).putFloat(z);
+        }
+    }
+
+    // seed of the world the chunks were generated in
+    public long getSeed() {return seed;}
+    public int getNumChunks() {return numChunks;}
+
+    // the biome of the chunk with this index, without reading the chunk
+    public Biome getBiome(int index)
+    {
+        return BIOMES[data.get(recordOffset(index))];
+    }
+
+    // Read the chunk with this index. Each call makes a new chunk.
+    public WorldChunk read(int index)
+    {
+        int pos = recordOffset(index);
+        final int tiles = WorldChunk.CHUNK_W * WorldChunk.CHUNK_H;
+        Biome biome = BIOMES[data.get(pos)];
+        int numMaterials = data.getShort(pos + 1);
+        int numDecorations = data.getShort(pos + 3);
+        pos += CHUNK_HEADER_BYTES;
+
+        List<TileMaterial> materialTable = new ArrayList<>(numMaterials);
+        for (int m = 0; m < numMaterials; m++)
+            materialTable.add(TileMaterial.byId(data.get(pos++)));
+
+        float[] heights = new float[tiles];
+        for (int i = 0; i < tiles; i++, pos += Short.BYTES)
+            heights[i] = data.getShort(pos) * TileGrid.HEIGHT_STEP;
+        byte[] materials = new byte[tiles];
+        data.get(pos, materials);
+        pos += tiles;
+
+        List<WorldObject> decorations = new ArrayList<>(numDecorations);
+        for (int d = 0; d < numDecorations; d++, pos += DECORATION_BYTES)
+        {
+            float x = data.getFloat(pos + 1), y = data.getFloat(pos + 5),
+                  ang = data.getFloat(pos + 9), z = data.getFloat(pos + 13);
+            decorations.add(switch (data.get(pos)) {
+                case PILLAR -> new Pillar(x, y, ang, z);
+                case PYRAMID -> new Pyramid(x, y, ang, z);
+                case SNOWMAN -> new Snowman(x, y, ang, z);
+                default -> throw new IllegalStateException("Unknown decoration in chunk " + index);
+            });
+        }
+
+        TileGrid terrain = new TileGrid(WorldChunk.CHUNK_W, WorldChunk.CHUNK_H, heights, materials, materialTable);
+        return new WorldChunk(biome, terrain, decorations);
+    }
+
+    private int recordOffset(int index)
+    {
+        if (index < 0 || index >= numChunks)
+            throw new IndexOutOfBoundsException("No chunk " + index + " in a file of " + numChunks);
+        return data.getInt(HEADER_BYTES + index * Integer.BYTES);
+    }
+}
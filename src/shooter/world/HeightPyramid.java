@@ -0,0 +1,116 @@
+package shooter.world;
+
+/* HeightPyramid
+ *
+ * The lowest and highest tile of every 2x2, 4x4, 8x8... block
+ * of a chunk, built once from its grid, like the mip levels of
+ * a texture. Asking how high or low the terrain gets anywhere
+ * in a rectangle of tiles reads at most four blocks, from the
+ * level whose blocks are about as big as the rectangle, so it
+ * costs as little for the whole chunk as for a single tile.
+ * The answer covers a few more tiles than were asked for, so
+ * it's a bound rather than exact. Heights are in tiles, like
+ * the grid's; level 0 is the grid itself.
+ */
+
+public class HeightPyramid
+{
+    private final TileGrid grid;
+    // [level - 1][x + y * widths[level]]
+    private final float[][] mins, maxes;
+    // blocks across and along each level
+    private final int[] widths, lengths;
+
+    public HeightPyramid(TileGrid grid)
+    {
+        this.grid = grid;
+        int numLevels = 1;
+        for (int w = grid.getWidth(), l = grid.getLength(); w > 1 || l > 1; w = (w + 1) / 2, l = (l + 1) / 2)
+            ++numLevels;
+
+        widths = new int[numLevels];
+        lengths = new int[numLevels];
+        mins = new float[numLevels - 1][];
+        maxes = new float[numLevels - 1][];
+        widths[0] = grid.getWidth();
+        lengths[0] = grid.getLength();
+        for (int level = 1; level < numLevels; level++)
+        {
+            final int w = (widths[level - 1] + 1) / 2, l = (lengths[level - 1] + 1) / 2;
+            widths[level] = w;
+            lengths[level] = l;
+            mins[level - 1] = new float[w * l];
+            maxes[level - 1] = new float[w * l];
+            for (int y = 0; y < l; y++)
+            {
+                for (int x = 0; x < w; x++)
+                {
+                    // the up to four blocks of the level below, an odd last row or column has fewer
+                    int x1 = Math.min(x * 2 + 1, widths[level - 1] - 1),
+                        y1 = Math.min(y * 2 + 1, lengths[level - 1] - 1);
+                    mins[level - 1][x + y * w] = Math.min(
+                            Math.min(getMin(level - 1, x * 2, y * 2), getMin(level - 1, x1, y * 2)),
+                            Math.min(getMin(level - 1, x * 2, y1), getMin(level - 1, x1, y1)));
+                    maxes[level - 1][x + y * w] = Math.max(
+                            Math.max(getMax(level - 1, x * 2, y * 2), getMax(level - 1, x1, y * 2)),
+                            Math.max(getMax(level - 1, x * 2, y1), getMax(level - 1, x1, y1)));
+                }
+            }
+        }
+    }
+
+    private float getMin(int level, int x, int y)
+    {
+        return level == 0 ? grid.getHeight(x, y) : mins[level - 1][x + y * widths[level]];
+    }
+
+    private float getMax(int level, int x, int y)
+    {
+        return level == 0 ? grid.getHeight(x, y) : maxes[level - 1][x + y * widths[level]];
+    }
+
+    public int getNumLevels() {return widths.length;}
+
+    // the lowest and highest tile in the whole grid
+    public float getMinHeight() {return getMin(widths.length - 1, 0, 0);}
+    public float getMaxHeight() {return getMax(widths.length - 1, 0, 0);}
+
+    // The lowest level at which the tiles from (x0, y0) to (x1, y1), inclusive,
+    // fall in at most two blocks each way.
+    private static int levelFor(int x0, int y0, int x1, int y1)
+    {
+        int level = 0;
+        while ((x1 >> level) - (x0 >> level) > 1 || (y1 >> level) - (y0 >> level) > 1)
+            ++level;
+        return level;
+    }
+
+    // No higher than the lowest tile from (x0, y0) to (x1, y1), inclusive.
+    // The corners must be on the grid, with x0 <= x1 and y0 <= y1.
+    public float getMinHeight(int x0, int y0, int x1, int y1)
+    {
+        final int level = levelFor(x0, y0, x1, y1);
+        x0 >>= level; y0 >>= level; x1 >>= level; y1 >>= level;
+        return Math.min(Math.min(getMin(level, x0, y0), getMin(level, x1, y0)),
+                        Math.min(getMin(level, x0, y1), getMin(level, x1, y1)));
+    }
+
+    // No lower than the highest tile from (x0, y0) to (x1, y1), inclusive.
+    // The corners must be on the grid, with x0 <= x1 and y0 <= y1.
+    public float getMaxHeight(int x0, int y0, int x1, int y1)
+    {
+        final int level = levelFor(x0, y0, x1, y1);
+        x0 >>= level; y0 >>= level; x1 >>= level; y1 >>= level;
+        return Math.max(Math.max(getMax(level, x0, y0), getMax(level, x1, y0)),
+                        Math.max(getMax(level, x0, y1), getMax(level, x1, y1)));
+    }
+
+    // memory taken by the levels above the grid
+    public long getMemoryBytes()
+    {
+        long result = 0;
+        for (float[] level : maxes)
+            result += level.length * 2L * Float.BYTES;
+        return result;
+    }
+}
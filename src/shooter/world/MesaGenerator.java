@@ -1,17 +1,14 @@
 package shooter.world;
 
-import java.util.Arrays;
-
 public class MesaGenerator
 {
-    // choose random mesa, mirror horizontally and/or vertically, convert to doubles
-    // false -> minHeight, true -> maxHeight
-    public static float[][] generateMesa(float minHeight, float maxHeight)
+    static int getNumPatterns() {return MESA_PATTERNS.length;}
+
+    // Mesa pattern, mirrored horizontally and/or vertically, converted to
+    // floats and smoothed. false -> minHeight, true -> maxHeight
+    static float[][] generateMesa(int patIndex, boolean hFlip, boolean vFlip, float minHeight, float maxHeight)
     {
-        int patIndex = (int)(Math.random() * MESA_PATTERNS.length);
         boolean[][] pattern = MESA_PATTERNS[patIndex];
-        boolean hFlip = Math.random() < 0.5;
-        boolean vFlip = Math.random() < 0.5;
         int width = pattern[0].length;
 
         float[][] result = new float[pattern.length][width];
@@ -26,16 +23,19 @@ public class MesaGenerator
             }
         }
 
-        // smooth out mesa
-        float[][] clone = result.clone();
+        // smooth out mesa, reading from a copy of every row so
+        // no tile is smoothed from neighbours already smoothed
+        float[][] unsmoothed = new float[result.length][];
+        for (int y = 0; y < result.length; y++)
+            unsmoothed[y] = result[y].clone();
         for (int y = 0; y < result.length; y++)
         {
             for (int x = 0; x < width; x++)
             {
-                float sum = y == 0 ? minHeight : clone[y-1][x];
-                sum += y == result.length - 1 ? minHeight : clone[y+1][x];
-                sum += x == 0 ? minHeight : clone[y][x-1];
-                sum += x == width - 1 ? minHeight : clone[y][x+1];
+                float sum = y == 0 ? minHeight : unsmoothed[y-1][x];
+                sum += y == result.length - 1 ? minHeight : unsmoothed[y+1][x];
+                sum += x == 0 ? minHeight : unsmoothed[y][x-1];
+                sum += x == width - 1 ? minHeight : unsmoothed[y][x+1];
                 result[y][x] = sum / 4.f;
             }
         }
@@ -0,0 +1,102 @@
+package shooter.world;
+
+import processing.core.PApplet;
+import processing.core.PConstants;
+import processing.core.PImage;
+import processing.core.PShape;
+import shooter.RenderBackend;
+
+/* Mesh
+ *
+ * Triangles which never change, grouped by texture. The
+ * vertex arrays are built once (see MeshBuilder), then the
+ * first time the mesh is drawn each group is uploaded as a
+ * retained PShape, so drawing costs one call per texture
+ * instead of a shape per tile face. PShapes need the GL
+ * context, so they are only created on the drawing thread.
+ * Other render backends don't upload anything, and can read
+ * the groups' vertices instead.
+ */
+
+public class Mesh
+{
+    public static final int
+            V_X = 0,
+            V_Y = 1,
+            V_Z = 2,
+            V_U = 3,
+            V_V = 4,
+            V_COLOR = 5,
+            STRIDE = 6;
+
+    private final PImage[] textures;
+    private final float[][] vertices;
+    // created when first drawn
+    private PShape[] shapes;
+
+    Mesh(PImage[] textures, float[][] vertices)
+    {
+        this.textures = textures;
+        this.vertices = vertices;
+        this.shapes = null;
+    }
+
+    public void draw(RenderBackend r)
+    {
+        r.drawMesh(this);
+    }
+
+    // draw the groups to a sketch, uploading them first if this is the first time
+    public void drawShapes(PApplet pa)
+    {
+        if (shapes == null)
+            createShapes(pa);
+        for (PShape s : shapes)
+            pa.shape(s);
+    }
+
+    private void createShapes(PApplet pa)
+    {
+        shapes = new PShape[textures.length];
+        for (int g = 0; g < textures.length; g++)
+        {
+            PShape s = pa.createShape();
+            s.beginShape(PConstants.TRIANGLES);
+            s.noStroke();
+            s.texture(textures[g]);
+            float[] group = vertices[g];
+            for (int i = 0; i < group.length; i += STRIDE)
+            {
+                // textured vertices are drawn with the texture's own colours
+                if (textures[g] == null)
+                    s.fill(Float.floatToRawIntBits(group[i + V_COLOR]));
+                s.vertex(group[i + V_X], group[i + V_Y], group[i + V_Z], group[i + V_U], group[i + V_V]);
+            }
+            s.endShape();
+            shapes[g] = s;
+        }
+    }
+
+    public int getNumGroups() {return textures.length;}
+    public PImage getTexture(int group) {return textures[group];}
+    // the group's vertices, STRIDE floats each
+    public float[] getVertices(int group) {return vertices[group];}
+    public int getNumVertices(int group) {return vertices[group].length / STRIDE;}
+
+    // memory taken by the vertex arrays, not counting the uploaded shapes
+    public long getMemoryBytes()
+    {
+        long result = 0;
+        for (float[] group : vertices)
+            result += group.length * (long)Float.BYTES;
+        return result;
+    }
+
+    public int getNumTriangles()
+    {
+        int result = 0;
+        for (float[] group : vertices)
+            result += group.length / STRIDE / 3;
+        return result;
+    }
+}
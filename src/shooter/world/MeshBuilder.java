@@ -0,0 +1,97 @@
+package shooter.world;
+
+import processing.core.PImage;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* MeshBuilder
+ *
+ * Collects triangles into one vertex array per texture, to be
+ * turned into a Mesh. Only plain arrays are touched, so meshes
+ * can be built on any thread and checked without a GL context.
+ * Vertices are laid out as Mesh.STRIDE floats: x, y, z, u, v
+ * and the colour's bits (see Float.intBitsToFloat).
+ */
+
+public class MeshBuilder
+{
+    private static final int INITIAL_VERTICES = 256;
+
+    private final List<PImage> textures = new ArrayList<>();
+    private final List<float[]> vertices = new ArrayList<>();
+    private final List<Integer> counts = new ArrayList<>();
+    // index of the group new vertices are added to
+    private int current = -1;
+
+    // Add the following vertices to the group for this texture, which may
+    // be null for untextured triangles coloured by their vertices' colour.
+    public MeshBuilder texture(PImage texture)
+    {
+        current = textures.indexOf(texture);
+        if (current < 0)
+        {
+            textures.add(texture);
+            vertices.add(new float[INITIAL_VERTICES * Mesh.STRIDE]);
+            counts.add(0);
+            current = textures.size() - 1;
+        }
+        return this;
+    }
+
+    public MeshBuilder vertex(float x, float y, float z, float u, float v, int color)
+    {
+        if (current < 0)
+            texture(null);
+
+        int n = counts.get(current);
+        float[] group = vertices.get(current);
+        if (group.length < (n + 1) * Mesh.STRIDE)
+        {
+            float[] larger = new float[group.length * 2];
+            System.arraycopy(group, 0, larger, 0, n * Mesh.STRIDE);
+            vertices.set(current, larger);
+            group = larger;
+        }
+
+        int i = n * Mesh.STRIDE;
+        group[i + Mesh.V_X] = x;
+        group[i + Mesh.V_Y] = y;
+        group[i + Mesh.V_Z] = z;
+        group[i + Mesh.V_U] = u;
+        group[i + Mesh.V_V] = v;
+        group[i + Mesh.V_COLOR] = Float.intBitsToFloat(color);
+        counts.set(current, n + 1);
+        return this;
+    }
+
+    // Add a triangle strip as separate triangles. The strip holds x, y, z,
+    // u and v for each vertex, like the calls to vertex() between
+    // beginShape(TRIANGLE_STRIP) and endShape().
+    public MeshBuilder triangleStrip(float[] strip, int color)
+    {
+        final int SIZE = 5;
+        for (int i = 0; i + 3 * SIZE <= strip.length; i += SIZE)
+            for (int j = i; j < i + 3 * SIZE; j += SIZE)
+                vertex(strip[j], strip[j + 1], strip[j + 2], strip[j + 3], strip[j + 4], color);
+        return this;
+    }
+
+    // the mesh built so far, groups with no vertices are left out
+    public Mesh build()
+    {
+        List<PImage> meshTextures = new ArrayList<>();
+        List<float[]> meshVertices = new ArrayList<>();
+        for (int g = 0; g < textures.size(); g++)
+        {
+            int n = counts.get(g);
+            if (n == 0)
+                continue;
+            float[] trimmed = new float[n * Mesh.STRIDE];
+            System.arraycopy(vertices.get(g), 0, trimmed, 0, trimmed.length);
+            meshTextures.add(textures.get(g));
+            meshVertices.add(trimmed);
+        }
+        return new Mesh(meshTextures.toArray(new PImage[0]), meshVertices.toArray(new float[0][]));
+    }
+}
@@ -0,0 +1,197 @@
+package shooter.world;
+
+import shooter.GameRandom;
+
+import java.util.Arrays;
+
+/* NoiseTerrain
+ *
+ * Ground sampled from fractal gradient noise: a few octaves of
+ * Perlin-style noise, each twice the frequency and half the
+ * height of the last. Every tile is sampled on its own, at its
+ * position in the whole world, so neighbouring chunks meet
+ * without either needing the other's hills, and the ground
+ * doesn't draw anything from the chunk's stream.
+ *
+ * A row of tiles is sampled an octave at a time. Gradients
+ * come from hashing the lattice points rather than from a
+ * table, and since a row has one position along y, each
+ * lattice column is blended along y once per row. Where each
+ * tile falls in its lattice cell only depends on x, so it's
+ * worked out once per chunk (see RowLattice). What's left is
+ * a loop over the tiles of each cell, with the cell's two
+ * columns held in locals, of stride-1 loads and multiply-adds
+ * with no branches or indexed lookups. That's the shape the
+ * JIT's vectorizer handles, though at the finer octaves a cell
+ * is only a few tiles wide.
+ *
+ * Each biome's noise is shaped from its hill parameters: the
+ * noise is about as high as its highest stamped hills, and the
+ * more hills a biome has, the more of the noise is raised above
+ * the ground. For hills this gives about the same average
+ * height and share of raised tiles as stamping.
+ */
+
+public class NoiseTerrain implements TerrainGenerator
+{
+    private static final int OCTAVES = 4;
+    private static final float
+            // width of the largest features, in tiles, about a stamped hill's
+            FEATURE_SIZE = TerrainStamps.HILL_SIZE,
+            LACUNARITY = 2.f,
+            GAIN = 0.5f,
+            // height the stamped hills' own noise adds to their shapes, about half a tile
+            ROUGHNESS = 0.5f,
+            // roughly the highest the sum of the octaves gets, which is scaled to a biome's highest hills
+            NOISE_PEAK = 1.f,
+            // noise raised per hill a biome has on average, and taken away regardless
+            BIAS_PER_HILL = 0.05f,
+            BIAS_OFFSET = 0.4f,
+            // sum of every octave's amplitude, which the noise is divided by
+            TOTAL_AMPLITUDE = totalAmplitude();
+    // odd constants for hashing lattice points
+    private static final int
+            PRIME_X = 0x27D4EB2F,
+            PRIME_Y = 0x165667B1,
+            PRIME_OCTAVE = 0x9E3779B9,
+            MIX = 0x2C1B3C6D;
+
+    private static float totalAmplitude()
+    {
+        float result = 0.f, amplitude = 1.f;
+        for (int o = 0; o < OCTAVES; o++, amplitude *= GAIN)
+            result += amplitude;
+        return result;
+    }
+
+    @Override
+    public void generate(TileGrid grid, long seed, int index, Biome biome, Biome prevBiome, GameRandom rand)
+    {
+        final int width = grid.getWidth(), length = grid.getLength();
+        final float bias = (biome.minHills + biome.maxHills) / 2.f * BIAS_PER_HILL - BIAS_OFFSET,
+                    scale = (biome.hillMaxHeight + ROUGHNESS) / (NOISE_PEAK + bias);
+        final int seedBits = (int)seed ^ (int)(seed >>> 32);
+        final RowLattice lattice = new RowLattice(width);
+        final float[] row = new float[width], slopes = new float[width + 2], offsets = new float[width + 2];
+        for (int y = 0; y < length; y++)
+        {
+            sampleRow(row, (long)index * length + y, seedBits, lattice, slopes, offsets);
+            for (int x = 0; x < width; x++)
+                grid.raiseHeight(x, y, Math.max(0.f, row[x] + bias) * scale);
+        }
+    }
+
+    // Where each tile of a row of the given width falls in the lattice at
+    // every octave, which is the same for every row.
+    static final class RowLattice
+    {
+        // lattice cells per tile along x, and the height of the noise, at each octave
+        final float[] frequencies = new float[OCTAVES], amplitudes = new float[OCTAVES];
+        // [octave][x], how far across its cell the tile is, from 0 to 1, and that faded
+        final float[][] fractions = new float[OCTAVES][], fades = new float[OCTAVES][];
+        // [octave][cell], the first tile in each cell, then the row's width
+        final int[][] cellStarts = new int[OCTAVES][];
+
+        RowLattice(int width)
+        {
+            float frequency = 1.f / FEATURE_SIZE, amplitude = 1.f / TOTAL_AMPLITUDE;
+            for (int o = 0; o < OCTAVES; o++)
+            {
+                frequencies[o] = frequency;
+                amplitudes[o] = amplitude;
+                // tiles are never left of 0, so truncating is flooring
+                final int cells = (int)((width - 1) * frequency) + 1;
+                fractions[o] = new float[width];
+                fades[o] = new float[width];
+                cellStarts[o] = new int[cells + 1];
+                int cell = 0;
+                for (int x = 0; x < width; x++)
+                {
+                    float fx = x * frequency;
+                    int ix = (int)fx;
+                    fractions[o][x] = fx - ix;
+                    fades[o][x] = fade(fx - ix);
+                    while (cell < ix)
+                        cellStarts[o][++cell] = x;
+                }
+                while (cell < cells)
+                    cellStarts[o][++cell] = width;
+                frequency *= LACUNARITY;
+                amplitude *= GAIN;
+            }
+        }
+    }
+
+    // The noise at every tile of the row with this index in the whole world,
+    // from about -1 to 1, into row, which is as wide as the lattice. slopes
+    // and offsets are scratch space for two more lattice columns than the
+    // row has tiles.
+    static void sampleRow(float[] row, long y, int seedBits, RowLattice lattice, float[] slopes, float[] offsets)
+    {
+        Arrays.fill(row, 0.f);
+        for (int o = 0; o < OCTAVES; o++)
+        {
+            addOctave(row, y * (double)lattice.frequencies[o], lattice.amplitudes[o], seedBits + o * PRIME_OCTAVE,
+                    lattice.fractions[o], lattice.fades[o], lattice.cellStarts[o], slopes, offsets);
+        }
+    }
+
+    // Add one octave of noise to a row of tiles, at y in lattice units, with
+    // the tiles' places in their cells from a RowLattice.
+    private static void addOctave(float[] row, double y, float amplitude, int seedBits,
+                                  float[] fractions, float[] fades, int[] cellStarts,
+                                  float[] slopes, float[] offsets)
+    {
+        final double floorY = Math.floor(y);
+        final int iy = (int)floorY,
+                  hy0 = iy * PRIME_Y ^ seedBits,
+                  hy1 = (iy + 1) * PRIME_Y ^ seedBits,
+                  cells = cellStarts.length - 1;
+        final float fy = (float)(y - floorY), fy1 = fy - 1.f, sy = fade(fy);
+
+        // Everything along y is the same for the whole row, so each lattice
+        // column's two corners are blended along y first. What's left of a
+        // column is a line in the offset along x: slope * dx + offset.
+        for (int ix = 0; ix <= cells; ix++)
+        {
+            int hx = ix * PRIME_X,
+                h0 = hash(hx ^ hy0),
+                h1 = hash(hx ^ hy1);
+            float gx0 = signX(h0), gy0 = signY(h0) * fy,
+                  gx1 = signX(h1), gy1 = signY(h1) * fy1;
+            slopes[ix] = gx0 + sy * (gx1 - gx0);
+            offsets[ix] = gy0 + sy * (gy1 - gy0);
+        }
+
+        for (int ix = 0; ix < cells; ix++)
+        {
+            final float s0 = slopes[ix], o0 = offsets[ix],
+                        s1 = slopes[ix + 1], o1 = offsets[ix + 1];
+            for (int x = cellStarts[ix]; x < cellStarts[ix + 1]; x++)
+            {
+                float fx = fractions[x],
+                      n0 = s0 * fx + o0,
+                      n1 = s1 * (fx - 1.f) + o1;
+                row[x] += amplitude * (n0 + fades[x] * (n1 - n0));
+            }
+        }
+    }
+
+    private static int hash(int h)
+    {
+        h ^= h >>> 15;
+        h *= MIX;
+        return h ^ (h >>> 12);
+    }
+
+    // Each lattice point's gradient is one of the four diagonals, picked by
+    // the top two bits of its hash.
+    private static float signX(int hash) {return ((hash >>> 30) & 2) - 1;}
+    private static float signY(int hash) {return ((hash >>> 29) & 2) - 1;}
+
+    // Perlin's smootherstep, so the noise's slope is continuous between cells
+    private static float fade(float t)
+    {
+        return t * t * t * (t * (t * 6.f - 15.f) + 10.f);
+    }
+}
@@ -3,8 +3,8 @@ package shooter.world;
 import processing.core.PImage;
 import shooter.*;
 
-import static processing.core.PConstants.TRIANGLE_STRIP;
 import static shooter.GameMath.biRand;
+import static shooter.GameMath.randRange;
 
 public class Pillar extends WorldObject implements GameConstants
 {
@@ -22,56 +22,71 @@ public class Pillar extends WorldObject implements GameConstants
             PILLAR_TOP_TEX = Textures.DESERT_TILE,
             PILLAR_SIDE_TEX = Textures.DESERT_GLYPHS;
 
-    public Pillar()
+    // shared by every pillar, each only has its own position, rotation and height
+    private static final Mesh MESH = buildMesh();
+
+    public Pillar(GameRandom rand)
     {
-        super (
-                biRand(OFFSET_RANGE),
-                biRand(OFFSET_RANGE),
-                // BASE_ALT,
-                // (float)(Math.random() * (TOP_MAX - TOP_MIN)) + TOP_MIN,
-                (float)Math.random() * TWO_PI
+        this(
+                biRand(rand, OFFSET_RANGE),
+                biRand(rand, OFFSET_RANGE),
+                rand.nextFloat() * TWO_PI,
+                randRange(rand, TOP_MIN, TOP_MAX)
         );
-        this.BASE_Z = BASE_ALT;
-        this.TOP_Z = (float)(Math.random() * (TOP_MAX - TOP_MIN)) + TOP_MIN;
-        this.HEIGHT = super.TOP_Z - super.BASE_Z;
     }
 
-    public void draw(GameSketch gs)
+    // a pillar with its top at the given height, e.g. read from a chunk file
+    Pillar(float x, float y, float ang, float top)
     {
-        gs.pushMatrix();
-        gs.translate(X_OFF, Y_OFF, 0.f);
-        gs.scale(H_SCALE, H_SCALE, 1.f);
-        gs.rotateZ(Z_ANGLE);
-
-        gs.beginShape(TRIANGLE_STRIP);
-        gs.texture(PILLAR_TOP_TEX);
-
-        gs.vertex(-1.f, 1.f, TOP_Z, 0.f, 0.f);
-        gs.vertex(-1.f, -1.f, TOP_Z, 0.f, 1.f);
-        gs.vertex(1.f, 1.f, TOP_Z, 1.f, 0.f);
-        gs.vertex(1.f, -1.f, TOP_Z, 1.f, 1.f);
-
-        gs.endShape();
-
-        gs.beginShape(TRIANGLE_STRIP);
-        gs.texture(PILLAR_SIDE_TEX);
-
-        gs.vertex(-1.f, 1.f, TOP_Z, 0.f, 0.f);
-        gs.vertex(-1.f, 1.f, BASE_ALT, 0.f, HEIGHT);
-
-        gs.vertex(-1.f, -1.f, TOP_Z, 1.f, 0.f);
-        gs.vertex(-1.f, -1.f, BASE_ALT, 1.f, HEIGHT);
+        super(x, y, ang);
+        this.BASE_Z = BASE_ALT;
+        this.TOP_Z = top;
+        this.HEIGHT = super.TOP_Z - super.BASE_Z;
+    }
 
-        gs.vertex(1.f, -1.f, TOP_Z, 0.f, 0.f);
-        gs.vertex(1.f, -1.f, BASE_ALT, 0.f, HEIGHT);
+    // corners of the square, turned any way
+    protected float getRadius() {return H_SCALE * ROOT_TWO;}
 
-        gs.vertex(1.f, 1.f, TOP_Z, 1.f, 0.f);
-        gs.vertex(1.f, 1.f, BASE_ALT, 1.f, HEIGHT);
+    public Mesh getMesh() {return MESH;}
 
-        gs.vertex(-1.f, 1.f, TOP_Z, 0.f, 0.f);
-        gs.vertex(-1.f, 1.f, BASE_ALT, 0.f, HEIGHT);
+    public void draw(RenderBackend r)
+    {
+        r.pushMatrix();
+        r.translate(X_OFF, Y_OFF, BASE_Z);
+        r.scale(H_SCALE, H_SCALE, HEIGHT);
+        r.rotateZ(Z_ANGLE);
+        MESH.draw(r);
+        r.popMatrix();
+    }
 
-        gs.endShape();
-        gs.popMatrix();
+    // A pillar one unit high, standing on z = 0. Heights are scaled to fit,
+    // so the sides are textured as if for a pillar of average height.
+    private static Mesh buildMesh()
+    {
+        final float SIDE_V = (TOP_MIN + TOP_MAX) / 2.f;
+        MeshBuilder builder = new MeshBuilder();
+        builder.texture(PILLAR_TOP_TEX).triangleStrip(new float[] {
+                -1.f, 1.f, 1.f, 0.f, 0.f,
+                -1.f, -1.f, 1.f, 0.f, 1.f,
+                1.f, 1.f, 1.f, 1.f, 0.f,
+                1.f, -1.f, 1.f, 1.f, 1.f
+        }, 0);
+        builder.texture(PILLAR_SIDE_TEX).triangleStrip(new float[] {
+                -1.f, 1.f, 1.f, 0.f, 0.f,
+                -1.f, 1.f, 0.f, 0.f, SIDE_V,
+
+                -1.f, -1.f, 1.f, 1.f, 0.f,
+                -1.f, -1.f, 0.f, 1.f, SIDE_V,
+
+                1.f, -1.f, 1.f, 0.f, 0.f,
+                1.f, -1.f, 0.f, 0.f, SIDE_V,
+
+                1.f, 1.f, 1.f, 1.f, 0.f,
+                1.f, 1.f, 0.f, 1.f, SIDE_V,
+
+                -1.f, 1.f, 1.f, 0.f, 0.f,
+                -1.f, 1.f, 0.f, 0.f, SIDE_V
+        }, 0);
+        return builder.build();
     }
 }
@@ -3,8 +3,8 @@ package shooter.world;
 import processing.core.PImage;
 import shooter.*;
 
-import static processing.core.PConstants.TRIANGLE_FAN;
 import static shooter.GameMath.biRand;
+import static shooter.GameMath.randRange;
 
 public class Pyramid extends WorldObject implements GameConstants
 {
@@ -15,44 +15,66 @@ public class Pyramid extends WorldObject implements GameConstants
             TOP_MIN = 2.f,
             TOP_MAX = 4.f;
 
-    private final float
-            HEIGHT,
-            SIDE_LEN;
+    private final float HEIGHT;
 
     private static final PImage PYRAMID_TEX = Textures.DESERT_PYRAMID;
 
-    public Pyramid()
+    // shared by every pyramid, each only has its own position, rotation and size
+    private static final Mesh MESH = buildMesh();
+
+    public Pyramid(GameRandom rand)
     {
-        super (
-                biRand(OFFSET_RANGE),
-                biRand(OFFSET_RANGE),
-                // BASE_ALT,
-                // (float)(Math.random() * (TOP_MAX - TOP_MIN)) + TOP_MIN,
-                (float)Math.random() * TWO_PI
+        this(
+                biRand(rand, OFFSET_RANGE),
+                biRand(rand, OFFSET_RANGE),
+                rand.nextFloat() * TWO_PI,
+                randRange(rand, TOP_MIN, TOP_MAX)
         );
+    }
+
+    // a pyramid with its top at the given height, e.g. read from a chunk file
+    Pyramid(float x, float y, float ang, float top)
+    {
+        super(x, y, ang);
         this.BASE_Z = BASE_ALT;
-        this.TOP_Z = (float)(Math.random() * (TOP_MAX - TOP_MIN)) + TOP_MIN;
+        this.TOP_Z = top;
         this.HEIGHT = super.TOP_Z - BASE_ALT;
-        this.SIDE_LEN = this.HEIGHT * ROOT_TWO;
     }
 
-    public void draw(GameSketch gs)
+    // corners of the base, turned any way
+    protected float getRadius() {return HEIGHT * ROOT_TWO;}
+
+    public Mesh getMesh() {return MESH;}
+
+    public void draw(RenderBackend r)
+    {
+        r.pushMatrix();
+        r.translate(X_OFF, Y_OFF, BASE_Z);
+        r.scale(HEIGHT);
+        r.rotateZ(Z_ANGLE);
+        MESH.draw(r);
+        r.popMatrix();
+    }
+
+    // A pyramid one unit high, standing on z = 0. Pyramids are scaled to
+    // their height, so they are textured as if of average height.
+    private static Mesh buildMesh()
     {
-        gs.pushMatrix();
-        gs.translate(X_OFF, Y_OFF, 0.f);
-        gs.rotateZ(Z_ANGLE);
-
-        gs.beginShape(TRIANGLE_FAN);
-        gs.texture(PYRAMID_TEX);
-
-        gs.vertex(0.f,     0.f,     TOP_Z,    HEIGHT,       0.f);
-        gs.vertex(-HEIGHT, HEIGHT,  BASE_ALT, 0.f,          SIDE_LEN);
-        gs.vertex(-HEIGHT, -HEIGHT, BASE_ALT, HEIGHT * 2.f, SIDE_LEN);
-        gs.vertex(HEIGHT,  -HEIGHT, BASE_ALT, 0.f,          SIDE_LEN);
-        gs.vertex(HEIGHT,  HEIGHT,  BASE_ALT, HEIGHT * 2.f, SIDE_LEN);
-        gs.vertex(-HEIGHT, HEIGHT,  BASE_ALT, 0.f,          SIDE_LEN);
-
-        gs.endShape();
-        gs.popMatrix();
+        final float U = (TOP_MIN + TOP_MAX) / 2.f, SIDE_V = U * ROOT_TWO;
+        float[] fan = {
+                -1.f, 1.f, 0.f, 0.f, SIDE_V,
+                -1.f, -1.f, 0.f, U * 2.f, SIDE_V,
+                1.f, -1.f, 0.f, 0.f, SIDE_V,
+                1.f, 1.f, 0.f, U * 2.f, SIDE_V,
+                -1.f, 1.f, 0.f, 0.f, SIDE_V
+        };
+        MeshBuilder builder = new MeshBuilder().texture(PYRAMID_TEX);
+        for (int i = 0; i + 5 < fan.length; i += 5)
+        {
+            builder.vertex(0.f, 0.f, 1.f, U, 0.f, 0);
+            builder.vertex(fan[i], fan[i + 1], fan[i + 2], fan[i + 3], fan[i + 4], 0);
+            builder.vertex(fan[i + 5], fan[i + 6], fan[i + 7], fan[i + 8], fan[i + 9], 0);
+        }
+        return builder.build();
     }
 }
@@ -1,8 +1,8 @@
 package shooter.world;
 
-import processing.core.PConstants;
 import shooter.GameConstants;
-import shooter.GameSketch;
+import shooter.GameRandom;
+import shooter.RenderBackend;
 import shooter.StaticColor;
 
 import static shooter.GameMath.biRand;
@@ -12,178 +12,181 @@ public class Snowman extends WorldObject implements GameConstants
     private static final float
             EDGE_MARGIN = 6.f,
             OFFSET_RANGE = (WorldChunk.CHUNK_H - EDGE_MARGIN) / 2.f,
-            SCALE = 0.5f;
+            SCALE = 0.5f,
+            // from the base to the top of the hat, and from the middle to the widest ball's edge
+            HEIGHT = 2.f * SCALE,
+            RADIUS = 0.5f * SCALE * ROOT_TWO;
 
     // private static final PImage
     //         BODY_TEXTURE = Textures.SNOWMAN_BODY;
 
     private static final int
             BODY_FILL = StaticColor.color(215.f / 256.f, 240.f / 256.f, 238.f / 256.f),
-            HAT_FILL = 0x101010;
+            HAT_FILL = 0xFF101010;
 
-    public Snowman(WorldTile[] chunkTiles)
+    // shared by every snowman, each only has its own position and rotation
+    private static final Mesh MESH = buildMesh();
+
+    public Snowman(TileGrid terrain, GameRandom rand)
     {
         super (
-                biRand(OFFSET_RANGE),
-                biRand(OFFSET_RANGE),
-                (float)Math.random() * TWO_PI
+                biRand(rand, OFFSET_RANGE),
+                biRand(rand, OFFSET_RANGE),
+                rand.nextFloat() * TWO_PI
         );
         int tileX = (int)(WorldChunk.CHUNK_W / 2.f + this.X_OFF);
         int tileY = (int)(WorldChunk.CHUNK_H / 2.f + this.Y_OFF);
-        this.BASE_Z = chunkTiles[tileX + tileY * WorldChunk.CHUNK_W].getHeight();
+        this.BASE_Z = terrain.getHeight(tileX, tileY);
+        this.TOP_Z = BASE_Z + HEIGHT;
     }
 
-    public void draw(GameSketch gs)
+    // a snowman standing at the given height, e.g. read from a chunk file
+    Snowman(float x, float y, float ang, float base)
     {
-        gs.pushMatrix();
-        gs.translate(X_OFF, Y_OFF, BASE_Z);
-        gs.scale(SCALE, SCALE, SCALE);
-        gs.rotateZ(Z_ANGLE);
+        super(x, y, ang);
+        this.BASE_Z = base;
+        this.TOP_Z = base + HEIGHT;
+    }
+
+    protected float getRadius() {return RADIUS;}
+
+    public Mesh getMesh() {return MESH;}
+
+    public void draw(RenderBackend r)
+    {
+        r.pushMatrix();
+        r.translate(X_OFF, Y_OFF, BASE_Z);
+        r.scale(SCALE, SCALE, SCALE);
+        r.rotateZ(Z_ANGLE);
+        MESH.draw(r);
+        r.popMatrix();
+    }
+
+    // Two snowballs and a hat, standing on z = 0 and facing along x, in
+    // units of SCALE.
+    private static Mesh buildMesh()
+    {
+        MeshBuilder builder = new MeshBuilder().texture(null);
         // bottom ball
-        gs.pushMatrix();
-        gs.translate(0.f, 0.f, 0.5f);
-        gs.scale(0.5f, 0.5f, 0.5f);
-        drawBall(gs);
-        gs.popMatrix();
+        addBall(builder, 0.5f, 0.5f);
         // top ball
-        gs.pushMatrix();
-        gs.translate(0.f, 0.f, 4.f / 3.f);
-        gs.scale(1.f / 3.f, 1.f / 3.f, 1.f / 3.f);
-        drawBall(gs);
-        gs.popMatrix();
+        addBall(builder, 4.f / 3.f, 1.f / 3.f);
         // hat
-        gs.pushMatrix();
-        gs.translate(0.f, 0.f, 11.f / 6.f);
-        gs.scale(1.f / 6.f, 1.f / 6.f, 1.f / 6.f);
-        drawHat(gs);
-        gs.popMatrix();
-
-        gs.popMatrix();
+        addHat(builder, 11.f / 6.f, 1.f / 6.f);
+        return builder.build();
     }
 
-    private void drawHat(GameSketch gs)
+    // one of the snowman's snowballs, centred at height z and scaled by s
+    private static void addBall(MeshBuilder builder, float z, float s)
     {
-        gs.fill(HAT_FILL);
-
-        // draw sides of hat
-        drawVerticalStrip(gs, 1.f);
-
-        // draw top of hat
-        gs.beginShape(PConstants.TRIANGLE_FAN);
-        gs.vertex(0.f, 0.f, 1.f);
-
-        gs.vertex(-1.f, 0.5f, 1.f);
-        gs.vertex(-1.f, -0.5f, 1.f);
-        gs.vertex(-0.5f, -1.f, 1.f);
-        gs.vertex(0.5f, -1.f, 1.f);
-        gs.vertex(1.f, -0.5f, 1.f);
-        gs.vertex(1.f, 0.5f, 1.f);
-        gs.vertex(0.5f, 1.f, 1.f);
-        gs.vertex(-0.5f, 1.f, 1.f);
-
-        gs.endShape();
-        gs.noFill();
+        // top square
+        addStrip(builder, z, s, BODY_FILL, new float[] {
+                -0.5f, 0.5f, 1.f, 0.f, 0.f,
+                -0.5f, -0.5f, 1.f, 0.f, 1.f,
+                0.5f, 0.5f, 1.f, 1.f, 0.f,
+                0.5f, -0.5f, 1.f, 1.f, 1.f
+        });
+        // upper strip
+        addStrip(builder, z, s, BODY_FILL, diagonalStrip(1.f));
+        // middle strip
+        addStrip(builder, z, s, BODY_FILL, verticalStrip(0.5f));
+        // lower strip
+        addStrip(builder, z, s, BODY_FILL, diagonalStrip(-1.f));
+        // bottom square
+        addStrip(builder, z, s, BODY_FILL, new float[] {
+                -0.5f, 0.5f, -1.f, 0.f, 0.f,
+                -0.5f, -0.5f, -1.f, 0.f, 1.f,
+                0.5f, 0.5f, -1.f, 1.f, 0.f,
+                0.5f, -0.5f, -1.f, 1.f, 1.f
+        });
     }
 
-    // draw one of the snowman's snowballs
-    private void drawBall(GameSketch gs)
+    private static void addHat(MeshBuilder builder, float z, float s)
     {
-        gs.fill(BODY_FILL);
-
-        // draw top square
-        gs.beginShape(PConstants.TRIANGLE_STRIP);
-        gs.vertex(-0.5f, 0.5f, 1.f, 0.f, 0.f);
-        gs.vertex(-0.5f, -0.5f, 1.f, 0.f, 1.f);
-        gs.vertex(0.5f, 0.5f, 1.f, 1.f, 0.f);
-        gs.vertex(0.5f, -0.5f, 1.f, 1.f, 1.f);
-        gs.endShape();
-
-        // draw upper strip
-        drawDiagonalStrip(gs, 1.f);
-
-        // draw middle strip
-        drawVerticalStrip(gs, 0.5f);
-        /*
-        gs.beginShape(PConstants.TRIANGLE_STRIP);
-        vertStack(gs, -1.f, 0.5f, 0.5f, 0.f);
-        vertStack(gs, -1.f, -0.5f, 0.5f, 1.f);
-
-        vertStack(gs, -0.5f, -1.f, 0.5f, 0.f);
-        vertStack(gs, 0.5f, -1.f, 0.5f, 1.f);
-
-        vertStack(gs, 1.f, -0.5f, 0.5f, 0.f);
-        vertStack(gs, 1.f, 0.5f, 0.5f, 1.f);
-
-        vertStack(gs, 0.5f, 1.f, 0.5f, 0.f);
-        vertStack(gs, -0.5f, 1.f, 0.5f, 1.f);
-        gs.vertex(-1.f, 0.5f, 0.5f, 0.f, 0.f);
-        gs.endShape();
-         */
-
-        // draw lower strip
-        drawDiagonalStrip(gs, -1.f);
-
-        // draw bottom square
-        gs.beginShape(PConstants.TRIANGLE_STRIP);
-        gs.vertex(-0.5f, 0.5f, -1.f, 0.f, 0.f);
-        gs.vertex(-0.5f, -0.5f, -1.f, 0.f, 1.f);
-        gs.vertex(0.5f, 0.5f, -1.f, 1.f, 0.f);
-        gs.vertex(0.5f, -0.5f, -1.f, 1.f, 1.f);
-        gs.endShape();
-
-        gs.noFill();
+        // sides of hat
+        addStrip(builder, z, s, HAT_FILL, verticalStrip(1.f));
+        // top of hat, as a fan around its centre
+        float[] rim = {
+                -1.f, 0.5f, -1.f, -0.5f, -0.5f, -1.f, 0.5f, -1.f,
+                1.f, -0.5f, 1.f, 0.5f, 0.5f, 1.f, -0.5f, 1.f
+        };
+        for (int i = 0; i + 3 < rim.length; i += 2)
+        {
+            builder.vertex(0.f, 0.f, z + s, 0.f, 0.f, HAT_FILL);
+            builder.vertex(rim[i] * s, rim[i + 1] * s, z + s, 0.f, 0.f, HAT_FILL);
+            builder.vertex(rim[i + 2] * s, rim[i + 3] * s, z + s, 0.f, 0.f, HAT_FILL);
+        }
     }
 
-    private void drawDiagonalStrip(GameSketch gs, float zOrientation)
+    // add a strip of a shape centred at height z and scaled by s
+    private static void addStrip(MeshBuilder builder, float z, float s, int color, float[] strip)
     {
-        gs.beginShape(PConstants.TRIANGLE_STRIP);
-        // left rectangle
-        gs.vertex(-1.f, 0.5f, 0.5f * zOrientation);
-        gs.vertex(-0.5f, 0.5f, 1.f * zOrientation);
-        gs.vertex(-1.f, -0.5f, 0.5f * zOrientation);
-        gs.vertex(-0.5f, -0.5f, 1.f * zOrientation);
-        // bottom-left triangle
-        gs.vertex(-0.5f, -1.f, 0.5f * zOrientation);
-        // bottom rectangle
-        gs.vertex(0.5f, -0.5f, 1.f * zOrientation);
-        gs.vertex(0.5f, -1.f, 0.5f * zOrientation);
-        // bottom-right triangle
-        gs.vertex(1.f, -0.5f, 0.5f * zOrientation);
-        gs.vertex(0.5f, -0.5f, 1.f * zOrientation);
-        // right rectangle
-        gs.vertex(1.f, 0.5f, 0.5f * zOrientation);
-        gs.vertex(0.5f, 0.5f, 1.f * zOrientation);
-        // upper-right triangle
-        gs.vertex(0.5f, 1.f, 0.5f * zOrientation);
-        // upper rectangle
-        gs.vertex(-0.5f, 0.5f, 1.f * zOrientation);
-        gs.vertex(-0.5f, 1.f, 0.5f * zOrientation);
-        // upper-left triangle
-        gs.vertex(-1.f, 0.5f, 0.5f * zOrientation);
-        gs.endShape();
+        for (int i = 0; i < strip.length; i += 5)
+        {
+            strip[i] *= s;
+            strip[i + 1] *= s;
+            strip[i + 2] = strip[i + 2] * s + z;
+        }
+        builder.triangleStrip(strip, color);
     }
 
-    private void drawVerticalStrip(GameSketch gs, float z)
+    private static float[] diagonalStrip(float zOrientation)
     {
-        gs.beginShape(PConstants.TRIANGLE_STRIP);
-        vertStack(gs, -1.f, 0.5f, z, 0.f);
-        vertStack(gs, -1.f, -0.5f, z, 1.f);
-
-        vertStack(gs, -0.5f, -1.f, z, 0.f);
-        vertStack(gs, 0.5f, -1.f, z, 1.f);
-
-        vertStack(gs, 1.f, -0.5f, z, 0.f);
-        vertStack(gs, 1.f, 0.5f, z, 1.f);
-
-        vertStack(gs, 0.5f, 1.f, z, 0.f);
-        vertStack(gs, -0.5f, 1.f, z, 1.f);
-        gs.vertex(-1.f, 0.5f, z, 0.f, 0.f);
-        gs.endShape();
+        float z0 = 0.5f * zOrientation, z1 = 1.f * zOrientation;
+        return new float[] {
+                // left rectangle
+                -1.f, 0.5f, z0, 0.f, 0.f,
+                -0.5f, 0.5f, z1, 0.f, 0.f,
+                -1.f, -0.5f, z0, 0.f, 0.f,
+                -0.5f, -0.5f, z1, 0.f, 0.f,
+                // bottom-left triangle
+                -0.5f, -1.f, z0, 0.f, 0.f,
+                // bottom rectangle
+                0.5f, -0.5f, z1, 0.f, 0.f,
+                0.5f, -1.f, z0, 0.f, 0.f,
+                // bottom-right triangle
+                1.f, -0.5f, z0, 0.f, 0.f,
+                0.5f, -0.5f, z1, 0.f, 0.f,
+                // right rectangle
+                1.f, 0.5f, z0, 0.f, 0.f,
+                0.5f, 0.5f, z1, 0.f, 0.f,
+                // upper-right triangle
+                0.5f, 1.f, z0, 0.f, 0.f,
+                // upper rectangle
+                -0.5f, 0.5f, z1, 0.f, 0.f,
+                -0.5f, 1.f, z0, 0.f, 0.f,
+                // upper-left triangle
+                -1.f, 0.5f, z0, 0.f, 0.f
+        };
     }
 
-    private void vertStack(GameSketch gs, float x, float y, float z, float u)
+    // the eight sides of a ball or hat, from z down to -z
+    private static float[] verticalStrip(float z)
     {
-        gs.vertex(x, y, z, u, 0.f);
-        gs.vertex(x, y, -z, u, 1.f);
+        float[] corners = {
+                -1.f, 0.5f, -1.f, -0.5f, -0.5f, -1.f, 0.5f, -1.f,
+                1.f, -0.5f, 1.f, 0.5f, 0.5f, 1.f, -0.5f, 1.f
+        };
+        float[] result = new float[(corners.length + 1) * 5];
+        for (int c = 0; c < corners.length / 2; c++)
+        {
+            float u = c % 2;
+            int i = c * 10;
+            result[i] = corners[c * 2];
+            result[i + 1] = corners[c * 2 + 1];
+            result[i + 2] = z;
+            result[i + 3] = u;
+            result[i + 5] = corners[c * 2];
+            result[i + 6] = corners[c * 2 + 1];
+            result[i + 7] = -z;
+            result[i + 8] = u;
+            result[i + 9] = 1.f;
+        }
+        // back to the first corner
+        int last = corners.length * 5;
+        result[last] = -1.f;
+        result[last + 1] = 0.5f;
+        result[last + 2] = z;
+        return result;
     }
 }
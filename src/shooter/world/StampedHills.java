@@ -0,0 +1,43 @@
+package shooter.world;
+
+import shooter.GameRandom;
+
+import static shooter.GameMath.randRange;
+
+/* StampedHills
+ *
+ * The original ground: a few hills per chunk, each a random
+ * stamp from TerrainStamps at a random place and height. Hills
+ * are placed from the first numbers of the chunk's stream, and
+ * the hills of the previous chunk which reach into this one
+ * are placed again from its stream, with its biome's
+ * parameters, so the ground carries on across the seam even
+ * where the biome changes.
+ */
+
+public class StampedHills implements TerrainGenerator
+{
+    private static final int HILL_SIZE = TerrainStamps.HILL_SIZE;
+
+    @Override
+    public void generate(TileGrid grid, long seed, int index, Biome biome, Biome prevBiome, GameRandom rand)
+    {
+        if (index > 0 && prevBiome != null)
+            placeHills(grid, GameRandom.forKey(seed, index - 1), prevBiome, -grid.getLength());
+        placeHills(grid, rand, biome, 0);
+    }
+
+    // Stamp the hills a chunk of this biome starts with, which are the first
+    // numbers drawn from the chunk's stream, yOffset rows from this chunk.
+    private static void placeHills(TileGrid grid, GameRandom rand, Biome biome, int yOffset)
+    {
+        int numHills = rand.nextInt(biome.maxHills - biome.minHills + 1) + biome.minHills;
+        for (int h = 0; h < numHills; h++)
+        {
+            int xOff = (int)randRange(rand, -HILL_SIZE, grid.getWidth());
+            int yOff = rand.nextInt(grid.getLength()) + yOffset;
+            TerrainStamps.stampHill(grid, rand.nextInt(TerrainStamps.NUM_HILLS), xOff, yOff,
+                    randRange(rand, biome.hillMinHeight, biome.hillMaxHeight));
+        }
+    }
+}
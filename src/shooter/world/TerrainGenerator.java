@@ -0,0 +1,28 @@
+package shooter.world;
+
+import shooter.GameRandom;
+
+/* TerrainGenerator
+ *
+ * Makes the ground of a chunk, before its mesas and
+ * decorations are added. Like the rest of the chunk, the
+ * ground may only depend on the world's seed, the chunk's
+ * index, its biome and the previous chunk's, and the chunk's
+ * own stream, which the chunk goes on drawing from
+ * afterwards. Generators keep no state of their own, so one
+ * can make chunks on any number of threads.
+ */
+
+public interface TerrainGenerator
+{
+    // hills stamped from precomputed diamond-square shapes
+    TerrainGenerator STAMPED = new StampedHills();
+    // hills sampled from fractal gradient noise, tile by tile
+    TerrainGenerator NOISE = new NoiseTerrain();
+
+    // Raise the grid, which starts flat at height 0, to the ground of the
+    // chunk with this index in a world with this seed. prevBiome is the
+    // biome of the chunk before, or null if there is none or its ground
+    // came from another generator, so none of it reaches into this chunk.
+    void generate(TileGrid grid, long seed, int index, Biome biome, Biome prevBiome, GameRandom rand);
+}
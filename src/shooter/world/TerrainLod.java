@@ -0,0 +1,161 @@
+package shooter.world;
+
+import shooter.RenderBackend;
+import shooter.ViewVolume;
+
+/* TerrainLod
+ *
+ * A chunk's terrain at several levels of detail, which is how
+ * chunks are drawn. In the perspective view, the rows
+ * furthest from the camera only cover a few pixels, so they
+ * are drawn coarser; the orthographic view draws every band
+ * at full detail. The chunk is cut into bands of rows across
+ * its width, and each band is meshed at every level: whole
+ * tiles, 2x2 blocks and 4x4 blocks. A block is as high as its
+ * highest tile and looks like that tile, so hills keep their
+ * outline and nothing pokes through a coarse block.
+ *
+ * Bands at different levels don't meet exactly, so every band
+ * keeps the faces along its edges whole, down to BASE_Z, like
+ * a chunk's edges. Whatever the level of the band beside it,
+ * these skirts close the gap between them.
+ *
+ * Bands are also the unit rows are culled in: a band which is
+ * outside the view volume isn't drawn at all.
+ */
+
+public class TerrainLod
+{
+    public static final int
+            BAND_ROWS = 12,
+            NUM_BANDS = WorldChunk.CHUNK_H / BAND_ROWS;
+    // width of a block, in tiles, at each level
+    private static final int[] BLOCK_SIZES = {1, 2, 4};
+    public static final int NUM_LEVELS = BLOCK_SIZES.length;
+    // distance from the camera, in world units, past which a band uses each coarser level
+    private static final float[] LEVEL_DISTANCES = {3.6f, 4.4f};
+
+    // [level][band]
+    private final Mesh[][] meshes;
+    // height of the highest tile in each band
+    private final float[] bandTops;
+
+    public TerrainLod(TileGrid grid)
+    {
+        meshes = new Mesh[NUM_LEVELS][NUM_BANDS];
+        bandTops = new float[NUM_BANDS];
+        final float left = -grid.getWidth() / 2.f, bottom = -grid.getLength() / 2.f - 0.5f;
+        for (int level = 0; level < NUM_LEVELS; level++)
+        {
+            int block = BLOCK_SIZES[level];
+            for (int band = 0; band < NUM_BANDS; band++)
+            {
+                TileGrid blocks = coarsen(grid, band * BAND_ROWS, block);
+                meshes[level][band] = TerrainMesher.mesh(blocks, left, bottom + band * BAND_ROWS, block);
+            }
+        }
+
+        for (int band = 0; band < NUM_BANDS; band++)
+        {
+            bandTops[band] = WorldTile.BASE_Z;
+            for (int y = band * BAND_ROWS; y < (band + 1) * BAND_ROWS; y++)
+                for (int x = 0; x < grid.getWidth(); x++)
+                    bandTops[band] = Math.max(bandTops[band], grid.getHeight(x, y));
+        }
+    }
+
+    // One band of the grid in blocks of the given size, each as high as its
+    // highest tile and with that tile's material.
+    private static TileGrid coarsen(TileGrid grid, int firstRow, int block)
+    {
+        TileGrid result = new TileGrid(grid.getWidth() / block, BAND_ROWS / block, grid.getMaterialByIndex(0));
+        for (int by = 0; by < result.getLength(); by++)
+        {
+            for (int bx = 0; bx < result.getWidth(); bx++)
+            {
+                int highX = bx * block, highY = firstRow + by * block;
+                for (int y = firstRow + by * block; y < firstRow + (by + 1) * block; y++)
+                {
+                    for (int x = bx * block; x < (bx + 1) * block; x++)
+                    {
+                        if (grid.getHeight(x, y) > grid.getHeight(highX, highY))
+                        {
+                            highX = x;
+                            highY = y;
+                        }
+                    }
+                }
+                result.setHeight(bx, by, grid.getHeight(highX, highY));
+                result.setMaterial(bx, by, grid.getMaterial(highX, highY));
+            }
+        }
+        return result;
+    }
+
+    // the level of detail for terrain this far from the camera, 0 being the finest
+    public static int levelFor(float distance)
+    {
+        int level = 0;
+        while (level < LEVEL_DISTANCES.length && distance > LEVEL_DISTANCES[level])
+            level++;
+        return level;
+    }
+
+    // Choose the level of each band of a chunk, from the camera's position
+    // and the chunk's offset along y, both in world units. Each band is as
+    // far away as its nearest point on the ground.
+    public static void chooseLevels(float[] eye, float chunkY, int[] levels)
+    {
+        final float halfW = WorldChunk.CHUNK_W / 2.f * WorldChunk.TILE_SIZE,
+                    bottom = chunkY + (-WorldChunk.CHUNK_H / 2.f - 0.5f) * WorldChunk.TILE_SIZE,
+                    bandLength = BAND_ROWS * WorldChunk.TILE_SIZE;
+        for (int band = 0; band < NUM_BANDS; band++)
+        {
+            float y0 = bottom + band * bandLength;
+            float dx = eye[0] - Math.max(-halfW, Math.min(halfW, eye[0])),
+                  dy = eye[1] - Math.max(y0, Math.min(y0 + bandLength, eye[1])),
+                  dz = eye[2];
+            levels[band] = levelFor((float)Math.sqrt(dx * dx + dy * dy + dz * dz));
+        }
+    }
+
+    public Mesh getMesh(int level, int band) {return meshes[level][band];}
+
+    // True if any of the band may be visible, with the chunk's centre at
+    // chunkY along y, in world units.
+    public boolean isBandVisible(ViewVolume view, int band, float chunkY)
+    {
+        final float t = WorldChunk.TILE_SIZE,
+                    halfW = WorldChunk.CHUNK_W / 2.f * t,
+                    y0 = chunkY + (-WorldChunk.CHUNK_H / 2.f - 0.5f + band * BAND_ROWS) * t;
+        return view.intersects(-halfW, y0, WorldTile.BASE_Z * t, halfW, y0 + BAND_ROWS * t, bandTops[band] * t);
+    }
+
+    // Draw each band which may be visible at the given level, with the
+    // chunk's centre at chunkY. Returns the number of bands drawn.
+    // Precondition: The current matrix is scaled to
+    // the size of one WorldTile.
+    public int draw(RenderBackend r, int[] levels, ViewVolume view, float chunkY)
+    {
+        int drawn = 0;
+        for (int band = 0; band < NUM_BANDS; band++)
+        {
+            if (isBandVisible(view, band, chunkY))
+            {
+                meshes[levels[band]][band].draw(r);
+                ++drawn;
+            }
+        }
+        return drawn;
+    }
+
+    // memory taken by the vertex arrays of every level
+    public long getMemoryBytes()
+    {
+        long result = 0;
+        for (Mesh[] level : meshes)
+            for (Mesh m : level)
+                result += m.getMemoryBytes();
+        return result;
+    }
+}
@@ -0,0 +1,141 @@
+package shooter.world;
+
+/* TerrainMesher
+ *
+ * Turns a chunk's tiles into a Mesh with as few triangles as
+ * the terrain allows. Tops with the same height and look are
+ * merged into rectangles (the textures repeat, so a merged
+ * top looks the same as the tiles it replaces), and each side
+ * face only goes down as far as the neighbouring tile's top,
+ * since the rest of it is buried. Faces which are completely
+ * hidden are left out.
+ *
+ * Tiles are centred on the same points drawChunk used to
+ * translate to, starting in the lower left (-ve x, -ve y).
+ * Grids of coarser blocks (see TerrainLod) can be meshed at
+ * any position and block size; textures are still repeated
+ * once per tile, so blocks look the same as the tiles they
+ * stand in for.
+ */
+
+public class TerrainMesher
+{
+    // Mesh the tiles of a grid. The tiles around the grid aren't known, so
+    // faces on its edges are kept whole.
+    public static Mesh mesh(TileGrid grid)
+    {
+        return mesh(grid, -grid.getWidth() / 2.f, -grid.getLength() / 2.f - 0.5f, 1.f);
+    }
+
+    // Mesh a grid whose tiles are blocks of the given size, with the lower
+    // left corner of its first block at (left, bottom).
+    static Mesh mesh(TileGrid grid, float left, float bottom, float blockSize)
+    {
+        MeshBuilder builder = new MeshBuilder();
+        addTops(builder, grid, left, bottom, blockSize);
+        addSides(builder, grid, left, bottom, blockSize);
+        return builder.build();
+    }
+
+    // Greedily cover the tops with rectangles, growing each one to the right
+    // as far as it can, then upwards while whole rows still match.
+    private static void addTops(MeshBuilder builder, TileGrid grid, float x0, float y0, float s)
+    {
+        final int W = grid.getWidth(), L = grid.getLength();
+        boolean[] covered = new boolean[W * L];
+        for (int y = 0; y < L; y++)
+        {
+            for (int x = 0; x < W; x++)
+            {
+                if (covered[x + y * W])
+                    continue;
+
+                int w = 1;
+                while (x + w < W && !covered[x + w + y * W] && sameTop(grid, x, y, x + w, y))
+                    w++;
+
+                int h = 1;
+                while (y + h < L && rowMatches(grid, covered, x, y, w, y + h))
+                    h++;
+
+                for (int j = y; j < y + h; j++)
+                    for (int i = x; i < x + w; i++)
+                        covered[i + j * W] = true;
+
+                TileMaterial m = grid.getMaterial(x, y);
+                float left = x0 + x * s, right = left + w * s,
+                      bottom = y0 + y * s, top = bottom + h * s,
+                      z = grid.getHeight(x, y);
+                builder.texture(m.getTopTexture()).triangleStrip(new float[] {
+                        left, top, z, 0.f, 0.f,
+                        left, bottom, z, 0.f, h * s,
+                        right, top, z, w * s, 0.f,
+                        right, bottom, z, w * s, h * s
+                }, m.getTopColor());
+            }
+        }
+    }
+
+    // true if w tiles of row y, starting at x, can join the top at (x, y0)
+    private static boolean rowMatches(TileGrid grid, boolean[] covered, int x, int y0, int w, int y)
+    {
+        for (int i = x; i < x + w; i++)
+            if (covered[i + y * grid.getWidth()] || !sameTop(grid, x, y0, i, y))
+                return false;
+        return true;
+    }
+
+    private static boolean sameTop(TileGrid grid, int x0, int y0, int x1, int y1)
+    {
+        return grid.getHeight(x0, y0) == grid.getHeight(x1, y1)
+                && (grid.getMaterialIndex(x0, y0) == grid.getMaterialIndex(x1, y1)
+                    || grid.getMaterial(x0, y0).sameTop(grid.getMaterial(x1, y1)));
+    }
+
+    // Add the exposed part of each tile's four sides, in the same order and
+    // with the same texture coordinates as one strip wrapped around the tile.
+    private static void addSides(MeshBuilder builder, TileGrid grid, float x0, float y0, float s)
+    {
+        final int W = grid.getWidth(), L = grid.getLength();
+        for (int y = 0; y < L; y++)
+        {
+            for (int x = 0; x < W; x++)
+            {
+                TileMaterial m = grid.getMaterial(x, y);
+                float z = grid.getHeight(x, y);
+                float l = x0 + x * s, r = l + s, b = y0 + y * s, f = b + s;
+
+                // front face, the previous chunk's tiles aren't known
+                float front = y > 0 ? grid.getHeight(x, y - 1) : WorldTile.BASE_Z;
+                addSide(builder, m, z, front, l, b, 0.f, r, b, s);
+                // right face
+                float right = x < W - 1 ? grid.getHeight(x + 1, y) : WorldTile.BASE_Z;
+                addSide(builder, m, z, right, r, b, s, r, f, 0.f);
+                // back face, the next chunk's tiles aren't known
+                float back = y < L - 1 ? grid.getHeight(x, y + 1) : WorldTile.BASE_Z;
+                addSide(builder, m, z, back, r, f, 0.f, l, f, s);
+                // left face
+                float left = x > 0 ? grid.getHeight(x - 1, y) : WorldTile.BASE_Z;
+                addSide(builder, m, z, left, l, f, s, l, b, 0.f);
+            }
+        }
+    }
+
+    // Add the part of one side face above the neighbour's top, from corner
+    // (x0, y0) to corner (x1, y1). v runs from 0 at the tile's top downwards.
+    private static void addSide(MeshBuilder builder, TileMaterial m, float top, float neighbour,
+                                float x0, float y0, float u0, float x1, float y1, float u1)
+    {
+        float bottom = Math.max(neighbour, WorldTile.BASE_Z);
+        if (bottom >= top)
+            return;
+
+        float height = top - bottom;
+        builder.texture(m.getSideTexture()).triangleStrip(new float[] {
+                x0, y0, top, u0, 0.f,
+                x0, y0, bottom, u0, height,
+                x1, y1, top, u1, 0.f,
+                x1, y1, bottom, u1, height
+        }, m.getSideColor());
+    }
+}
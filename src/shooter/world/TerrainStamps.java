@@ -0,0 +1,175 @@
+package shooter.world;
+
+import shooter.GameRandom;
+
+import static shooter.GameMath.biRand;
+
+/* TerrainStamps
+ *
+ * Hills and mesas made once, when the class is loaded, then
+ * stamped into chunks' height maps, so generating a chunk only
+ * picks stamps and copies them. Stamping allocates nothing.
+ *
+ * Hills come from the diamond-square algorithm, which only
+ * ever averages and adds noise, so a hill is linear in the
+ * height its centre starts at: a hill of height h is h times a
+ * fixed shape plus one of NUM_HILLS precomputed noise fields.
+ * Mesas are every pattern in every mirroring, smoothed and
+ * scaled from 0 to 1. The stamps come from a fixed seed so a
+ * chunk is the same on every run.
+ */
+
+public class TerrainStamps
+{
+    public static final int
+            HILL_SIZE = 17, // length & width of a hill in tiles
+            NUM_HILLS = 64;
+    private static final float HEIGHT_VARIATION = 0.5f;
+    private static final long SEED = 0x5EED_0F_4111L;
+
+    // hills, stored [x + y * HILL_SIZE]
+    private static final float[] HILL_SHAPE;
+    private static final float[][] HILL_NOISE;
+    // mesas, stored [x + y * width]
+    private static final float[][] MESAS;
+    private static final int[] MESA_WIDTHS, MESA_LENGTHS;
+
+    static
+    {
+        HILL_SHAPE = diamondSquare(1.f, null);
+        GameRandom rand = GameRandom.forKey(SEED, 0);
+        HILL_NOISE = new float[NUM_HILLS][];
+        for (int h = 0; h < NUM_HILLS; h++)
+            HILL_NOISE[h] = diamondSquare(0.f, rand);
+
+        int numMesas = MesaGenerator.getNumPatterns() * 4;
+        MESAS = new float[numMesas][];
+        MESA_WIDTHS = new int[numMesas];
+        MESA_LENGTHS = new int[numMesas];
+        for (int m = 0; m < numMesas; m++)
+        {
+            float[][] mesa = MesaGenerator.generateMesa(m / 4, (m & 1) != 0, (m & 2) != 0, 0.f, 1.f);
+            int width = mesa[0].length;
+            MESAS[m] = new float[width * mesa.length];
+            for (int y = 0; y < mesa.length; y++)
+                System.arraycopy(mesa[y], 0, MESAS[m], y * width, width);
+            MESA_WIDTHS[m] = width;
+            MESA_LENGTHS[m] = mesa.length;
+        }
+    }
+
+    // Raise the grid to a hill with the given centre height, with the hill's
+    // corner at (xOffset, yOffset). Parts off the grid are left out.
+    public static void stampHill(TileGrid grid, int variant, int xOffset, int yOffset, float height)
+    {
+        final float[] noise = HILL_NOISE[variant];
+        final int endX = Math.min(HILL_SIZE, grid.getWidth() - xOffset),
+                  endY = Math.min(HILL_SIZE, grid.getLength() - yOffset);
+        for (int y = Math.max(0, -yOffset); y < endY; y++)
+        {
+            for (int x = Math.max(0, -xOffset); x < endX; x++)
+            {
+                int i = x + y * HILL_SIZE;
+                grid.raiseHeight(x + xOffset, y + yOffset, height * HILL_SHAPE[i] + noise[i]);
+            }
+        }
+    }
+
+    public static int getNumMesas() {return MESAS.length;}
+    public static int getMesaWidth(int mesa) {return MESA_WIDTHS[mesa];}
+    public static int getMesaLength(int mesa) {return MESA_LENGTHS[mesa];}
+
+    // Raise the grid to a mesa of the given height and give every tile it
+    // covers the material. The mesa must fit in the grid's tiles.
+    public static void stampMesa(TileGrid grid, int mesa, int xOffset, int yOffset,
+                                 float height, TileMaterial material)
+    {
+        final float[] heights = MESAS[mesa];
+        final int width = MESA_WIDTHS[mesa];
+        for (int y = 0; y < MESA_LENGTHS[mesa]; y++)
+        {
+            for (int x = 0; x < width; x++)
+            {
+                grid.raiseHeight(x + xOffset, y + yOffset, height * heights[x + y * width]);
+                grid.setMaterial(x + xOffset, y + yOffset, material);
+            }
+        }
+    }
+
+    // One pass of diamond-square, from a centre height and zero corners. The
+    // noise is left out if rand is null.
+    private static float[] diamondSquare(float centreHeight, GameRandom rand)
+    {
+        final float[][] heightMap = new float[HILL_SIZE][HILL_SIZE];
+
+        // initialize four corners to zero and centre to the given height
+        heightMap[HILL_SIZE / 2][HILL_SIZE / 2] = centreHeight;
+
+        // perform diamond-square algorithm
+        int currSize = HILL_SIZE / 2;
+        float currRand = HEIGHT_VARIATION;
+        while (currSize > 1)
+        {
+            int halfSize = currSize / 2;
+
+            // diamond step
+            for (int x = 0; x < HILL_SIZE - 1; x += currSize)
+            {
+                for (int y = 0; y < HILL_SIZE - 1; y += currSize)
+                {
+                    float currHeight = heightMap[x][y]
+                            + heightMap[x + currSize][y]
+                            + heightMap[x][y + currSize]
+                            + heightMap[x + currSize][y + currSize];
+                    currHeight = currHeight / 4.f + noise(rand, currRand);
+                    heightMap[x + halfSize][y + halfSize] = currHeight;
+                }
+            }
+
+            // square step
+            for (int x = 0; x < HILL_SIZE - 1; x += halfSize)
+            {
+                for (int y = (x + halfSize) % currSize; y < HILL_SIZE - 1; y += currSize)
+                {
+                    float currHeight;
+                    // left neighbor
+                    currHeight = x < halfSize ? 0 : heightMap[x - halfSize][y];
+                    // right neighbor
+                    currHeight += x + halfSize >= HILL_SIZE ? 0 : heightMap[x + halfSize][y];
+                    // top neighbor
+                    currHeight += y < halfSize ? 0 : heightMap[x][y - halfSize];
+                    // bottom neighbor
+                    currHeight += y + halfSize >= HILL_SIZE ? 0 : heightMap[x][y + halfSize];
+
+                    currHeight = currHeight / 4.f + noise(rand, currRand);
+                    heightMap[x][y] = currHeight;
+                }
+            }
+
+            // decrease size of area and variation
+            currRand /= 2.f;
+            currSize /= 2;
+        }
+
+        // re-generate height for centre tile with heights of its neighbors
+        // otherwise, the centre tile looks far too tall
+        int mid = HILL_SIZE / 2;
+        float centre = heightMap[mid-1][mid]
+                + heightMap[mid+1][mid]
+                + heightMap[mid][mid-1]
+                + heightMap[mid][mid+1];
+        centre = centre / 4.f + (rand == null ? 0.f : rand.nextFloat() * HEIGHT_VARIATION);
+        heightMap[mid][mid] = centre;
+
+        float[] result = new float[HILL_SIZE * HILL_SIZE];
+        for (int x = 0; x < HILL_SIZE; x++)
+            for (int y = 0; y < HILL_SIZE; y++)
+                result[x + y * HILL_SIZE] = heightMap[x][y];
+        return result;
+    }
+
+    private static float noise(GameRandom rand, float bound)
+    {
+        return rand == null ? 0.f : biRand(rand, bound);
+    }
+}
@@ -0,0 +1,112 @@
+package shooter.world;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/* TileGrid
+ *
+ * The terrain of a chunk as primitives: one height per tile
+ * and one byte per tile indexing a small table of materials,
+ * both stored row by row. WorldTile is a view of one tile.
+ * Generated heights are rounded to multiples of HEIGHT_STEP,
+ * so chunk files can store them in 16 bits without losing
+ * anything (see ChunkStore).
+ */
+
+public class TileGrid
+{
+    public static final int MAX_MATERIALS = 256;
+    // heights are stored as whole multiples of this, a power of two so rounding is exact
+    public static final float HEIGHT_STEP = 1.f / 1024.f;
+
+    private final int width, length;
+    // width * length heights
+    private final float[] heights;
+    // width * length indexes into materialTable
+    private final byte[] materials;
+    private final List<TileMaterial> materialTable;
+
+    // A grid of width * length tiles, which all start
+    // at height 0 with the given material.
+    public TileGrid(int width, int length, TileMaterial material)
+    {
+        this.width = width;
+        this.length = length;
+        heights = new float[width * length];
+        materials = new byte[width * length];
+        materialTable = new ArrayList<>();
+        materialTable.add(material);
+    }
+
+    // A grid which takes the given arrays as its storage, as they are laid
+    // out in a grid, and the material table they index.
+    TileGrid(int width, int length, float[] heights, byte[] materials, List<TileMaterial> materialTable)
+    {
+        this.width = width;
+        this.length = length;
+        this.heights = heights;
+        this.materials = materials;
+        this.materialTable = materialTable;
+    }
+
+    public int getWidth() {return width;}
+    public int getLength() {return length;}
+
+    public float getHeight(int x, int y) {return heights[x + y * width];}
+    public void setHeight(int x, int y, float z) {heights[x + y * width] = z;}
+
+    public void raiseHeight(int x, int y, float z)
+    {
+        int i = x + y * width;
+        heights[i] = Math.max(heights[i], z);
+    }
+
+    public TileMaterial getMaterial(int x, int y)
+    {
+        return materialTable.get(getMaterialIndex(x, y));
+    }
+
+    // the material with this index in the grid's table
+    public TileMaterial getMaterialByIndex(int index)
+    {
+        return materialTable.get(index);
+    }
+
+    public int getMaterialIndex(int x, int y)
+    {
+        return materials[x + y * width] & 0xFF;
+    }
+
+    public void setMaterial(int x, int y, TileMaterial material)
+    {
+        int index = materialTable.indexOf(material);
+        if (index < 0)
+        {
+            if (materialTable.size() == MAX_MATERIALS)
+                throw new IllegalStateException("A grid can't have more than " + MAX_MATERIALS + " materials");
+            materialTable.add(material);
+            index = materialTable.size() - 1;
+        }
+        materials[x + y * width] = (byte)index;
+    }
+
+    public int getNumMaterials() {return materialTable.size();}
+
+    // round every height to the nearest multiple of HEIGHT_STEP
+    public void quantizeHeights()
+    {
+        for (int i = 0; i < heights.length; i++)
+            heights[i] = Math.round(heights[i] / HEIGHT_STEP) * HEIGHT_STEP;
+    }
+
+    // roughly how much memory the grid's arrays take
+    public long getMemoryBytes()
+    {
+        return heights.length * (long)Float.BYTES + materials.length;
+    }
+
+    public WorldTile getTile(int x, int y)
+    {
+        return new WorldTile(this, x, y);
+    }
+}
@@ -0,0 +1,68 @@
+package shooter.world;
+
+import processing.core.PImage;
+import shooter.Textures;
+
+/* TileMaterial
+ *
+ * How the top and sides of a tile look. Chunks only use a
+ * handful of these, so tiles store an index into a small
+ * table of them (see TileGrid) rather than their own copy.
+ * Untextured tiles are drawn with the colours instead.
+ * The built-in materials have ids, which chunk files store.
+ */
+
+public final class TileMaterial
+{
+    public static final TileMaterial
+            HILLS = new TileMaterial(Textures.HILLS_GRASS, Textures.HILLS_DIRT),
+            DESERT = new TileMaterial(Textures.DESERT_SAND, Textures.DESERT_SANDSTONE),
+            SNOW = new TileMaterial(Textures.ICE_SNOW, Textures.ICE_SNOW),
+            ICE_WALL = new TileMaterial(Textures.ICE_SNOW, Textures.ICE_WALL);
+    // built-in materials, by id
+    private static final TileMaterial[] BUILT_IN = {HILLS, DESERT, SNOW, ICE_WALL};
+
+    private final PImage topTexture, sideTexture;
+    private final int topColor, sideColor;
+
+    public TileMaterial(PImage topTexture, PImage sideTexture)
+    {
+        this(topTexture, sideTexture, 0, 0);
+    }
+
+    public TileMaterial(PImage topTexture, PImage sideTexture, int topColor, int sideColor)
+    {
+        this.topTexture = topTexture;
+        this.sideTexture = sideTexture;
+        this.topColor = topColor;
+        this.sideColor = sideColor;
+    }
+
+    public PImage getTopTexture() {return topTexture;}
+    public PImage getSideTexture() {return sideTexture;}
+    public int getTopColor() {return topColor;}
+    public int getSideColor() {return sideColor;}
+
+    // the built-in material with this id
+    public static TileMaterial byId(int id)
+    {
+        if (id < 0 || id >= BUILT_IN.length)
+            throw new IllegalArgumentException("No material has the id " + id);
+        return BUILT_IN[id];
+    }
+
+    // this material's id, or -1 if it isn't built in
+    public int getId()
+    {
+        for (int i = 0; i < BUILT_IN.length; i++)
+            if (BUILT_IN[i] == this)
+                return i;
+        return -1;
+    }
+
+    // true if tops of the two materials look the same
+    public boolean sameTop(TileMaterial other)
+    {
+        return topTexture == other.topTexture && topColor == other.topColor;
+    }
+}
@@ -1,74 +1,483 @@
 package shooter.world;
 
-import shooter.GameSketch;
+import shooter.GameRandom;
+import shooter.RenderBackend;
+import shooter.HeightField;
+import shooter.ViewVolume;
 
-public class World
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+/* World
+ *
+ * The scrolling terrain, made of chunks numbered from 0 in the
+ * order they scroll past. The chunk after the last visible one
+ * is always being generated ahead of time on a background
+ * thread, so crossing a chunk boundary only swaps it in.
+ *
+ * A chunk only depends on the world's seed, its index, its
+ * biome and the biome before it, and the world remembers each
+ * chunk's biome, so any chunk can be made again exactly. This
+ * lets the world scroll backwards: recent chunks come from a
+ * ChunkCache, and older ones are regenerated. Chunks don't
+ * change once generated, which makes handing them between
+ * threads safe.
+ *
+ * Each biome's ground can come from its own TerrainGenerator,
+ * chosen when the world is made; biomes not given one have
+ * stamped hills.
+ *
+ * A world can instead stream its chunks from a ChunkStore,
+ * reading them on the background thread in place of making
+ * them. Its chunks start again from the store's first chunk
+ * after its last.
+ *
+ * Given the camera's position, the world draws distant terrain
+ * with coarser meshes (see TerrainLod). Bands of terrain and
+ * decorations outside the view volume aren't drawn.
+ *
+ * The world is also the ground particles land on. Heights are
+ * read from the tiles of the chunks in view, and bounds over a
+ * region from each chunk's HeightPyramid.
+ */
+
+public class World implements HeightField
 {
     private static final int
         NUM_CHUNKS = 2,
         CHUNKS_PER_BIOME = 16;
     private static final float
-        SCROLL_OFFSET = WorldChunk.CHUNK_H / 5.f;
+        SCROLL_OFFSET = WorldChunk.CHUNK_H / 5.f,
+        // longest the frame will wait for a late chunk before scrolling is paused instead
+        LATE_CHUNK_WAIT_MILLIS = 4.f;
+    // default memory limit for cached chunks
+    public static final long DEFAULT_CACHE_BYTES = 32L << 20;
 
+    // shared by every world so resetting the game doesn't leave threads behind
+    private static final ExecutorService GENERATOR = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "chunk-generator");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final long seed;
+    // where chunks are read from, or null if they're generated
+    private final ChunkStore store;
+    // what makes the ground of each biome's chunks
+    private final Map<Biome, TerrainGenerator> generators;
+    // biome of every chunk made so far, by index
+    private final List<Biome> biomes;
+    private final ChunkCache cache;
     // current chunks
     private final WorldChunk[] chunks;
+    // index of chunks[0]
+    private int firstIndex;
 
     private float scroll;
+    // how fast the terrain moved along y in the last scroll, in world units per millisecond
+    private float groundVelocity;
     private int chunkCount;
     private Biome biome;
+    // the chunk to be swapped in next, being generated on the generator thread
+    private Future<WorldChunk> nextChunk;
+    // index of nextChunk
+    private int nextIndex;
+    // true once nextChunk has been counted as late
+    private boolean nextLate;
+    // level of detail of each band of the chunk being drawn, all 0 for full detail
+    private final int[] bandLevels = new int[TerrainLod.NUM_BANDS];
+    private static final int[] FULL_DETAIL = new int[TerrainLod.NUM_BANDS];
+    // region visible to the camera, everything until one is given
+    private ViewVolume view = new ViewVolume();
+    // bands of terrain drawn last frame
+    private int bandsDrawn;
+
+    // generation metrics
+    private int chunksGenerated, chunksLate, chunksRegenerated;
+    private long totalGenNanos, maxGenNanos, lastGenNanos;
 
     public World()
     {
+        this(GameRandom.WORLD.nextLong(), DEFAULT_CACHE_BYTES);
+    }
+
+    // a world whose terrain only depends on the seed, caching up to cacheBytes of chunks
+    public World(long seed, long cacheBytes)
+    {
+        this(seed, null, Map.of(), cacheBytes);
+    }
+
+    // a world whose biomes' ground is made by the given generators
+    public World(long seed, Map<Biome, TerrainGenerator> generators, long cacheBytes)
+    {
+        this(seed, null, generators, cacheBytes);
+    }
+
+    // a world made of the chunks in the store, caching up to cacheBytes of them
+    public World(ChunkStore store, long cacheBytes)
+    {
+        this(store.getSeed(), store, Map.of(), cacheBytes);
+    }
+
+    private World(long seed, ChunkStore store, Map<Biome, TerrainGenerator> generators, long cacheBytes)
+    {
+        this.seed = seed;
+        this.store = store;
+        this.generators = new EnumMap<>(Biome.class);
+        for (Biome b : Biome.values())
+            this.generators.put(b, generators.getOrDefault(b, TerrainGenerator.STAMPED));
+        biomes = new ArrayList<>();
+        cache = new ChunkCache(cacheBytes);
         scroll = 0.f;
         chunkCount = 0;
         biome = Biome.HILLS;
 
         chunks = new WorldChunk[NUM_CHUNKS];
-        chunks[0] = new WorldChunk(biome, null);
-        for (int c = 1; c < NUM_CHUNKS; c++)
-            chunks[c] = new WorldChunk(biome, chunks[c-1].getHeightMap());
+        firstIndex = 0;
+        for (int c = 0; c < NUM_CHUNKS; c++)
+        {
+            biomes.add(biome);
+            chunks[c] = generate(c);
+            cache.put(c, chunks[c]);
+        }
+        generateNextChunk();
+    }
+
+    // make the chunk with this index on this thread
+    private WorldChunk generate(int index)
+    {
+        return make(index, biomes.get(index), prevBiome(index));
+    }
+
+    // The biome of the chunk before the one with this index, or null if it's
+    // the first chunk or its ground came from another generator, in which
+    // case none of it reaches into this chunk.
+    private Biome prevBiome(int index)
+    {
+        if (index == 0)
+            return null;
+        Biome prev = biomes.get(index - 1);
+        return generators.get(prev) == generators.get(biomes.get(index)) ? prev : null;
+    }
+
+    // Make the chunk with this index, or read it if the world has a store, in
+    // which case the chunk keeps the biome it was saved with.
+    private WorldChunk make(int index, Biome biome, Biome prevBiome)
+    {
+        if (store != null)
+            return store.read(index % store.getNumChunks());
+        return new WorldChunk(seed, index, biome, prevBiome, generators.get(biome));
+    }
+
+    // Start generating the chunk which follows the current last chunk,
+    // unless it's already on its way or cached. A chunk which has never been
+    // made gets the current biome.
+    private void generateNextChunk()
+    {
+        final int index = firstIndex + NUM_CHUNKS;
+        if (nextChunk != null)
+        {
+            if (nextIndex == index)
+                return;
+            discardNextChunk();
+        }
+
+        nextIndex = index;
+        nextLate = false;
+        if (index == biomes.size())
+        {
+            if (index > NUM_CHUNKS && ++chunkCount >= CHUNKS_PER_BIOME)
+            {
+                cycleBiome();
+                chunkCount = 0;
+            }
+            biomes.add(biome);
+        }
+
+        WorldChunk cached = cache.get(index);
+        if (cached != null)
+        {
+            nextChunk = CompletableFuture.completedFuture(cached);
+            return;
+        }
+
+        final Biome b = biomes.get(index), prev = prevBiome(index);
+        nextChunk = GENERATOR.submit(() -> {
+            long start = System.nanoTime();
+            WorldChunk result = make(index, b, prev);
+            recordGeneration(System.nanoTime() - start);
+            return result;
+        });
+    }
+
+    private synchronized void recordGeneration(long nanos)
+    {
+        ++chunksGenerated;
+        lastGenNanos = nanos;
+        totalGenNanos += nanos;
+        maxGenNanos = Math.max(maxGenNanos, nanos);
+    }
+
+    // Stop waiting for the next chunk, after scrolling back past where it was
+    // needed. If it's already been made it's kept in the cache.
+    private void discardNextChunk()
+    {
+        if (nextChunk.isDone() && !nextChunk.isCancelled())
+        {
+            try
+            {
+                cache.put(nextIndex, nextChunk.get());
+            }
+            catch (InterruptedException | ExecutionException e)
+            {
+                // it can be generated again if it's needed
+            }
+        }
+        else
+            nextChunk.cancel(false);
+        nextChunk = null;
     }
 
-    public void drawWorld(GameSketch gs)
+    // Get the generated next chunk, waiting briefly if it's not done. Returns
+    // null if it's still not done, in which case scrolling waits for it.
+    private WorldChunk takeNextChunk()
     {
-        gs.pushMatrix();
-        gs.noStroke();
+        WorldChunk result;
+        try
+        {
+            if (nextChunk.isDone())
+                result = nextChunk.get();
+            else
+            {
+                if (!nextLate)
+                {
+                    ++chunksLate;
+                    nextLate = true;
+                }
+                result = nextChunk.get((long)(LATE_CHUNK_WAIT_MILLIS * 1000.f), TimeUnit.MICROSECONDS);
+            }
+        }
+        catch (TimeoutException te)
+        {
+            return null;
+        }
+        catch (InterruptedException | ExecutionException e)
+        {
+            // generation failed, make the chunk here instead so the world can continue
+            System.err.println("Chunk could not be generated in the background!");
+            e.printStackTrace();
+            result = generate(nextIndex);
+        }
+        nextChunk = null;
+        cache.put(nextIndex, result);
+        return result;
+    }
+
+    // the chunk with this index from the cache, or made again on this thread
+    private WorldChunk getOrRegenerate(int index)
+    {
+        WorldChunk result = cache.get(index);
+        if (result == null)
+        {
+            result = generate(index);
+            ++chunksRegenerated;
+            cache.put(index, result);
+        }
+        return result;
+    }
+
+    public void drawWorld(RenderBackend r)
+    {
+        drawWorld(r, null);
+    }
+
+    // Draw the world, with each band of terrain at a level of detail for its
+    // distance from the camera's eye, in world units. All of the terrain is
+    // drawn in full detail if eye is null.
+    public void drawWorld(RenderBackend r, float[] eye)
+    {
+        bandsDrawn = 0;
+        r.pushMatrix();
+        r.noStroke();
         // we will work in 1x1 tile units
-        gs.scale(WorldChunk.TILE_SIZE);
+        r.scale(WorldChunk.TILE_SIZE);
         // translate vertically by scroll value
-        gs.translate(0, (-scroll * WorldChunk.CHUNK_H) + SCROLL_OFFSET, 0);
+        r.translate(0, (-scroll * WorldChunk.CHUNK_H) + SCROLL_OFFSET, 0);
 
         // draw each chunk, lowest-to-highest
         for (int c = 0; c < NUM_CHUNKS; c++)
         {
-            gs.pushMatrix();
-            gs.translate(0, c * WorldChunk.CHUNK_H, 0);
-            chunks[c].drawChunk(gs);
-            gs.popMatrix();
+            r.pushMatrix();
+            r.translate(0, c * WorldChunk.CHUNK_H, 0);
+            int[] levels = FULL_DETAIL;
+            if (eye != null)
+            {
+                TerrainLod.chooseLevels(eye, getChunkY(c), bandLevels);
+                levels = bandLevels;
+            }
+            bandsDrawn += chunks[c].drawChunk(r, levels, view, getChunkY(c));
+            r.popMatrix();
         }
-        gs.popMatrix();
+        r.popMatrix();
+    }
+
+    // Scroll by delta chunks over elapsedMillis, which also sets how fast the
+    // ground is moving.
+    public void scrollWorld(float delta, float elapsedMillis)
+    {
+        groundVelocity = elapsedMillis > 0.f ? -delta * WorldChunk.CHUNK_H * WorldChunk.TILE_SIZE / elapsedMillis : 0.f;
+        scrollWorld(delta);
     }
 
+    // Scroll by delta chunks, backwards if negative. Scrolling back stops at
+    // the first chunk.
     public void scrollWorld(float delta)
     {
         this.scroll += delta;
         while (scroll >= 1.f)
         {
+            WorldChunk next = takeNextChunk();
+            if (next == null)
+            {
+                // hold at the boundary until the chunk is ready
+                scroll = Math.nextDown(1.f);
+                return;
+            }
+
             // discard first chunk, shift the rest down, add new last chunk
             for (int i = 1; i < NUM_CHUNKS; i++)
                 chunks[i-1] = chunks[i];
-            chunks[NUM_CHUNKS - 1] = new WorldChunk(biome, chunks[NUM_CHUNKS - 2].getHeightMap());
+            chunks[NUM_CHUNKS - 1] = next;
+            ++firstIndex;
 
-            if (++chunkCount >= CHUNKS_PER_BIOME)
+            scroll -= 1.f;
+            generateNextChunk();
+        }
+        while (scroll < 0.f)
+        {
+            if (firstIndex == 0)
             {
-                cycleBiome();
-                chunkCount = 0;
+                scroll = 0.f;
+                return;
             }
 
-            scroll -= 1.f;
+            // discard last chunk, shift the rest up, add the chunk before the first
+            for (int i = NUM_CHUNKS - 1; i > 0; i--)
+                chunks[i] = chunks[i-1];
+            chunks[0] = getOrRegenerate(--firstIndex);
+
+            scroll += 1.f;
+            generateNextChunk();
         }
     }
 
+    // how far along y the centre of the ith chunk in view is drawn, in world units
+    public float getChunkY(int i)
+    {
+        return ((i - scroll) * WorldChunk.CHUNK_H + SCROLL_OFFSET) * WorldChunk.TILE_SIZE;
+    }
+
+    // column of tiles x is over, which may be off the terrain
+    private static int tileX(float x)
+    {
+        return (int)Math.floor(x / WorldChunk.TILE_SIZE + WorldChunk.CHUNK_W / 2.f);
+    }
+
+    // row of tiles of the ith chunk in view that y is over, which may be off the chunk
+    private int tileY(int i, float y)
+    {
+        return (int)Math.floor((y - getChunkY(i)) / WorldChunk.TILE_SIZE + WorldChunk.CHUNK_H / 2.f + 0.5f);
+    }
+
+    // Height of the top of the tile under (x, y), or of the bottom of the
+    // terrain off its edges.
+    @Override
+    public float getHeight(float x, float y)
+    {
+        final int tx = tileX(x);
+        if (tx >= 0 && tx < WorldChunk.CHUNK_W)
+        {
+            for (int c = 0; c < NUM_CHUNKS; c++)
+            {
+                int ty = tileY(c, y);
+                if (ty >= 0 && ty < WorldChunk.CHUNK_H)
+                    return chunks[c].getTerrain().getHeight(tx, ty) * WorldChunk.TILE_SIZE;
+            }
+        }
+        return WorldTile.BASE_Z * WorldChunk.TILE_SIZE;
+    }
+
+    @Override
+    public float getMaxHeight(float minX, float minY, float maxX, float maxY)
+    {
+        float result = WorldTile.BASE_Z;
+        final int x0 = Math.max(0, tileX(minX)), x1 = Math.min(WorldChunk.CHUNK_W - 1, tileX(maxX));
+        if (x0 <= x1)
+        {
+            for (int c = 0; c < NUM_CHUNKS; c++)
+            {
+                int y0 = Math.max(0, tileY(c, minY)), y1 = Math.min(WorldChunk.CHUNK_H - 1, tileY(c, maxY));
+                if (y0 <= y1)
+                    result = Math.max(result, chunks[c].getHeights().getMaxHeight(x0, y0, x1, y1));
+            }
+        }
+        return result * WorldChunk.TILE_SIZE;
+    }
+
+    @Override
+    public float getVelocityY() {return groundVelocity;}
+
+    // Use the region the camera can see to skip terrain and decorations
+    // outside it. The volume is read each frame, so it can be updated in place.
+    public void setViewVolume(ViewVolume v)
+    {
+        view = v;
+    }
+
+    // the ith chunk currently in view
+    public WorldChunk getChunk(int i) {return chunks[i];}
+    // index of the first chunk in view
+    public int getFirstChunkIndex() {return firstIndex;}
+    public ChunkCache getCache() {return cache;}
+    public long getSeed() {return seed;}
+
+    // number of chunks generated on the generator thread
+    public synchronized int getNumChunksGenerated() {return chunksGenerated;}
+    // number of times a chunk was needed before it had been generated
+    public int getNumChunksLate() {return chunksLate;}
+    // number of chunks made again after being dropped from the cache
+    public int getNumChunksRegenerated() {return chunksRegenerated;}
+    public synchronized float getLastGenerationMillis() {return lastGenNanos / 1e6f;}
+    public synchronized float getMaxGenerationMillis() {return maxGenNanos / 1e6f;}
+    public synchronized float getAverageGenerationMillis()
+    {
+        return chunksGenerated == 0 ? 0.f : totalGenNanos / 1e6f / chunksGenerated;
+    }
+
+    // block until the next chunk has been generated
+    public void awaitNextChunk() throws InterruptedException, ExecutionException
+    {
+        if (nextChunk != null)
+            nextChunk.get();
+    }
+
+    public void printDebugInfo()
+    {
+        System.out.printf("""
+                Chunks generated: %d (%d late, %d regenerated), first chunk %d
+                Chunk generation: %.2fms last, %.2fms average, %.2fms max
+                Chunk cache: %d chunks, %.1f/%.1fMB, %d hits, %d misses, %d evicted
+                Terrain bands drawn: %d/%d
+                """, getNumChunksGenerated(), chunksLate, chunksRegenerated, firstIndex,
+                getLastGenerationMillis(), getAverageGenerationMillis(), getMaxGenerationMillis(),
+                cache.size(), cache.getBytes() / 1048576.f, cache.getMaxBytes() / 1048576.f,
+                cache.getHits(), cache.getMisses(), cache.getEvictions(),
+                bandsDrawn, NUM_CHUNKS * TerrainLod.NUM_BANDS);
+    }
+
     public void cycleBiome()
     {
         switch(this.biome)
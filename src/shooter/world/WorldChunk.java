@@ -1,297 +1,187 @@
 package shooter.world;
 
-import shooter.GameSketch;
-import shooter.Textures;
+import shooter.GameRandom;
+import shooter.RenderBackend;
+import shooter.ViewVolume;
 
 import java.util.LinkedList;
 import java.util.List;
 
-import static shooter.GameMath.randRange;
-
 public class WorldChunk
 {
     public static final int
             CHUNK_W = 44,
             CHUNK_H = 36;
     public static final float TILE_SIZE = 0.2f;
-    private static final int
-            HILL_SIZE = 17; // length & width of a hill in tiles
 
-    // tiles that constitute this chunk
-    private final WorldTile[] tiles;
-    // height map used to generate tiles
-    private final float[][] tileHeights;
+    private final Biome biome;
+    // heights and materials of this chunk's tiles
+    private final TileGrid terrain;
     // 3D scenery objects
     private final List<WorldObject> decorations;
+    // tops and sides of the tiles in bands at each level of detail, baked once the terrain is generated
+    private final TerrainLod lod;
+    // lowest and highest tiles of the terrain, for finding the ground under things quickly
+    private final HeightPyramid heights;
+    // the whole terrain as one mesh, made the first time it's asked for
+    private Mesh mesh;
+
+
+    // Generate the chunk with this index in a world, with stamped hills,
+    // following a chunk of the same biome. A chunk only depends on its
+    // arguments, so chunks can be made in any order, on any thread, and be
+    // thrown away and made again.
+    public WorldChunk(long seed, int index, Biome biome)
+    {
+        this(seed, index, biome, biome, TerrainGenerator.STAMPED);
+    }
 
+    // Generate the chunk with this index in a world, with its ground made by
+    // the given generator, following a chunk of the same biome.
+    public WorldChunk(long seed, int index, Biome biome, TerrainGenerator generator)
+    {
+        this(seed, index, biome, biome, generator);
+    }
 
-    public WorldChunk(Biome biome, float[][] prevHeightMap)
+    // Generate the chunk with this index in a world, following a chunk of
+    // prevBiome, with its ground made by the given generator. prevBiome is
+    // null if nothing of the previous chunk's ground reaches into this one.
+    public WorldChunk(long seed, int index, Biome biome, Biome prevBiome, TerrainGenerator generator)
     {
-        tiles = new WorldTile[CHUNK_W * CHUNK_H];
-        tileHeights = new float[CHUNK_W][CHUNK_H + HILL_SIZE];
+        TileMaterial ground = switch (biome) {
+            case HILLS -> TileMaterial.HILLS;
+            case DESERT -> TileMaterial.DESERT;
+            case ICE -> TileMaterial.SNOW;
+        };
+        this.biome = biome;
+        terrain = new TileGrid(CHUNK_W, CHUNK_H, ground);
         decorations = new LinkedList<>();
 
-        if (prevHeightMap != null)
-        {
-            for (int x = 0; x < CHUNK_W; x++)
-            {
-                System.arraycopy(prevHeightMap[x], CHUNK_H, tileHeights[x], 0, HILL_SIZE);
-            }
-        }
-
         // generate terrain
+        GameRandom rand = GameRandom.forKey(seed, index);
+        generator.generate(terrain, seed, index, biome, prevBiome, rand);
+        if (biome == Biome.ICE)
+            generateMesas(rand);
+        terrain.quantizeHeights();
+
+        // generate decorations, which may stand on the finished terrain
         switch (biome) {
-            case HILLS -> generateHills();
-            case DESERT -> generateDesert();
-            case ICE -> generateIce();
+            case DESERT -> generateDesert(rand);
+            case ICE -> generateSnowmen(rand);
         }
+
+        lod = new TerrainLod(terrain);
+        heights = new HeightPyramid(terrain);
     }
 
-    private void generateHills()
+    // A chunk made from terrain and decorations which have already been
+    // generated, e.g. read from a chunk file.
+    WorldChunk(Biome biome, TileGrid terrain, List<WorldObject> decorations)
     {
-        final int MIN_HILLS = 8, MAX_HILLS = 12;
-        final float HILL_MIN_HEIGHT = 1.f, HILL_MAX_HEIGHT = 4.f;
-
-        int numHills = (int)(Math.random() * (MAX_HILLS - MIN_HILLS + 1)) + MIN_HILLS;
-        // generate hills, place in height map
-        for (int h = 0; h < numHills; h++)
-        {
-            int xOff = (int)randRange(-HILL_SIZE, CHUNK_W);
-            int yOff = (int)(Math.random() * CHUNK_H);
-            hillGenerator(xOff, yOff, HILL_MIN_HEIGHT, HILL_MAX_HEIGHT);
-        }
-
-        // using the heightmap we generated, generate the chunk's tiles
-        for (int x = 0; x < CHUNK_W; x++)
-            for (int y = 0; y < CHUNK_H; y++)
-                tiles[x + y * CHUNK_W] = new WorldTile (
-                        tileHeights[x][y],
-                        Textures.HILLS_GRASS,
-                        Textures.HILLS_DIRT);
+        this.biome = biome;
+        this.terrain = terrain;
+        this.decorations = decorations;
+        lod = new TerrainLod(terrain);
+        heights = new HeightPyramid(terrain);
     }
 
-    private void generateDesert() {
-        final int MIN_HILLS = 4, MAX_HILLS = 8, NUM_PILLARS = 2, NUM_PYRAMIDS = 2;
-        final float HILL_MIN_HEIGHT = 0.f, HILL_MAX_HEIGHT = 0.5f;
-
-        int numHills = (int) (Math.random() * (MAX_HILLS - MIN_HILLS + 1)) + MIN_HILLS;
-        // generate hills, place in height map
-        for (int h = 0; h < numHills; h++) {
-            int xOff = (int)randRange(-HILL_SIZE, CHUNK_W);
-            int yOff = (int)(Math.random() * CHUNK_H);
-            hillGenerator(xOff, yOff, HILL_MIN_HEIGHT, HILL_MAX_HEIGHT);
-        }
-
-        // using the heightmap we generated, generate the chunk's tiles
-        for (int x = 0; x < CHUNK_W; x++)
-        {
-            for (int y = 0; y < CHUNK_H; y++) {
-                tiles[x + y * CHUNK_W] = new WorldTile(
-                        tileHeights[x][y],
-                        Textures.DESERT_SAND,
-                        Textures.DESERT_SANDSTONE
-                );
-            }
-        }
+    private void generateDesert(GameRandom rand) {
+        final int NUM_PILLARS = 2, NUM_PYRAMIDS = 2;
 
         // generate WorldObjects
         for (int i = 0; i < NUM_PILLARS; i++)
-            decorations.add(new Pillar());
+            decorations.add(new Pillar(rand));
         for (int i = 0; i < NUM_PYRAMIDS; i++)
-            decorations.add(new Pyramid());
+            decorations.add(new Pyramid(rand));
     }
 
-    private void generateIce()
+    private void generateMesas(GameRandom rand)
     {
-        final int MIN_HILLS = 6, MAX_HILLS = 12,
-                MIN_MESAS = 1, MAX_MESAS = 2,
-                NUM_SNOWMEN = 2;
-        final float HILL_MIN_HEIGHT = 0.25f, HILL_MAX_HEIGHT = 1.f, MESA_HEIGHT = 3.f;
+        final int MIN_MESAS = 1, MAX_MESAS = 2;
+        final float MESA_HEIGHT = 3.f;
 
-        // generate hills
-        int numHills = (int) (Math.random() * (MAX_HILLS - MIN_HILLS + 1)) + MIN_HILLS;
-        for (int h = 0; h < numHills; h++)
-        {
-            int xOff = (int)randRange(-HILL_SIZE, CHUNK_W);
-            int yOff = (int)(Math.random() * CHUNK_H);
-            hillGenerator(xOff, yOff, HILL_MIN_HEIGHT, HILL_MAX_HEIGHT);
-        }
-
-        // generate tiles with tilemap
-        for (int x = 0; x < CHUNK_W; x++)
-        {
-            for (int y = 0; y < CHUNK_H; y++) {
-                tiles[x + y * CHUNK_W] = new WorldTile(
-                        tileHeights[x][y],
-                        Textures.ICE_SNOW,
-                        Textures.ICE_SNOW
-                );
-            }
-        }
-
-        // generate mesas with ice walls, replace existing tiles with them
-        int numMesas = (int) (Math.random() * (MAX_MESAS - MIN_MESAS + 1)) + MIN_MESAS;
+        // generate mesas with ice walls, raise the existing tiles to them
+        int numMesas = rand.nextInt(MAX_MESAS - MIN_MESAS + 1) + MIN_MESAS;
         for (int m = 0; m < numMesas; m++)
         {
-            float[][] mesa = MesaGenerator.generateMesa(0.f, MESA_HEIGHT);
-            int xOff = (int)(Math.random() * (CHUNK_W - mesa[0].length));
-            int yOff = (int)(Math.random() * (CHUNK_H - mesa.length));
-            for (int y = 0; y < mesa.length; y++)
-            {
-                for (int x = 0; x < mesa[0].length; x++)
-                {
-                    WorldTile t = tiles[x + xOff + (y + yOff) * CHUNK_W];
-                    t.increaseHeight(mesa[y][x]);
-                    t.sideTexture = Textures.ICE_WALL;
-                }
-            }
+            int mesa = rand.nextInt(TerrainStamps.getNumMesas());
+            int xOff = (int)(rand.nextDouble() * (CHUNK_W - TerrainStamps.getMesaWidth(mesa)));
+            int yOff = (int)(rand.nextDouble() * (CHUNK_H - TerrainStamps.getMesaLength(mesa)));
+            TerrainStamps.stampMesa(terrain, mesa, xOff, yOff, MESA_HEIGHT, TileMaterial.ICE_WALL);
         }
+    }
 
+    private void generateSnowmen(GameRandom rand)
+    {
+        final int NUM_SNOWMEN = 2;
         for (int s = 0; s < NUM_SNOWMEN; s++)
-            decorations.add(new Snowman(tiles));
+            decorations.add(new Snowman(terrain, rand));
     }
 
-    public float[][] getHeightMap()
+    public Biome getBiome()
     {
-        return tileHeights;
+        return biome;
     }
 
-    private void hillGenerator(int xOffset, int yOffset, float minHeight, float maxHeight)
+    // the chunk's tiles
+    public TileGrid getTerrain()
     {
-        final float HEIGHT_VARIATION = 0.5f;
-        final float[][] heightMap = new float[HILL_SIZE][HILL_SIZE];
-
-        // initialize four corners to zero and centre to random height
-        heightMap[HILL_SIZE / 2][HILL_SIZE / 2] = (float)(Math.random() * (maxHeight - minHeight) + minHeight);
-
-        // perform diamond-square algorithm
-        int currSize = HILL_SIZE / 2;
-        float currRand = HEIGHT_VARIATION;
-        while (currSize > 1)
-        {
-            int halfSize = currSize / 2;
-
-            // diamond step
-            for (int x = 0; x < HILL_SIZE - 1; x += currSize)
-            {
-                for (int y = 0; y < HILL_SIZE - 1; y += currSize)
-                {
-                    float currHeight = heightMap[x][y]
-                            + heightMap[x + currSize][y]
-                            + heightMap[x][y + currSize]
-                            + heightMap[x + currSize][y + currSize];
-                    currHeight = currHeight / 4.f + (float)(Math.random() * currRand * 2) - currRand;
-                    heightMap[x + halfSize][y + halfSize] = currHeight;
-                }
-            }
-
-            // square step
-            for (int x = 0; x < HILL_SIZE - 1; x += halfSize)
-            {
-                for (int y = (x + halfSize) % currSize; y < HILL_SIZE - 1; y += currSize)
-                {
-                    float currHeight;
-                    // left neighbor
-                    currHeight = x < halfSize ? 0 : heightMap[x - halfSize][y];
-                    // right neighbor
-                    currHeight += x + halfSize >= HILL_SIZE ? 0 : heightMap[x + halfSize][y];
-                    // top neighbor
-                    currHeight += y < halfSize ? 0 : heightMap[x][y - halfSize];
-                    // bottom neighbor
-                    currHeight += y + halfSize >= HILL_SIZE ? 0 : heightMap[x][y + halfSize];
+        return terrain;
+    }
 
-                    currHeight = currHeight / 4.f + (float)(Math.random() * currRand * 2) - currRand;
-                    heightMap[x][y] = currHeight;
-                }
-            }
+    public WorldTile getTile(int x, int y)
+    {
+        return terrain.getTile(x, y);
+    }
 
-            // decrease size of area and variation
-            currRand /= 2.f;
-            currSize /= 2;
-        }
+    // 3D scenery objects standing on the chunk, which shouldn't be changed
+    public List<WorldObject> getDecorations()
+    {
+        return decorations;
+    }
 
-        // re-generate height for centre tile with heights of its neighbors
-        // otherwise, the centre tile looks far too tall
-        int mid = HILL_SIZE / 2;
-        float centre = heightMap[mid-1][mid]
-                + heightMap[mid+1][mid]
-                + heightMap[mid][mid-1]
-                + heightMap[mid][mid+1];
-        centre = centre / 4.f + (float)Math.random() * HEIGHT_VARIATION;
-        heightMap[mid][mid] = centre;
+    // The whole terrain as one mesh, for tools and tests; chunks are drawn
+    // from their bands. Made on the calling thread the first time it's
+    // asked for, so it shouldn't be asked for by two threads at once.
+    public Mesh getMesh()
+    {
+        if (mesh == null)
+            mesh = TerrainMesher.mesh(terrain);
+        return mesh;
+    }
 
-        // dump heightMap to this chunk's tile map
-        // clamp x and y indexes to start of dest
-        // break if x or y go beyond end of dest
-        for (int x = Math.max(0, -xOffset); x < HILL_SIZE; x++)
-        {
-            int destX = x + xOffset;
-            if (destX >= CHUNK_W)
-                break;
+    public TerrainLod getLod()
+    {
+        return lod;
+    }
 
-            for (int y = Math.max(0, -yOffset); y < HILL_SIZE; y++)
-            {
-                int destY = y + yOffset;
-                if (destY >= CHUNK_H + HILL_SIZE)
-                    break;
+    public HeightPyramid getHeights()
+    {
+        return heights;
+    }
 
-                float newHeight = heightMap[x][y];
-                if (newHeight > this.tileHeights[destX][destY])
-                    this.tileHeights[destX][destY] = newHeight;
-            }
-        }
+    // Roughly how much memory the chunk's terrain and meshes take. The whole
+    // terrain's mesh isn't counted, since it's only made for tools and tests.
+    public long getMemoryBytes()
+    {
+        return terrain.getMemoryBytes() + lod.getMemoryBytes() + heights.getMemoryBytes();
     }
 
-    // Draw the objects and tiles of this chunk.
-    // The tops of each tile are drawn before the
-    // sides to minimize how many times the current
-    // texture needs to be switched.
+    // Draw the objects and bands of tiles of this chunk which may be visible,
+    // with each band at the given level of detail and the chunk's centre at
+    // chunkY along y, in world units. Returns the number of bands drawn.
     // Precondition: The current matrix is scaled to
     // the size of one WorldTile.
-    public void drawChunk(GameSketch gs)
+    public int drawChunk(RenderBackend r, int[] levels, ViewVolume view, float chunkY)
     {
-        drawWorldObjects(gs);
-
-        // draw the tops of each tile
-        gs.pushMatrix();
-        // begin drawing in the lower left (-ve x, -ve y)
-        gs.translate(-CHUNK_W/2.f + 0.5f, -CHUNK_H/2.f, 0.f);
-        // draw each row, bottom-to-top
-        for (int y = 0; y < CHUNK_H; y++)
-        {
-            gs.pushMatrix();
-            for (int x = 0; x < CHUNK_W; x++)
-            {
-                tiles[y * CHUNK_W + x].drawTop(gs);
-                gs.translate(1.f, 0.f, 0.f);
-            }
-            // carriage return
-            gs.popMatrix();
-            // line feed
-            gs.translate(0.f, 1.f, 0.f);
-        }
-        gs.popMatrix();
-
-        // do same algorithm as above, but for the sides of each tile
-        gs.pushMatrix();
-        gs.translate(-CHUNK_W/2.f + 0.5f, -CHUNK_H/2.f, 0.f);
-        for (int y = 0; y < CHUNK_H; y++)
-        {
-            gs.pushMatrix();
-            for (int x = 0; x < CHUNK_W; x++)
-            {
-                tiles[y * CHUNK_W + x].drawSides(gs);
-                gs.translate(1.f, 0.f, 0.f);
-            }
-            gs.popMatrix();
-            gs.translate(0.f, 1.f, 0.f);
-        }
-        gs.popMatrix();
+        drawWorldObjects(r, view, chunkY);
+        return lod.draw(r, levels, view, chunkY);
     }
 
-    private void drawWorldObjects(GameSketch gs)
+    private void drawWorldObjects(RenderBackend r, ViewVolume view, float chunkY)
     {
         for (WorldObject o : decorations)
-            o.draw(gs);
+            if (o.isVisible(view, chunkY))
+                o.draw(r);
     }
 }
@@ -1,6 +1,7 @@
 package shooter.world;
 
-import shooter.GameSketch;
+import shooter.RenderBackend;
+import shooter.ViewVolume;
 
 public abstract class WorldObject
 {
@@ -24,5 +25,28 @@ public abstract class WorldObject
         Z_ANGLE = ang;
     }
 
-    public abstract void draw(GameSketch gs);
+    // where the object stands on its chunk and how it's turned, in tiles and radians
+    public float getXOffset() {return X_OFF;}
+    public float getYOffset() {return Y_OFF;}
+    public float getZAngle() {return Z_ANGLE;}
+    // how high it goes, from the bottom to the top, in tiles
+    public float getBaseZ() {return BASE_Z;}
+    public float getTopZ() {return TOP_Z;}
+
+    // how far the object reaches from (X_OFF, Y_OFF) in any direction, in tiles
+    protected abstract float getRadius();
+
+    // True if any of the object may be visible, with its chunk's centre at
+    // chunkY along y, in world units.
+    public boolean isVisible(ViewVolume view, float chunkY)
+    {
+        final float t = WorldChunk.TILE_SIZE, r = getRadius();
+        return view.intersects((X_OFF - r) * t, chunkY + (Y_OFF - r) * t, BASE_Z * t,
+                (X_OFF + r) * t, chunkY + (Y_OFF + r) * t, TOP_Z * t);
+    }
+
+    // the mesh every object of this type is drawn from
+    public abstract Mesh getMesh();
+
+    public abstract void draw(RenderBackend r);
 }
@@ -0,0 +1,43 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.world.Biome;
+import shooter.world.ChunkCache;
+import shooter.world.WorldChunk;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestChunkCache
+{
+    @Test
+    public void TestEvictsLeastRecentlyUsed()
+    {
+        // the same chunk made four times, so they're all the same size
+        WorldChunk[] chunks = new WorldChunk[4];
+        for (int i = 0; i < chunks.length; i++)
+            chunks[i] = new WorldChunk(3, 0, Biome.DESERT);
+        long size = chunks[0].getMemoryBytes();
+
+        // room for two of the chunks, but not three
+        ChunkCache cache = new ChunkCache(size * 2 + size / 2);
+        cache.put(0, chunks[0]);
+        cache.put(1, chunks[1]);
+        // using chunk 0 makes chunk 1 the least recently used
+        assertSame(chunks[0], cache.get(0));
+        cache.put(2, chunks[2]);
+        assertTrue(cache.getBytes() <= cache.getMaxBytes());
+
+        assertTrue(cache.contains(2));
+        assertFalse(cache.contains(1));
+        assertNull(cache.get(1));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+
+        // nothing fits in an empty cache
+        ChunkCache none = new ChunkCache(0);
+        none.put(3, chunks[3]);
+        assertEquals(0, none.size());
+        assertEquals(0, none.getBytes());
+        assertThrows(IllegalArgumentException.class, () -> new ChunkCache(-1));
+    }
+}
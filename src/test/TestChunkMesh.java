@@ -0,0 +1,131 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.Textures;
+import shooter.world.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestChunkMesh
+{
+    private static final int
+            W = WorldChunk.CHUNK_W,
+            H = WorldChunk.CHUNK_H,
+            QUAD_VERTICES = 6; // two triangles
+    private static final float EPSILON = 0.0001f;
+
+    @Test
+    public void TestGroupsByTexture()
+    {
+        Mesh mesh = new WorldChunk(1, 0, Biome.HILLS).getMesh();
+        assertEquals(2, mesh.getNumGroups());
+        assertSame(Textures.HILLS_GRASS, mesh.getTexture(0));
+        assertSame(Textures.HILLS_DIRT, mesh.getTexture(1));
+
+        // tops and sides of snow tiles share one group, mesa walls have their own
+        Mesh ice = new WorldChunk(1, 1, Biome.ICE).getMesh();
+        assertEquals(2, ice.getNumGroups());
+        assertSame(Textures.ICE_SNOW, ice.getTexture(0));
+        assertSame(Textures.ICE_WALL, ice.getTexture(1));
+    }
+
+    @Test
+    public void TestFlatChunk()
+    {
+        TileGrid grid = new TileGrid(W, H, TileMaterial.DESERT);
+        for (int y = 0; y < H; y++)
+            for (int x = 0; x < W; x++)
+                grid.setHeight(x, y, 1.f);
+        Mesh mesh = TerrainMesher.mesh(grid);
+
+        // one top covering the chunk, with the texture repeated once per tile
+        assertEquals(QUAD_VERTICES, mesh.getNumVertices(0));
+        float maxU = 0.f, maxV = 0.f;
+        for (int v = 0; v < QUAD_VERTICES; v++)
+        {
+            maxU = Math.max(maxU, mesh.getVertices(0)[v * Mesh.STRIDE + Mesh.V_U]);
+            maxV = Math.max(maxV, mesh.getVertices(0)[v * Mesh.STRIDE + Mesh.V_V]);
+        }
+        assertEquals(W, maxU);
+        assertEquals(H, maxV);
+
+        // only the sides around the edge of the chunk
+        assertEquals(2 * (W + H) * QUAD_VERTICES, mesh.getNumVertices(1));
+    }
+
+    @Test
+    public void TestMatchesTiles()
+    {
+        for (Biome biome : Biome.values())
+        {
+            for (int c = 0; c < 5; c++)
+            {
+                WorldChunk chunk = new WorldChunk(2, c, biome);
+                TileGrid terrain = chunk.getTerrain();
+                Mesh mesh = chunk.getMesh();
+
+                // every tile's top is covered by exactly one top quad at its height
+                int[] coverage = new int[W * H];
+                float sideArea = 0.f;
+                for (int g = 0; g < mesh.getNumGroups(); g++)
+                {
+                    float[] v = mesh.getVertices(g);
+                    for (int q = 0; q < v.length; q += QUAD_VERTICES * Mesh.STRIDE)
+                    {
+                        float minX = Float.MAX_VALUE, maxX = -Float.MAX_VALUE,
+                              minY = Float.MAX_VALUE, maxY = -Float.MAX_VALUE,
+                              minZ = Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+                        for (int i = q; i < q + QUAD_VERTICES * Mesh.STRIDE; i += Mesh.STRIDE)
+                        {
+                            minX = Math.min(minX, v[i + Mesh.V_X]); maxX = Math.max(maxX, v[i + Mesh.V_X]);
+                            minY = Math.min(minY, v[i + Mesh.V_Y]); maxY = Math.max(maxY, v[i + Mesh.V_Y]);
+                            minZ = Math.min(minZ, v[i + Mesh.V_Z]); maxZ = Math.max(maxZ, v[i + Mesh.V_Z]);
+                        }
+
+                        if (minZ == maxZ)
+                        {
+                            int x0 = Math.round(minX + W / 2.f), x1 = Math.round(maxX + W / 2.f),
+                                y0 = Math.round(minY + H / 2.f + 0.5f), y1 = Math.round(maxY + H / 2.f + 0.5f);
+                            for (int y = y0; y < y1; y++)
+                            {
+                                for (int x = x0; x < x1; x++)
+                                {
+                                    coverage[x + y * W]++;
+                                    assertEquals(terrain.getHeight(x, y), minZ);
+                                }
+                            }
+                        }
+                        else
+                        {
+                            // sides are one tile wide
+                            assertEquals(1.f, Math.max(maxX - minX, maxY - minY), EPSILON);
+                            sideArea += maxZ - minZ;
+                        }
+                    }
+                }
+                for (int count : coverage)
+                    assertEquals(1, count);
+
+                // the sides show every step between neighbouring tiles
+                float expected = 0.f;
+                for (int y = 0; y < H; y++)
+                {
+                    for (int x = 0; x < W; x++)
+                    {
+                        float h = terrain.getHeight(x, y);
+                        expected += exposed(h, y > 0 ? terrain.getHeight(x, y - 1) : WorldTile.BASE_Z);
+                        expected += exposed(h, y < H - 1 ? terrain.getHeight(x, y + 1) : WorldTile.BASE_Z);
+                        expected += exposed(h, x > 0 ? terrain.getHeight(x - 1, y) : WorldTile.BASE_Z);
+                        expected += exposed(h, x < W - 1 ? terrain.getHeight(x + 1, y) : WorldTile.BASE_Z);
+                    }
+                }
+                assertEquals(expected, sideArea, expected * EPSILON);
+            }
+        }
+    }
+
+    private static float exposed(float height, float neighbour)
+    {
+        return Math.max(0.f, height - Math.max(neighbour, WorldTile.BASE_Z));
+    }
+}
@@ -0,0 +1,112 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shooter.world.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestChunkStore
+{
+    private static final long SEED = 5;
+
+    @Test
+    public void TestRoundTrip(@TempDir Path dir) throws Exception
+    {
+        List<WorldChunk> chunks = new ArrayList<>();
+        for (Biome biome : Biome.values())
+            for (int c = 0; c < 3; c++)
+                chunks.add(new WorldChunk(SEED, c, biome));
+        Path file = dir.resolve("chunks.bin");
+        ChunkStore.write(file, SEED, chunks);
+
+        ChunkStore store = ChunkStore.open(file);
+        assertEquals(SEED, store.getSeed());
+        assertEquals(chunks.size(), store.getNumChunks());
+        int[] decorations = new int[Biome.values().length];
+        // read out of order, as a world scrolling back would
+        for (int i = chunks.size() - 1; i >= 0; i--)
+        {
+            WorldChunk expected = chunks.get(i), actual = store.read(i);
+            assertSame(expected.getBiome(), actual.getBiome());
+            assertSame(expected.getBiome(), store.getBiome(i));
+
+            TileGrid a = expected.getTerrain(), b = actual.getTerrain();
+            assertEquals(a.getNumMaterials(), b.getNumMaterials());
+            for (int y = 0; y < WorldChunk.CHUNK_H; y++)
+            {
+                for (int x = 0; x < WorldChunk.CHUNK_W; x++)
+                {
+                    assertEquals(a.getHeight(x, y), b.getHeight(x, y));
+                    assertEquals(a.getMaterialIndex(x, y), b.getMaterialIndex(x, y));
+                    assertSame(a.getMaterial(x, y), b.getMaterial(x, y));
+                }
+            }
+
+            // every decoration is the same type, in the same place
+            List<WorldObject> d = expected.getDecorations(), e = actual.getDecorations();
+            assertEquals(d.size(), e.size());
+            decorations[expected.getBiome().ordinal()] += d.size();
+            for (int o = 0; o < d.size(); o++)
+            {
+                WorldObject before = d.get(o), after = e.get(o);
+                assertSame(before.getClass(), after.getClass());
+                assertEquals(before.getXOffset(), after.getXOffset());
+                assertEquals(before.getYOffset(), after.getYOffset());
+                assertEquals(before.getZAngle(), after.getZAngle());
+                assertEquals(before.getBaseZ(), after.getBaseZ());
+                assertEquals(before.getTopZ(), after.getTopZ());
+            }
+
+            // the baked meshes are identical too
+            Mesh m = expected.getMesh(), n = actual.getMesh();
+            assertEquals(m.getNumGroups(), n.getNumGroups());
+            for (int g = 0; g < m.getNumGroups(); g++)
+            {
+                assertSame(m.getTexture(g), n.getTexture(g));
+                assertArrayEquals(m.getVertices(g), n.getVertices(g));
+            }
+        }
+        // hills have none, deserts have pillars and pyramids, ice has snowmen
+        assertEquals(0, decorations[Biome.HILLS.ordinal()]);
+        assertTrue(decorations[Biome.DESERT.ordinal()] > 0);
+        assertTrue(decorations[Biome.ICE.ordinal()] > 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> store.read(chunks.size()));
+    }
+
+    @Test
+    public void TestWorldFromStore(@TempDir Path dir) throws Exception
+    {
+        final int CHUNKS = 3;
+        List<WorldChunk> chunks = new ArrayList<>();
+        for (int c = 0; c < CHUNKS; c++)
+            chunks.add(new WorldChunk(SEED, c, Biome.DESERT));
+        Path file = dir.resolve("desert.bin");
+        ChunkStore.write(file, SEED, chunks);
+
+        // the world plays the stored chunks, then starts them again
+        World world = new World(ChunkStore.open(file), 0);
+        assertEquals(SEED, world.getSeed());
+        for (int c = 0; c < 2 * CHUNKS; c++)
+        {
+            assertArrayEquals(chunks.get(c % CHUNKS).getMesh().getVertices(0),
+                    world.getChunk(0).getMesh().getVertices(0));
+            world.awaitNextChunk();
+            world.scrollWorld(1.f);
+        }
+    }
+
+    @Test
+    public void TestRejectsOtherFiles(@TempDir Path dir) throws Exception
+    {
+        Path file = dir.resolve("not-chunks.bin");
+        Files.write(file, new byte[64]);
+        assertThrows(IOException.class, () -> ChunkStore.open(file));
+    }
+}
@@ -0,0 +1,44 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.GameRandom;
+import shooter.world.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestDecorations
+{
+    @Test
+    public void TestSharedMeshes()
+    {
+        GameRandom rand = GameRandom.forKey(6, 0);
+        TileGrid terrain = new TileGrid(WorldChunk.CHUNK_W, WorldChunk.CHUNK_H, TileMaterial.SNOW);
+
+        // every object of a type draws the same mesh
+        assertSame(new Pillar(rand).getMesh(), new Pillar(rand).getMesh());
+        assertSame(new Pyramid(rand).getMesh(), new Pyramid(rand).getMesh());
+        Snowman snowman = new Snowman(terrain, rand);
+        assertSame(snowman.getMesh(), new Snowman(terrain, rand).getMesh());
+
+        // pillars have a textured top and sides, pyramids four textured sides
+        assertEquals(2, new Pillar(rand).getMesh().getNumGroups());
+        assertEquals(2 + 8, new Pillar(rand).getMesh().getNumTriangles());
+        assertEquals(4, new Pyramid(rand).getMesh().getNumTriangles());
+
+        // snowmen are coloured, not textured: two balls of 45 triangles and a hat of 22
+        Mesh mesh = snowman.getMesh();
+        assertEquals(1, mesh.getNumGroups());
+        assertNull(mesh.getTexture(0));
+        assertEquals(2 * 45 + 22, mesh.getNumTriangles());
+        // standing on the ground, up to the top of the hat
+        float minZ = Float.MAX_VALUE, maxZ = -Float.MAX_VALUE;
+        float[] v = mesh.getVertices(0);
+        for (int i = 0; i < v.length; i += Mesh.STRIDE)
+        {
+            minZ = Math.min(minZ, v[i + Mesh.V_Z]);
+            maxZ = Math.max(maxZ, v[i + Mesh.V_Z]);
+        }
+        assertEquals(0.f, minZ, 1e-6f);
+        assertEquals(2.f, maxZ, 1e-6f);
+    }
+}
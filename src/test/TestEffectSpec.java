@@ -0,0 +1,55 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.particles.EffectFactory;
+import shooter.particles.EffectSpec;
+import shooter.particles.ParticleEmitter;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestEffectSpec
+{
+    @Test
+    public void TestEffectsLoaded()
+    {
+        EffectSpec[] specs = EffectFactory.loadEffects("res/effects.properties");
+        assertEquals(EffectFactory.getNumEffects(), specs.length);
+        // ids follow alphabetical order of the effects' names
+        for (int i = 1; i < specs.length; i++)
+        {
+            assertEquals(i, specs[i].getId());
+            assertTrue(specs[i - 1].getName().compareTo(specs[i].getName()) < 0);
+        }
+
+        // bursts need room for every particle, sustained emitters for 1.5 lifespans' worth
+        assertEquals(150, EffectFactory.EXPLOSION.getCapacity());
+        assertEquals(200, EffectFactory.DEBRIS.getCapacity());
+        assertEquals(25, EffectFactory.BULLET_SPARK.getCapacity());
+        assertEquals(ParticleEmitter.Type.SUSTAINED, EffectFactory.ENGINE.getType());
+        assertEquals(91, EffectFactory.ENGINE.getCapacity());
+    }
+
+    @Test
+    public void TestMalformedEffects()
+    {
+        Properties props = new Properties();
+        props.setProperty("spark.type", "BURST");
+        props.setProperty("spark.shape", "DIAMOND");
+        props.setProperty("spark.particles", "10");
+        // missing lifespan
+        assertThrows(IllegalArgumentException.class, () -> EffectFactory.parseEffects(props));
+
+        props.setProperty("spark.particleLifespan", "100");
+        props.setProperty("spark.vel", "1, 2");
+        assertThrows(IllegalArgumentException.class, () -> EffectFactory.parseEffects(props));
+
+        props.setProperty("spark.vel", "1, 2, 3");
+        props.setProperty("spark.texture", "NOT_A_TEXTURE");
+        assertThrows(IllegalArgumentException.class, () -> EffectFactory.parseEffects(props));
+
+        props.setProperty("spark.texture", "SPARK");
+        assertEquals(1, EffectFactory.parseEffects(props).length);
+    }
+}
@@ -0,0 +1,52 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.GameMath;
+import shooter.GameRandom;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestGameRandom
+{
+    private static final int NUM_SAMPLES = 1000;
+
+    private static float[] sample(GameRandom rand)
+    {
+        float[] result = new float[NUM_SAMPLES];
+        for (int i = 0; i < NUM_SAMPLES; i++)
+            result[i] = rand.nextFloat();
+        return result;
+    }
+
+    @Test
+    public void TestSeedReproducible()
+    {
+        GameRandom.seedAll(1234L);
+        float[] world = sample(GameRandom.WORLD), particles = sample(GameRandom.PARTICLES);
+        GameRandom.seedAll(1234L);
+        // drawing from one stream doesn't change another's sequence
+        float[] particlesFirst = sample(GameRandom.PARTICLES), worldSecond = sample(GameRandom.WORLD);
+
+        assertArrayEquals(world, worldSecond);
+        assertArrayEquals(particles, particlesFirst);
+        assertFalse(Arrays.equals(world, particles));
+        assertEquals(1234L, GameRandom.getSeed());
+    }
+
+    @Test
+    public void TestRanges()
+    {
+        GameRandom.seedAll(99L);
+        for (int i = 0; i < NUM_SAMPLES * 10; i++)
+        {
+            float f = GameRandom.SPAWNING.nextFloat();
+            assertTrue(f >= 0.f && f < 1.f);
+            float b = GameMath.biRand(GameRandom.SPAWNING, 2.f);
+            assertTrue(b >= -2.f && b < 2.f);
+            float r = GameMath.randRange(GameRandom.SPAWNING, 3.f, 5.f);
+            assertTrue(r >= 3.f && r < 5.f);
+        }
+    }
+}
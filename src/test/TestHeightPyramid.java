@@ -0,0 +1,97 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.world.*;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestHeightPyramid
+{
+    private static final int
+            W = WorldChunk.CHUNK_W,
+            H = WorldChunk.CHUNK_H;
+    private static final float T = WorldChunk.TILE_SIZE;
+
+    @Test
+    public void TestBoundsContainTiles()
+    {
+        Random rand = new Random(7);
+        for (Biome biome : Biome.values())
+        {
+            WorldChunk chunk = new WorldChunk(4, 2, biome);
+            TileGrid terrain = chunk.getTerrain();
+            HeightPyramid heights = chunk.getHeights();
+            // 44x36 tiles halve down to one block in six steps
+            assertEquals(7, heights.getNumLevels());
+
+            float lowest = Float.MAX_VALUE, highest = -Float.MAX_VALUE;
+            for (int y = 0; y < H; y++)
+            {
+                for (int x = 0; x < W; x++)
+                {
+                    lowest = Math.min(lowest, terrain.getHeight(x, y));
+                    highest = Math.max(highest, terrain.getHeight(x, y));
+                    // a single tile is exact
+                    assertEquals(terrain.getHeight(x, y), heights.getMaxHeight(x, y, x, y));
+                    assertEquals(terrain.getHeight(x, y), heights.getMinHeight(x, y, x, y));
+                }
+            }
+            assertEquals(lowest, heights.getMinHeight());
+            assertEquals(highest, heights.getMaxHeight());
+            assertEquals(highest, heights.getMaxHeight(0, 0, W - 1, H - 1));
+
+            for (int r = 0; r < 500; r++)
+            {
+                int x0 = rand.nextInt(W), x1 = x0 + rand.nextInt(W - x0),
+                    y0 = rand.nextInt(H), y1 = y0 + rand.nextInt(H - y0);
+                float min = Float.MAX_VALUE, max = -Float.MAX_VALUE;
+                for (int y = y0; y <= y1; y++)
+                {
+                    for (int x = x0; x <= x1; x++)
+                    {
+                        min = Math.min(min, terrain.getHeight(x, y));
+                        max = Math.max(max, terrain.getHeight(x, y));
+                    }
+                }
+                assertTrue(heights.getMaxHeight(x0, y0, x1, y1) >= max);
+                assertTrue(heights.getMaxHeight(x0, y0, x1, y1) <= highest);
+                assertTrue(heights.getMinHeight(x0, y0, x1, y1) <= min);
+                assertTrue(heights.getMinHeight(x0, y0, x1, y1) >= lowest);
+            }
+        }
+    }
+
+    @Test
+    public void TestWorldHeights()
+    {
+        World world = new World(9, World.DEFAULT_CACHE_BYTES);
+        world.scrollWorld(0.3f, 100.f);
+        // scrolling forwards moves the ground towards -y
+        assertEquals(-0.3f * H * T / 100.f, world.getVelocityY(), 1e-6f);
+
+        for (int c = 0; c < 2; c++)
+        {
+            TileGrid terrain = world.getChunk(c).getTerrain();
+            float chunkY = world.getChunkY(c);
+            for (int y = 0; y < H; y++)
+            {
+                for (int x = 0; x < W; x++)
+                {
+                    // the centre of each tile
+                    float wx = (x - W / 2.f + 0.5f) * T, wy = chunkY + (y - H / 2.f) * T;
+                    assertEquals(terrain.getHeight(x, y) * T, world.getHeight(wx, wy), 1e-6f);
+                    assertTrue(world.getMaxHeight(wx, wy, wx, wy) >= world.getHeight(wx, wy));
+                }
+            }
+        }
+        // a box around both chunks in view
+        float highest = Math.max(world.getChunk(0).getHeights().getMaxHeight(), world.getChunk(1).getHeights().getMaxHeight());
+        assertEquals(highest * T, world.getMaxHeight(-W * T, world.getChunkY(0) - H * T, W * T, world.getChunkY(1) + H * T), 1e-6f);
+
+        // off the side of the terrain is the bottom of the tiles
+        assertEquals(WorldTile.BASE_Z * T, world.getHeight(W * T, 0.f));
+        assertEquals(WorldTile.BASE_Z * T, world.getMaxHeight(W * T, 0.f, W * T + 1.f, 1.f));
+    }
+}
@@ -0,0 +1,93 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.GameRandom;
+import shooter.world.*;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestNoiseTerrain
+{
+    private static final int
+            W = WorldChunk.CHUNK_W,
+            H = WorldChunk.CHUNK_H;
+
+    private static TileGrid ground(long seed, int index, Biome biome)
+    {
+        TileGrid grid = new TileGrid(W, H, TileMaterial.HILLS);
+        TerrainGenerator.NOISE.generate(grid, seed, index, biome, biome, GameRandom.forKey(seed, index));
+        return grid;
+    }
+
+    @Test
+    public void TestHeights()
+    {
+        for (Biome biome : Biome.values())
+        {
+            float highest = 0.f;
+            boolean differs = false;
+            for (int c = 0; c < 8; c++)
+            {
+                TileGrid a = ground(3, c, biome), b = ground(3, c, biome), other = ground(4, c, biome);
+                for (int y = 0; y < H; y++)
+                {
+                    for (int x = 0; x < W; x++)
+                    {
+                        // the same for the same seed and index, and never below the ground or far above the biome's hills
+                        assertEquals(a.getHeight(x, y), b.getHeight(x, y));
+                        assertTrue(a.getHeight(x, y) >= 0.f);
+                        assertTrue(a.getHeight(x, y) <= 5.f);
+                        highest = Math.max(highest, a.getHeight(x, y));
+                        differs |= a.getHeight(x, y) != other.getHeight(x, y);
+                    }
+                }
+            }
+            // another seed gives other ground
+            assertTrue(differs, biome.toString());
+            assertTrue(highest > 0.f, biome.toString());
+        }
+    }
+
+    @Test
+    public void TestSeamless()
+    {
+        for (int c = 0; c < 8; c++)
+        {
+            TileGrid first = ground(5, c, Biome.HILLS), second = ground(5, c + 1, Biome.HILLS);
+            // the step between chunks is no bigger than steps within them
+            float innerStep = 0.f, seamStep = 0.f;
+            for (int x = 0; x < W; x++)
+            {
+                for (int y = 1; y < H; y++)
+                {
+                    innerStep = Math.max(innerStep, Math.abs(first.getHeight(x, y) - first.getHeight(x, y - 1)));
+                    innerStep = Math.max(innerStep, Math.abs(second.getHeight(x, y) - second.getHeight(x, y - 1)));
+                }
+                seamStep = Math.max(seamStep, Math.abs(second.getHeight(x, 0) - first.getHeight(x, H - 1)));
+            }
+            assertTrue(seamStep <= innerStep);
+        }
+    }
+
+    @Test
+    public void TestSelectedPerBiome() throws Exception
+    {
+        World world = new World(6, Map.of(Biome.HILLS, TerrainGenerator.NOISE), World.DEFAULT_CACHE_BYTES);
+        WorldChunk noise = new WorldChunk(6, 1, Biome.HILLS, TerrainGenerator.NOISE),
+                   stamped = new WorldChunk(6, 1, Biome.HILLS);
+        TileGrid actual = world.getChunk(1).getTerrain();
+        boolean differsFromStamped = false;
+        for (int y = 0; y < H; y++)
+        {
+            for (int x = 0; x < W; x++)
+            {
+                assertEquals(noise.getTerrain().getHeight(x, y), actual.getHeight(x, y));
+                differsFromStamped |= stamped.getTerrain().getHeight(x, y) != actual.getHeight(x, y);
+            }
+        }
+        assertTrue(differsFromStamped);
+        world.awaitNextChunk();
+    }
+}
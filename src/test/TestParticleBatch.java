@@ -0,0 +1,93 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import processing.core.PImage;
+import processing.core.PMatrix3D;
+import shooter.particles.LifespanParticle.Shape;
+import shooter.particles.ParticleBatch;
+import shooter.particles.ParticleBatcher;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParticleBatch
+{
+    private static final float EPSILON = 0.00001f;
+
+    @Test
+    public void TestMatchesMatrixTransform()
+    {
+        Random rand = new Random(7);
+        ParticleBatch batch = new ParticleBatch(null);
+        // a triangle's first vertex, in the shape's local space
+        float[] local = {0.f, (float)Math.sin(Math.toRadians(60.f)) / 2.f, 0.f}, expected = new float[3];
+
+        for (int p = 0; p < 100; p++)
+        {
+            float[] pos = {rand.nextFloat() * 4.f - 2.f, rand.nextFloat() * 4.f - 2.f, rand.nextFloat()};
+            float[] angle = {rand.nextFloat() * 7.f, rand.nextFloat() * 7.f, rand.nextFloat() * 7.f};
+            float[] size = {rand.nextFloat() * 0.1f, rand.nextFloat() * 0.1f, rand.nextFloat() * 0.1f};
+            batch.clear();
+            batch.add(Shape.TRIANGLE, 0xFF123456, pos, angle, size, 0);
+
+            // the same particle drawn on its own, through the matrix stack
+            PMatrix3D m = new PMatrix3D();
+            m.translate(pos[0], pos[1], pos[2]);
+            m.scale(size[0], size[1], size[2]);
+            m.rotateZ(angle[2]);
+            m.rotateY(angle[1]);
+            m.rotateX(angle[0]);
+            m.mult(local, expected);
+
+            float[] vertices = batch.getVertices();
+            assertEquals(3, batch.getNumVertices());
+            assertEquals(expected[0], vertices[ParticleBatch.V_X], EPSILON);
+            assertEquals(expected[1], vertices[ParticleBatch.V_Y], EPSILON);
+            assertEquals(expected[2], vertices[ParticleBatch.V_Z], EPSILON);
+            assertEquals(0xFF123456, batch.getColor(0));
+        }
+    }
+
+    @Test
+    public void TestShapesAndGrowth()
+    {
+        ParticleBatch batch = new ParticleBatch(null);
+        float[] pos = new float[3], angle = new float[3], size = {1.f, 1.f, 1.f};
+
+        // diamonds are two strips of two triangles each, triangles are one triangle
+        batch.add(Shape.DIAMOND, 0, pos, angle, size, 0);
+        assertEquals(12, batch.getNumVertices());
+        batch.add(Shape.TRIANGLE, 0, pos, angle, size, 0);
+        assertEquals(15, batch.getNumVertices());
+
+        // with no rotation the top of the diamond is at the top of the unit square
+        float[] vertices = batch.getVertices();
+        assertEquals(0.f, vertices[ParticleBatch.V_X], EPSILON);
+        assertEquals(1.f, vertices[ParticleBatch.V_Y], EPSILON);
+        assertEquals(0.5f, vertices[ParticleBatch.V_U], EPSILON);
+        assertEquals(0.f, vertices[ParticleBatch.V_V], EPSILON);
+
+        // many particles grow the vertex array
+        for (int i = 0; i < 1000; i++)
+            batch.add(Shape.DIAMOND, i, pos, angle, size, 0);
+        assertEquals(12015, batch.getNumVertices());
+        assertEquals(999, batch.getColor(batch.getNumVertices() - 1));
+    }
+
+    @Test
+    public void TestBatchPerTexture()
+    {
+        ParticleBatcher batcher = new ParticleBatcher();
+        PImage spark = new PImage(1, 1);
+        assertSame(batcher.get(spark), batcher.get(spark));
+        assertNotSame(batcher.get(spark), batcher.get(null));
+        assertEquals(2, batcher.getNumBatches());
+
+        float[] pos = new float[3], angle = new float[3], size = {1.f, 1.f, 1.f};
+        batcher.get(spark).add(Shape.TRIANGLE, 0, pos, angle, size, 0);
+        assertEquals(1, batcher.getNumShapes());
+        batcher.clear();
+        assertEquals(0, batcher.getNumShapes());
+    }
+}
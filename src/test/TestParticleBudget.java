@@ -0,0 +1,47 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.particles.EffectSpec.Priority;
+import shooter.particles.ParticleBudget;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParticleBudget
+{
+    private static final float EPSILON = 0.0001f;
+
+    @Test
+    public void TestLowPriorityDegrades()
+    {
+        ParticleBudget budget = new ParticleBudget(1000);
+
+        // below the soft limit nothing is cut back
+        budget.update(500);
+        assertEquals(1.f, budget.getCountScale(Priority.LOW), EPSILON);
+        assertEquals(1.f, budget.getLifespanScale(Priority.LOW), EPSILON);
+
+        // halfway between the soft limit and the budget
+        budget.update(750);
+        assertEquals(0.5f, budget.getCountScale(Priority.LOW), EPSILON);
+        float halfLifespan = budget.getLifespanScale(Priority.LOW);
+        assertTrue(halfLifespan < 1.f && halfLifespan > 0.f);
+
+        // at or over budget, low priority effects spawn nothing and keep a fraction of their lifespan
+        budget.update(1200);
+        assertEquals(0.f, budget.getCountScale(Priority.LOW), EPSILON);
+        assertTrue(budget.getLifespanScale(Priority.LOW) < halfLifespan);
+        assertTrue(budget.getLifespanScale(Priority.LOW) > 0.f);
+    }
+
+    @Test
+    public void TestHighPriorityKept()
+    {
+        ParticleBudget budget = new ParticleBudget(1000);
+        for (int live = 0; live <= 2000; live += 250)
+        {
+            budget.update(live);
+            assertEquals(1.f, budget.getCountScale(Priority.HIGH), EPSILON);
+            assertEquals(1.f, budget.getLifespanScale(Priority.HIGH), EPSILON);
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.HeightField;
+import shooter.particles.ParticlePool;
+import shooter.particles.ParticlePool.Motion;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestParticlePool
+{
+    private static final int NUM_PARTICLES = 200;
+    private static final float
+            FRAME_MILLIS = 16.f,
+            LIFESPAN = 3000.f,
+            EPSILON = 0.0001f;
+
+    // fill a pool with the same random particles as every other pool made with the same seed
+    private static ParticlePool makePool(long seed, Motion motion)
+    {
+        Random rand = new Random(seed);
+        ParticlePool result = new ParticlePool(NUM_PARTICLES, motion);
+        for (int i = 0; i < NUM_PARTICLES; i++)
+        {
+            float[]
+                    pos = {rand.nextFloat() - 0.5f, rand.nextFloat() - 0.5f, rand.nextFloat() - 0.5f},
+                    vel = {(rand.nextFloat() - 0.5f) * 0.004f, (rand.nextFloat() - 0.5f) * 0.004f, 0.f},
+                    // debris' gravity
+                    accel = {0.f, 0.f, -0.00001f},
+                    angle = {rand.nextFloat() * 6.f, rand.nextFloat() * 6.f, rand.nextFloat() * 6.f},
+                    rot = {(rand.nextFloat() - 0.5f) * 0.012f, 0.f, (rand.nextFloat() - 0.5f) * 0.012f},
+                    size = {0.025f, 0.025f, 0.025f};
+            result.add(pos, vel, accel, angle, rot, size, 0);
+        }
+        return result;
+    }
+
+    @Test
+    public void TestAnalyticMatchesIntegrator()
+    {
+        ParticlePool integrated = makePool(11, Motion.INTEGRATED), analytic = makePool(11, Motion.ANALYTIC);
+        float[] expected = new float[3], actual = new float[3];
+        float t = 0.f;
+        while (!integrated.isEmpty())
+        {
+            integrated.update(FRAME_MILLIS, LIFESPAN);
+            analytic.update(FRAME_MILLIS, LIFESPAN);
+            t += FRAME_MILLIS;
+            assertEquals(integrated.size(), analytic.size());
+
+            // the integrator drifts from the exact solution by a * t * dt / 2
+            float posTolerance = 0.00001f * t * FRAME_MILLIS / 2.f + EPSILON;
+            for (int i = 0; i < integrated.size(); i++)
+            {
+                integrated.getPosition(i, expected);
+                analytic.getPosition(i, actual);
+                for (int c = 0; c < 3; c++)
+                    assertEquals(expected[c], actual[c], posTolerance, "Particle " + i + " at " + t + "ms");
+
+                integrated.getAngle(i, expected);
+                analytic.getAngle(i, actual);
+                for (int c = 0; c < 3; c++)
+                    assertEquals(expected[c], actual[c], EPSILON * 10.f, "Particle " + i + " at " + t + "ms");
+            }
+        }
+        // both expire on the same frame
+        assertTrue(analytic.isEmpty());
+        assertEquals(LIFESPAN, t, FRAME_MILLIS);
+    }
+
+    @Test
+    public void TestAnalyticExpiry()
+    {
+        ParticlePool pool = new ParticlePool(2, Motion.ANALYTIC);
+        float[] zero = new float[3];
+        pool.add(zero, zero, zero, zero, zero, zero, 0);
+        pool.update(300.f, 400.f);
+        // spawned 300ms after the first
+        pool.add(zero, zero, zero, zero, zero, zero, 0);
+        assertTrue(pool.isFull());
+        pool.update(100.f, 400.f);
+        assertEquals(1, pool.size());
+        pool.update(299.f, 400.f);
+        assertEquals(1, pool.size());
+        pool.update(1.f, 400.f);
+        assertTrue(pool.isEmpty());
+    }
+
+    @Test
+    public void TestSpawnWhileAged()
+    {
+        ParticlePool pool = new ParticlePool(2);
+        float[] zero = new float[3], vel = {0.001f, 0.f, 0.f}, pos = new float[3];
+        pool.add(zero, vel, zero, zero, zero, zero, 0);
+        // off screen for a second, then a second particle is spawned as it comes back
+        pool.age(1000.f, LIFESPAN);
+        pool.add(zero, vel, zero, zero, zero, zero, 0);
+        pool.update(FRAME_MILLIS, LIFESPAN);
+
+        pool.getPosition(0, pos);
+        assertEquals(0.001f * (1000.f + FRAME_MILLIS), pos[0], EPSILON);
+        // the new particle only moves for the time it has been alive
+        pool.getPosition(1, pos);
+        assertEquals(0.001f * FRAME_MILLIS, pos[0], EPSILON);
+    }
+
+    // flat ground at z = 0 with a wall 0.5 high from x = 1 on, moving along y
+    private static final float WALL_X = 1.f, WALL_HEIGHT = 0.5f, GROUND_VEL = -0.002f;
+    private static final HeightField GROUND = new HeightField()
+    {
+        public float getHeight(float x, float y) {return x >= WALL_X ? WALL_HEIGHT : 0.f;}
+        public float getMaxHeight(float minX, float minY, float maxX, float maxY) {return maxX >= WALL_X ? WALL_HEIGHT : 0.f;}
+        public float getVelocityY() {return GROUND_VEL;}
+    };
+
+    @Test
+    public void TestParticlesSettleOnGround()
+    {
+        for (Motion motion : Motion.values())
+        {
+            ParticlePool pool = makePool(13, motion);
+            float[] velMin = new float[3], velMax = new float[3], p = new float[3], prev = new float[3 * NUM_PARTICLES];
+            float t = 0.f;
+            while (t < LIFESPAN - 2 * FRAME_MILLIS)
+            {
+                for (int i = 0; i < pool.size(); i++)
+                {
+                    pool.getPosition(i, p);
+                    System.arraycopy(p, 0, prev, i * 3, 3);
+                }
+                pool.update(FRAME_MILLIS, LIFESPAN);
+                pool.collide(GROUND, FRAME_MILLIS, 0.4f, velMin, velMax);
+                t += FRAME_MILLIS;
+                for (int i = 0; i < pool.size(); i++)
+                {
+                    pool.getPosition(i, p);
+                    assertTrue(p[2] >= GROUND.getHeight(p[0], p[1]) - EPSILON, motion + " particle " + i + " at " + t + "ms");
+                    // nothing gets far past the wall's side, it's only reached by moving along x
+                    if (prev[i * 3] < WALL_X && prev[i * 3 + 2] < WALL_HEIGHT - EPSILON)
+                        assertTrue(p[0] < WALL_X, motion + " particle " + i + " went through the wall");
+                }
+            }
+
+            // by the end every particle rests on the ground and moves with it
+            assertEquals(NUM_PARTICLES, pool.size());
+            for (int i = 0; i < pool.size(); i++)
+            {
+                pool.getPosition(i, p);
+                assertEquals(GROUND.getHeight(p[0], p[1]), p[2], EPSILON);
+            }
+            float[] before = new float[3 * NUM_PARTICLES];
+            for (int i = 0; i < pool.size(); i++)
+            {
+                pool.getPosition(i, p);
+                System.arraycopy(p, 0, before, i * 3, 3);
+            }
+            pool.update(FRAME_MILLIS, LIFESPAN);
+            pool.collide(GROUND, FRAME_MILLIS, 0.4f, velMin, velMax);
+            for (int i = 0; i < pool.size(); i++)
+            {
+                pool.getPosition(i, p);
+                assertEquals(before[i * 3], p[0], EPSILON);
+                assertEquals(before[i * 3 + 1] + GROUND_VEL * FRAME_MILLIS, p[1], EPSILON);
+                assertEquals(before[i * 3 + 2], p[2], EPSILON);
+            }
+            // the bounds on velocity include the ground's
+            assertTrue(velMin[1] <= GROUND_VEL && velMax[1] >= GROUND_VEL);
+        }
+    }
+
+    @Test
+    public void TestBounceOffWall()
+    {
+        for (Motion motion : Motion.values())
+        {
+            ParticlePool pool = new ParticlePool(1, motion);
+            float[] zero = new float[3], p = new float[3], velMin = new float[3], velMax = new float[3];
+            pool.add(new float[]{0.9f, 0.f, 0.2f}, new float[]{0.001f, GROUND_VEL, 0.f}, zero, zero, zero, zero, 0);
+            float x = 0.9f, maxX = 0.f;
+            for (int f = 0; f < 50; f++)
+            {
+                pool.update(FRAME_MILLIS, LIFESPAN);
+                pool.collide(GROUND, FRAME_MILLIS, 0.5f, velMin, velMax);
+                pool.getPosition(0, p);
+                maxX = Math.max(maxX, p[0]);
+                x = p[0];
+            }
+            // it turned back at the wall with half its speed
+            assertTrue(maxX < WALL_X);
+            // it reached the wall after 100ms
+            assertEquals(WALL_X - 0.0005f * (50 * FRAME_MILLIS - 100.f), x, 0.02f, motion.toString());
+            assertEquals(-0.0005f, velMin[0], EPSILON);
+        }
+    }
+}
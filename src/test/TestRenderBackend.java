@@ -0,0 +1,155 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import processing.core.PConstants;
+import shooter.*;
+import shooter.world.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRenderBackend
+{
+    private static final float FRAME_MILLIS = 16.f;
+
+    @Test
+    public void TestMeshCounts()
+    {
+        RecordingBackend rec = new RecordingBackend();
+        Mesh mesh = new WorldChunk(3, 0, Biome.HILLS).getMesh();
+        int vertices = 0;
+        for (int g = 0; g < mesh.getNumGroups(); g++)
+            vertices += mesh.getNumVertices(g);
+
+        rec.startFrame();
+        mesh.draw(rec);
+        // one shape per texture, each switching from the one before
+        assertEquals(mesh.getNumGroups(), rec.getShapes());
+        assertEquals(mesh.getNumGroups(), rec.getTextureSwitches());
+        assertEquals(vertices, rec.getVertices());
+        assertEquals(0, rec.getMatrixOps());
+
+        rec.startFrame();
+        rec.beginShape(PConstants.TRIANGLES);
+        rec.vertex(0.f, 0.f, 0.f);
+        rec.vertex(1.f, 0.f, 0.f);
+        rec.vertex(0.f, 1.f, 0.f);
+        rec.endShape();
+        rec.beginShape(PConstants.TRIANGLES);
+        rec.vertex(0.f, 0.f, 0.f);
+        rec.vertex(1.f, 0.f, 0.f);
+        rec.vertex(0.f, 1.f, 0.f);
+        rec.endShape();
+        // only the first untextured shape switches texture
+        assertEquals(2, rec.getShapes());
+        assertEquals(6, rec.getVertices());
+        assertEquals(1, rec.getTextureSwitches());
+        assertEquals(2, rec.getFrames());
+    }
+
+    @Test
+    public void TestTerrainCoarserInPerspective()
+    {
+        RecordingBackend rec = new RecordingBackend();
+        World world = new World(5, World.DEFAULT_CACHE_BYTES);
+
+        rec.startFrame();
+        world.drawWorld(rec, null);
+        int orthoShapes = rec.getShapes(), orthoVertices = rec.getVertices();
+        assertEquals(0, rec.getMatrixDepth());
+
+        rec.toggleProjection(false);
+        rec.startFrame();
+        world.drawWorld(rec, rec.getCameraEye());
+        assertEquals(0, rec.getMatrixDepth());
+        // the same bands are drawn, the furthest ones with fewer vertices
+        assertEquals(orthoShapes, rec.getShapes());
+        assertTrue(rec.getVertices() < orthoVertices);
+    }
+
+    @Test
+    public void TestRecordingCulls()
+    {
+        // where chunk 0's centre is drawn before any scrolling
+        final float FIRST_CHUNK_Y = 1.44f;
+        RecordingBackend rec = new RecordingBackend();
+        TerrainLod lod = new WorldChunk(4, 0, Biome.HILLS).getLod();
+        ViewVolume view = new ViewVolume();
+
+        // from above, the screen shows the first two bands of the first chunk
+        rec.updateViewVolume(view);
+        assertTrue(lod.isBandVisible(view, 1, FIRST_CHUNK_Y));
+        assertFalse(lod.isBandVisible(view, 2, FIRST_CHUNK_Y));
+        // tilted, it sees further up
+        rec.toggleProjection(false);
+        rec.updateViewVolume(view);
+        assertTrue(lod.isBandVisible(view, 2, FIRST_CHUNK_Y));
+        // halfway through the camera's move
+        rec.interpolateCamera(0.5f);
+        rec.updateViewVolume(view);
+        assertTrue(lod.isBandVisible(view, 0, FIRST_CHUNK_Y));
+        assertFalse(lod.isBandVisible(view, 0, FIRST_CHUNK_Y + WorldChunk.CHUNK_H * WorldChunk.TILE_SIZE));
+
+        // what's counted is what the game would draw, not the whole world
+        World world = new World(5, World.DEFAULT_CACHE_BYTES);
+        world.setViewVolume(view);
+        rec.toggleProjection(true);
+        rec.updateViewVolume(view);
+        rec.startFrame();
+        world.drawWorld(rec, null);
+        int culledShapes = rec.getShapes();
+        view.setEverything();
+        rec.startFrame();
+        world.drawWorld(rec, null);
+        assertTrue(culledShapes < rec.getShapes());
+    }
+
+    // Play frames of the game with the player moving and shooting, switching
+    // to the perspective view part way through.
+    private static void play(RenderBackend backend, int numFrames, Runnable afterFrame)
+    {
+        GameState state = new GameState(backend, false);
+        state.shootHeld = true;
+        for (int f = 0; f < numFrames; f++)
+        {
+            state.leftHeld = (f / 60) % 2 == 0;
+            state.rightHeld = !state.leftHeld;
+            if (f == numFrames / 3)
+                state.toggleCamera();
+            if (backend instanceof RecordingBackend rec)
+                rec.startFrame();
+            state.update(FRAME_MILLIS);
+            state.draw();
+            afterFrame.run();
+        }
+    }
+
+    @Test
+    public void TestGameRunsHeadless()
+    {
+        GameRandom.seedAll(11);
+        NullBackend backend = new NullBackend();
+        float[] orthoEye = backend.getCameraEye().clone();
+        play(backend, 300, () -> {});
+        // the camera moved into the perspective view
+        assertNotEquals(orthoEye[2], backend.getCameraEye()[2]);
+    }
+
+    @Test
+    public void TestGameFramesRecorded()
+    {
+        GameRandom.seedAll(11);
+        RecordingBackend rec = new RecordingBackend();
+        int[] maxTextureSwitches = {0};
+        play(rec, 300, () -> {
+            assertEquals(0, rec.getMatrixDepth());
+            // at least the terrain and the player
+            assertTrue(rec.getShapes() > 1);
+            assertTrue(rec.getVertices() >= rec.getShapes() * 3);
+            assertTrue(rec.getTextureSwitches() <= rec.getShapes());
+            assertTrue(rec.getMatrixOps() > 0);
+            maxTextureSwitches[0] = Math.max(maxTextureSwitches[0], rec.getTextureSwitches());
+        });
+        assertEquals(300, rec.getFrames());
+        assertTrue(maxTextureSwitches[0] > 1);
+    }
+}
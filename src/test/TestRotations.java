@@ -0,0 +1,70 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import processing.core.PMatrix3D;
+import shooter.Rotations;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestRotations
+{
+    private static final float EPSILON = 0.00001f;
+
+    private static void assertVecEquals(float[] expected, float[] actual)
+    {
+        for (int i = 0; i < 3; i++)
+            assertEquals(expected[i], actual[i], EPSILON, "Component " + i);
+    }
+
+    @Test
+    public void TestMatchesPMatrix3D()
+    {
+        Random rand = new Random(3);
+        float[] expected = new float[3], actual = new float[3];
+        Rotations.CachedAngle cached = new Rotations.CachedAngle();
+        for (int n = 0; n < 200; n++)
+        {
+            float[] v = {rand.nextFloat() * 2.f - 1.f, rand.nextFloat() * 2.f - 1.f, rand.nextFloat() * 2.f - 1.f};
+            float angle = rand.nextFloat() * 14.f - 7.f;
+
+            PMatrix3D m = new PMatrix3D();
+            m.rotateX(angle);
+            m.mult(v, expected);
+            Rotations.rotateX(v, angle, actual);
+            assertVecEquals(expected, actual);
+
+            m.reset();
+            m.rotateY(angle);
+            m.mult(v, expected);
+            Rotations.rotateY(v, angle, actual);
+            assertVecEquals(expected, actual);
+
+            m.reset();
+            m.rotateZ(angle);
+            m.mult(v, expected);
+            Rotations.rotateZ(v, angle, actual);
+            assertVecEquals(expected, actual);
+
+            // same result with a cached angle, rotating in place
+            cached.set(angle);
+            Rotations.rotateZ(v, cached, v);
+            assertVecEquals(expected, v);
+        }
+    }
+
+    @Test
+    public void TestCachedAngle()
+    {
+        Rotations.CachedAngle cached = new Rotations.CachedAngle();
+        // starts at zero
+        assertEquals(0.f, cached.sin());
+        assertEquals(1.f, cached.cos());
+        cached.set(1.f);
+        assertEquals((float)Math.sin(1.f), cached.sin());
+        assertEquals((float)Math.cos(1.f), cached.cos());
+        cached.set(0.f);
+        assertEquals(0.f, cached.sin());
+    }
+}
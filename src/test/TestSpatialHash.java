@@ -0,0 +1,165 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.actors.Actor;
+import shooter.actors.ActorPool;
+import shooter.actors.Bullet;
+import shooter.actors.EnemyBullet;
+import shooter.actors.PlayerBullet;
+import shooter.particles.SpatialHash;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSpatialHash
+{
+    private static final int NUM_SCENES = 50;
+
+    // create the same randomly placed bullets twice, once for each way of checking collisions
+    private static ActorPool<Bullet> makeBullets(long seed, int count, boolean playerBullets)
+    {
+        Random rand = new Random(seed);
+        ActorPool<Bullet> result = new ActorPool<>(playerBullets ? PlayerBullet::new : EnemyBullet::new);
+        float[] vel = new float[3], angle = new float[3];
+        for (int i = 0; i < count; i++)
+        {
+            float[] pos = {rand.nextFloat() * 5.f - 2.5f, rand.nextFloat() * 4.5f - 2.f, 0.f};
+            result.obtain().reset(pos, vel, angle);
+        }
+        return result;
+    }
+
+    private static ActorPool<Bullet> makeBullet(boolean playerBullet, float[] pos, float[] vel)
+    {
+        ActorPool<Bullet> result = new ActorPool<>(playerBullet ? PlayerBullet::new : EnemyBullet::new);
+        result.obtain().reset(pos, vel, new float[3]);
+        return result;
+    }
+
+    // Brute-force collision check between every pair of actors in two pools,
+    // kept as the reference which the grid must agree with.
+    private static void checkPairs(ActorPool<? extends Actor> poolA, ActorPool<? extends Actor> poolB)
+    {
+        float[] aPos = new float[3], aPrev = new float[3], bPos = new float[3], bPrev = new float[3];
+        for (int i = 0; i < poolA.size(); i++)
+        {
+            Actor a = poolA.get(i);
+            if (a.isKilled())
+                continue;
+            a.getPos(aPos);
+            a.getPrevPos(aPrev);
+            for (int j = 0; j < poolB.size(); j++)
+            {
+                Actor b = poolB.get(j);
+                if (b.isKilled())
+                    continue;
+                b.getPos(bPos);
+                b.getPrevPos(bPrev);
+                if (SpatialHash.sweptOverlap(aPrev, aPos, a.getCollisionRadius(), bPrev, bPos, b.getCollisionRadius()))
+                {
+                    a.setKilled();
+                    b.setKilled();
+                }
+            }
+        }
+    }
+
+    private static void assertSameKills(ActorPool<Bullet> expected, ActorPool<Bullet> actual)
+    {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++)
+            assertEquals(expected.get(i).isKilled(), actual.get(i).isKilled(), "Actor " + i);
+    }
+
+    @Test
+    public void TestMatchesPairwise()
+    {
+        SpatialHash grid = new SpatialHash();
+        int totalKilled = 0;
+        for (int scene = 0; scene < NUM_SCENES; scene++)
+        {
+            int count = 20 + scene * 10;
+            ActorPool<Bullet>
+                    pairA = makeBullets(scene, count, false),
+                    pairB = makeBullets(scene + NUM_SCENES, count, true),
+                    gridA = makeBullets(scene, count, false),
+                    gridB = makeBullets(scene + NUM_SCENES, count, true);
+
+            checkPairs(pairA, pairB);
+            grid.rebuild(gridB);
+            grid.checkCollisions(gridA);
+
+            assertSameKills(pairA, gridA);
+            assertSameKills(pairB, gridB);
+            for (int i = 0; i < pairA.size(); i++)
+                totalKilled += pairA.get(i).isKilled() ? 1 : 0;
+        }
+        // make sure the scenes actually had collisions in them
+        assertTrue(totalKilled > 0);
+    }
+
+    @Test
+    public void TestKilledActorsSkipped()
+    {
+        SpatialHash grid = new SpatialHash();
+        float[] pos = {0.5f, 0.5f, 0.f}, none = new float[3];
+        ActorPool<Bullet>
+                poolA = makeBullet(false, pos, none),
+                poolB = makeBullet(true, pos, none);
+        poolA.obtain().reset(pos, none, none);
+
+        grid.rebuild(poolB);
+        grid.checkCollisions(poolA);
+
+        // the first bullet kills the only bullet in the grid, so the second survives
+        assertTrue(poolA.get(0).isKilled());
+        assertFalse(poolA.get(1).isKilled());
+        assertTrue(poolB.get(0).isKilled());
+
+        // killed actors are not entered into the grid
+        grid.rebuild(poolB);
+        assertEquals(0, grid.getNumActors());
+    }
+
+    @Test
+    public void TestFastBulletDoesNotTunnel()
+    {
+        SpatialHash grid = new SpatialHash();
+        float[] none = new float[3];
+        // player bullet speed, fired from just left of a stationary enemy bullet
+        ActorPool<Bullet>
+                playerBullets = makeBullet(true, new float[]{-0.2f, 0.f, 0.f}, new float[]{0.006f, 0.f, 0.f}),
+                enemyBullets = makeBullet(false, new float[]{0.f, 0.f, 0.f}, none);
+
+        // a 60ms frame moves the bullet 0.36 units, past the enemy bullet
+        playerBullets.get(0).update(60.f);
+        enemyBullets.get(0).update(60.f);
+
+        grid.rebuild(playerBullets);
+        grid.checkCollisions(enemyBullets);
+        assertTrue(playerBullets.get(0).isKilled());
+        assertTrue(enemyBullets.get(0).isKilled());
+    }
+
+    @Test
+    public void TestSweptOverlap()
+    {
+        float[] origin = {0.f, 0.f, 0.f};
+        // passes straight through b during the frame
+        assertTrue(SpatialHash.sweptOverlap(new float[]{-1.f, 0.f, 0.f}, new float[]{1.f, 0.f, 0.f}, 0.1f,
+                origin, origin, 0.1f));
+        // passes by b, never closer than 0.3
+        assertFalse(SpatialHash.sweptOverlap(new float[]{-1.f, 0.3f, 0.f}, new float[]{1.f, 0.3f, 0.f}, 0.1f,
+                origin, origin, 0.1f));
+        // moving towards b but stops short of it
+        assertFalse(SpatialHash.sweptOverlap(new float[]{-1.f, 0.f, 0.f}, new float[]{-0.5f, 0.f, 0.f}, 0.1f,
+                origin, origin, 0.1f));
+        // both moving in parallel, touching the whole frame
+        assertTrue(SpatialHash.sweptOverlap(new float[]{0.f, 0.f, 0.f}, new float[]{1.f, 0.f, 0.f}, 0.1f,
+                new float[]{0.f, 0.15f, 0.f}, new float[]{1.f, 0.15f, 0.f}, 0.1f));
+        // crossing paths at different times, never close at the same time
+        assertFalse(SpatialHash.sweptOverlap(new float[]{-1.f, 0.f, 0.f}, new float[]{1.f, 0.f, 0.f}, 0.05f,
+                new float[]{1.f, -1.f, 0.f}, new float[]{1.f, 1.f, 0.f}, 0.05f));
+    }
+}
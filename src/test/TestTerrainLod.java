@@ -0,0 +1,137 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.world.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTerrainLod
+{
+    private static final int
+            W = WorldChunk.CHUNK_W,
+            H = WorldChunk.CHUNK_H,
+            QUAD_VERTICES = 6;
+    private static final int[] BLOCK_SIZES = {1, 2, 4};
+
+    @Test
+    public void TestBlocksCoverBands()
+    {
+        for (Biome biome : Biome.values())
+        {
+            WorldChunk chunk = new WorldChunk(3, 1, biome);
+            TileGrid terrain = chunk.getTerrain();
+            TerrainLod lod = chunk.getLod();
+            for (int level = 0; level < TerrainLod.NUM_LEVELS; level++)
+            {
+                int block = BLOCK_SIZES[level];
+                for (int band = 0; band < TerrainLod.NUM_BANDS; band++)
+                {
+                    Mesh mesh = lod.getMesh(level, band);
+                    int firstRow = band * TerrainLod.BAND_ROWS;
+                    int[] coverage = new int[W * TerrainLod.BAND_ROWS];
+                    // blocks along the band's front and back which have a skirt down to BASE_Z
+                    boolean[] frontSkirt = new boolean[W], backSkirt = new boolean[W];
+                    for (int g = 0; g < mesh.getNumGroups(); g++)
+                    {
+                        float[] v = mesh.getVertices(g);
+                        for (int q = 0; q < v.length; q += QUAD_VERTICES * Mesh.STRIDE)
+                        {
+                            float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE},
+                                    max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+                            for (int i = q; i < q + QUAD_VERTICES * Mesh.STRIDE; i += Mesh.STRIDE)
+                            {
+                                for (int a = 0; a < 3; a++)
+                                {
+                                    min[a] = Math.min(min[a], v[i + a]);
+                                    max[a] = Math.max(max[a], v[i + a]);
+                                }
+                            }
+                            int x0 = Math.round(min[0] + W / 2.f), x1 = Math.round(max[0] + W / 2.f),
+                                y0 = Math.round(min[1] + H / 2.f + 0.5f), y1 = Math.round(max[1] + H / 2.f + 0.5f);
+
+                            if (min[2] == max[2])
+                            {
+                                // a top, as high as the highest tile of each block under it
+                                for (int y = y0; y < y1; y++)
+                                {
+                                    for (int x = x0; x < x1; x++)
+                                    {
+                                        coverage[x + (y - firstRow) * W]++;
+                                        assertTrue(terrain.getHeight(x, y) <= min[2]);
+                                    }
+                                }
+                                for (int by = y0; by < y1; by += block)
+                                {
+                                    for (int bx = x0; bx < x1; bx += block)
+                                    {
+                                        float highest = -Float.MAX_VALUE;
+                                        for (int y = by; y < by + block; y++)
+                                            for (int x = bx; x < bx + block; x++)
+                                                highest = Math.max(highest, terrain.getHeight(x, y));
+                                        assertEquals(highest, min[2]);
+                                    }
+                                }
+                            }
+                            else if (y0 == y1 && min[2] == WorldTile.BASE_Z)
+                            {
+                                for (int x = x0; x < x1; x++)
+                                {
+                                    if (y0 == firstRow)
+                                        frontSkirt[x] = true;
+                                    if (y0 == firstRow + TerrainLod.BAND_ROWS)
+                                        backSkirt[x] = true;
+                                }
+                            }
+                        }
+                    }
+                    for (int count : coverage)
+                        assertEquals(1, count);
+                    // the band's edges are closed, whatever is drawn beside it
+                    for (int x = 0; x < W; x++)
+                    {
+                        assertTrue(frontSkirt[x]);
+                        assertTrue(backSkirt[x]);
+                    }
+                }
+            }
+
+            // coarser levels have fewer triangles
+            for (int level = 1; level < TerrainLod.NUM_LEVELS; level++)
+            {
+                int finer = 0, coarser = 0;
+                for (int band = 0; band < TerrainLod.NUM_BANDS; band++)
+                {
+                    finer += lod.getMesh(level - 1, band).getNumTriangles();
+                    coarser += lod.getMesh(level, band).getNumTriangles();
+                }
+                assertTrue(coarser < finer);
+            }
+        }
+    }
+
+    @Test
+    public void TestChooseLevels()
+    {
+        // the perspective camera's position
+        final float[] EYE = {0.f, -1.35f, 2.4f};
+        final float CHUNK_LENGTH = H * WorldChunk.TILE_SIZE;
+        int[] levels = new int[TerrainLod.NUM_BANDS];
+
+        // the chunk under the camera is in full detail
+        TerrainLod.chooseLevels(EYE, 0.f, levels);
+        for (int level : levels)
+            assertEquals(0, level);
+
+        // a chunk beyond it is at the coarsest level
+        TerrainLod.chooseLevels(EYE, CHUNK_LENGTH, levels);
+        for (int level : levels)
+            assertEquals(TerrainLod.NUM_LEVELS - 1, level);
+
+        // and in between, detail only drops further away
+        TerrainLod.chooseLevels(EYE, CHUNK_LENGTH / 2.f, levels);
+        assertEquals(0, levels[0]);
+        for (int band = 1; band < levels.length; band++)
+            assertTrue(levels[band] >= levels[band - 1]);
+        assertTrue(levels[levels.length - 1] > 0);
+    }
+}
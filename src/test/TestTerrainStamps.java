@@ -0,0 +1,99 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.world.TerrainStamps;
+import shooter.world.TileGrid;
+import shooter.world.TileMaterial;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTerrainStamps
+{
+    private static final int SIZE = TerrainStamps.HILL_SIZE;
+
+    @Test
+    public void TestMesasSmoothedFromUnsmoothed()
+    {
+        for (int m = 0; m < TerrainStamps.getNumMesas(); m++)
+        {
+            int w = TerrainStamps.getMesaWidth(m), l = TerrainStamps.getMesaLength(m);
+            TileGrid grid = new TileGrid(w, l, TileMaterial.SNOW);
+            TerrainStamps.stampMesa(grid, m, 0, 0, 1.f, TileMaterial.ICE_WALL);
+
+            // each tile is the average of four neighbours which were each 0 or 1
+            for (int y = 0; y < l; y++)
+            {
+                for (int x = 0; x < w; x++)
+                {
+                    float quarters = grid.getHeight(x, y) * 4.f;
+                    assertEquals(Math.round(quarters), quarters);
+                    assertSame(TileMaterial.ICE_WALL, grid.getMaterial(x, y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void TestMesaMirrors()
+    {
+        // each pattern is followed by its horizontal, vertical and double mirror
+        for (int m = 0; m < TerrainStamps.getNumMesas(); m += 4)
+        {
+            int w = TerrainStamps.getMesaWidth(m), l = TerrainStamps.getMesaLength(m);
+            TileGrid[] grids = new TileGrid[4];
+            for (int f = 0; f < 4; f++)
+            {
+                grids[f] = new TileGrid(w, l, TileMaterial.SNOW);
+                TerrainStamps.stampMesa(grids[f], m + f, 0, 0, 1.f, TileMaterial.ICE_WALL);
+            }
+            for (int y = 0; y < l; y++)
+            {
+                for (int x = 0; x < w; x++)
+                {
+                    float h = grids[0].getHeight(x, y);
+                    assertEquals(h, grids[1].getHeight(w - 1 - x, y));
+                    assertEquals(h, grids[2].getHeight(x, l - 1 - y));
+                    assertEquals(h, grids[3].getHeight(w - 1 - x, l - 1 - y));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void TestHillsScaleAndClip()
+    {
+        for (int v = 0; v < TerrainStamps.NUM_HILLS; v++)
+        {
+            // the hill's shape grows with its height, while its noise stays the same
+            TileGrid low = new TileGrid(SIZE, SIZE, TileMaterial.HILLS),
+                     mid = new TileGrid(SIZE, SIZE, TileMaterial.HILLS),
+                     high = new TileGrid(SIZE, SIZE, TileMaterial.HILLS);
+            lower(low);
+            lower(mid);
+            lower(high);
+            TerrainStamps.stampHill(low, v, 0, 0, 1.f);
+            TerrainStamps.stampHill(mid, v, 0, 0, 2.f);
+            TerrainStamps.stampHill(high, v, 0, 0, 3.f);
+            for (int y = 0; y < SIZE; y++)
+                for (int x = 0; x < SIZE; x++)
+                    assertEquals(high.getHeight(x, y) - mid.getHeight(x, y),
+                            mid.getHeight(x, y) - low.getHeight(x, y), 0.0001f);
+            assertTrue(high.getHeight(SIZE / 2, SIZE / 2) > low.getHeight(SIZE / 2, SIZE / 2));
+        }
+
+        // hills hanging off any edge of the grid
+        TileGrid grid = new TileGrid(20, 10, TileMaterial.HILLS);
+        for (int y = -SIZE; y <= 10; y += 3)
+            for (int x = -SIZE; x <= 20; x += 3)
+                TerrainStamps.stampHill(grid, 0, x, y, 2.f);
+        assertTrue(grid.getHeight(10, 5) > 1.f);
+    }
+
+    // start below anything a stamp makes, so raising always takes the stamp
+    private static void lower(TileGrid grid)
+    {
+        for (int y = 0; y < grid.getLength(); y++)
+            for (int x = 0; x < grid.getWidth(); x++)
+                grid.setHeight(x, y, -100.f);
+    }
+}
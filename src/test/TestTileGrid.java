@@ -0,0 +1,34 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.world.TileGrid;
+import shooter.world.TileMaterial;
+import shooter.world.WorldTile;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTileGrid
+{
+    @Test
+    public void TestTileViews()
+    {
+        TileGrid grid = new TileGrid(4, 3, TileMaterial.SNOW);
+        WorldTile tile = grid.getTile(2, 1);
+        assertSame(TileMaterial.SNOW, tile.getMaterial());
+
+        // views read and write the grid's storage
+        tile.setHeight(1.5f);
+        tile.increaseHeight(1.f);
+        assertEquals(1.5f, grid.getHeight(2, 1));
+        grid.getTile(2, 1).increaseHeight(3.f);
+        assertEquals(3.f, tile.getHeight());
+
+        tile.setMaterial(TileMaterial.ICE_WALL);
+        assertSame(TileMaterial.ICE_WALL, grid.getMaterial(2, 1));
+        assertSame(TileMaterial.SNOW, grid.getMaterial(1, 1));
+        assertSame(TileMaterial.ICE_WALL.getSideTexture(), tile.getSideTexture());
+        // materials are only added to the table once
+        grid.setMaterial(0, 0, TileMaterial.ICE_WALL);
+        assertEquals(2, grid.getNumMaterials());
+    }
+}
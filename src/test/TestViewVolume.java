@@ -0,0 +1,133 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import processing.core.PMatrix3D;
+import shooter.GameRandom;
+import shooter.ViewVolume;
+import shooter.particles.EffectFactory;
+import shooter.particles.ParticleEmitter;
+import shooter.world.World;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestViewVolume
+{
+    private static final float
+            HALF_W = 2.f,
+            NEAR = 0.01f,
+            FAR = 5.f,
+            CAM_Z = 2.4f;
+
+    // camera at (0, 0, CAM_Z) looking down the z-axis, like the game's ortho view
+    private static ViewVolume orthoView()
+    {
+        PMatrix3D m = new PMatrix3D(
+                1.f / HALF_W, 0, 0, 0,
+                0, 1.f / HALF_W, 0, 0,
+                0, 0, -2.f / (FAR - NEAR), -(FAR + NEAR) / (FAR - NEAR),
+                0, 0, 0, 1);
+        m.translate(0.f, 0.f, -CAM_Z);
+        ViewVolume result = new ViewVolume();
+        result.set(m);
+        return result;
+    }
+
+    // same camera with a 90 degree field of view
+    private static ViewVolume perspectiveView()
+    {
+        PMatrix3D m = new PMatrix3D(
+                1, 0, 0, 0,
+                0, 1, 0, 0,
+                0, 0, -(FAR + NEAR) / (FAR - NEAR), -2.f * FAR * NEAR / (FAR - NEAR),
+                0, 0, -1, 0);
+        m.translate(0.f, 0.f, -CAM_Z);
+        ViewVolume result = new ViewVolume();
+        result.set(m);
+        return result;
+    }
+
+    @Test
+    public void TestOrtho()
+    {
+        ViewVolume view = orthoView();
+        assertTrue(view.contains(0.f, 0.f, 0.f));
+        assertTrue(view.contains(1.9f, -1.9f, 0.f));
+        assertFalse(view.contains(2.1f, 0.f, 0.f));
+        // behind the camera
+        assertFalse(view.contains(0.f, 0.f, CAM_Z + 0.1f));
+        // boxes overlapping an edge are visible
+        assertTrue(view.intersects(1.9f, 0.f, 0.f, 3.f, 1.f, 1.f));
+        assertFalse(view.intersects(2.1f, 0.f, 0.f, 3.f, 1.f, 1.f));
+    }
+
+    @Test
+    public void TestPerspective()
+    {
+        ViewVolume view = perspectiveView();
+        // at the origin the view is CAM_Z wide either side, closer to the camera it narrows
+        assertTrue(view.contains(2.3f, 0.f, 0.f));
+        assertFalse(view.contains(2.3f, 0.f, 1.f));
+        assertTrue(view.contains(0.f, 0.f, 2.f));
+        assertFalse(view.contains(0.f, 0.f, CAM_Z + 0.1f));
+        assertFalse(view.intersects(-10.f, 3.f, 1.f, 10.f, 4.f, 2.f));
+
+        // until it is set, everything is visible
+        assertTrue(new ViewVolume().contains(100.f, 100.f, 100.f));
+    }
+
+    @Test
+    public void TestEmitterBoundsContainParticles()
+    {
+        GameRandom.seedAll(5L);
+        float[] min = new float[3], max = new float[3], pos = new float[3];
+        ParticleEmitter debris = new ParticleEmitter(EffectFactory.DEBRIS,
+                new float[]{1.f, 0.5f, 0.f}, new float[]{0.001f, -0.0005f, 0.f});
+        int frames = 0;
+        while (!debris.isExpired())
+        {
+            debris.update(16.f, frames % 3 != 0);
+            ++frames;
+            debris.getBounds(min, max);
+            for (int i = 0; i < debris.getNumParticles(); i++)
+            {
+                debris.getParticlePosition(i, pos);
+                for (int c = 0; c < 3; c++)
+                    assertTrue(pos[c] >= min[c] && pos[c] <= max[c], "Particle " + i + " frame " + frames);
+            }
+        }
+        assertTrue(frames > 1);
+
+        // an explosion far off the side of the screen is culled
+        ParticleEmitter far = new ParticleEmitter(EffectFactory.EXPLOSION, new float[]{10.f, 0.f, 0.f}, null);
+        far.update(16.f);
+        assertFalse(far.isVisible(orthoView()));
+        assertTrue(far.isVisible(new ViewVolume()));
+    }
+
+    @Test
+    public void TestBoundsContainBouncingParticles()
+    {
+        GameRandom.seedAll(6L);
+        World world = new World(6, World.DEFAULT_CACHE_BYTES);
+        float[] min = new float[3], max = new float[3], pos = new float[3];
+        ParticleEmitter debris = new ParticleEmitter(EffectFactory.DEBRIS,
+                new float[]{-0.5f, 0.2f, 0.8f}, new float[]{0.001f, -0.0005f, 0.f});
+        int frames = 0, touched = 0;
+        while (!debris.isExpired())
+        {
+            world.scrollWorld(0.001f, 16.f);
+            debris.update(16.f);
+            touched += debris.collide(world);
+            ++frames;
+            debris.getBounds(min, max);
+            for (int i = 0; i < debris.getNumParticles(); i++)
+            {
+                debris.getParticlePosition(i, pos);
+                assertTrue(pos[2] >= world.getHeight(pos[0], pos[1]) - 0.0001f);
+                for (int c = 0; c < 3; c++)
+                    assertTrue(pos[c] >= min[c] && pos[c] <= max[c], "Particle " + i + " frame " + frames);
+            }
+        }
+        assertTrue(touched > 0);
+    }
+}
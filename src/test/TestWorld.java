@@ -0,0 +1,130 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import shooter.world.*;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorld
+{
+    @Test
+    public void TestBackgroundGeneration() throws Exception
+    {
+        World world = new World();
+        for (int i = 0; i < 5; i++)
+        {
+            world.awaitNextChunk();
+            WorldChunk last = world.getChunk(1);
+            world.scrollWorld(1.f);
+            // the chunk which was last is now first, followed by the generated chunk
+            assertSame(last, world.getChunk(0));
+
+            // the new chunk is the same as one made on its own from its seed, index and biome
+            WorldChunk alone = new WorldChunk(world.getSeed(), world.getFirstChunkIndex() + 1, Biome.HILLS);
+            assertArrayEquals(alone.getMesh().getVertices(0), world.getChunk(1).getMesh().getVertices(0));
+        }
+        world.awaitNextChunk();
+        assertEquals(6, world.getNumChunksGenerated());
+        assertEquals(0, world.getNumChunksLate());
+        assertTrue(world.getMaxGenerationMillis() >= world.getAverageGenerationMillis());
+    }
+
+    @Test
+    public void TestRewind() throws Exception
+    {
+        final int CHUNKS = 6;
+        // nothing is cached, so scrolling back has to make every chunk again
+        World world = new World(42, 0);
+        float[][] first = new float[CHUNKS][];
+        for (int c = 0; c < CHUNKS; c++)
+        {
+            assertEquals(c, world.getFirstChunkIndex());
+            first[c] = world.getChunk(0).getMesh().getVertices(0);
+            world.awaitNextChunk();
+            world.scrollWorld(1.f);
+        }
+
+        for (int c = CHUNKS - 1; c >= 0; c--)
+        {
+            world.scrollWorld(-1.f);
+            assertEquals(c, world.getFirstChunkIndex());
+            assertArrayEquals(first[c], world.getChunk(0).getMesh().getVertices(0));
+        }
+        assertEquals(CHUNKS, world.getNumChunksRegenerated());
+
+        // can't scroll back past the first chunk
+        world.scrollWorld(-0.5f);
+        assertEquals(0, world.getFirstChunkIndex());
+
+        // a world with a cache gives the same chunks without making them again
+        World cached = new World(42, World.DEFAULT_CACHE_BYTES);
+        for (int c = 0; c < CHUNKS; c++)
+        {
+            cached.awaitNextChunk();
+            cached.scrollWorld(1.f);
+        }
+        cached.scrollWorld(-CHUNKS);
+        assertArrayEquals(first[0], cached.getChunk(0).getMesh().getVertices(0));
+        assertEquals(0, cached.getNumChunksRegenerated());
+    }
+
+    @Test
+    public void TestAnyOrder()
+    {
+        final long SEED = 99;
+        final int CHUNKS = 8;
+        Biome[] biomes = {Biome.HILLS, Biome.DESERT, Biome.ICE};
+        float[][] inOrder = new float[CHUNKS * biomes.length][];
+        for (int i = 0; i < inOrder.length; i++)
+            inOrder[i] = new WorldChunk(SEED, i % CHUNKS, biomes[i / CHUNKS]).getMesh().getVertices(0);
+
+        // backwards, and in parallel, give the same chunks
+        for (int i = inOrder.length - 1; i >= 0; i--)
+            assertArrayEquals(inOrder[i],
+                    new WorldChunk(SEED, i % CHUNKS, biomes[i / CHUNKS]).getMesh().getVertices(0));
+        float[][] parallel = IntStream.range(0, inOrder.length).parallel()
+                .mapToObj(i -> new WorldChunk(SEED, i % CHUNKS, biomes[i / CHUNKS]).getMesh().getVertices(0))
+                .toArray(float[][]::new);
+        for (int i = 0; i < inOrder.length; i++)
+            assertArrayEquals(inOrder[i], parallel[i]);
+    }
+
+    @Test
+    public void TestSeamAcrossBiomes() throws Exception
+    {
+        final int H = WorldChunk.CHUNK_H;
+        // the first chunk of a new biome carries on the hills of the last biome
+        World world = new World(17, World.DEFAULT_CACHE_BYTES);
+        boolean changed = false;
+        for (int i = 0; i < 24; i++)
+        {
+            world.awaitNextChunk();
+            world.scrollWorld(1.f);
+            Biome prev = world.getChunk(0).getBiome(), next = world.getChunk(1).getBiome();
+            WorldChunk alone = new WorldChunk(world.getSeed(), world.getFirstChunkIndex() + 1, next, prev,
+                    TerrainGenerator.STAMPED);
+            assertArrayEquals(alone.getMesh().getVertices(0), world.getChunk(1).getMesh().getVertices(0));
+            changed |= prev != next;
+        }
+        assertTrue(changed);
+
+        // replaying the previous chunk's hills with its own biome meets them at the
+        // seam, replaying them with the new biome's leaves phantom hills and cliffs
+        float matched = 0.f, mismatched = 0.f;
+        for (long seed = 0; seed < 40; seed++)
+        {
+            WorldChunk hills = new WorldChunk(seed, 4, Biome.HILLS),
+                       desert = new WorldChunk(seed, 5, Biome.DESERT, Biome.HILLS, TerrainGenerator.STAMPED),
+                       wrong = new WorldChunk(seed, 5, Biome.DESERT);
+            for (int x = 0; x < WorldChunk.CHUNK_W; x++)
+            {
+                float last = hills.getTerrain().getHeight(x, H - 1);
+                matched += Math.abs(desert.getTerrain().getHeight(x, 0) - last);
+                mismatched += Math.abs(wrong.getTerrain().getHeight(x, 0) - last);
+            }
+        }
+        assertTrue(matched < mismatched / 2.f);
+    }
+}
@@ -0,0 +1,125 @@
+package test;
+
+import org.junit.jupiter.api.Test;
+import processing.core.PMatrix3D;
+import processing.core.PVector;
+import shooter.GameRandom;
+import shooter.ViewVolume;
+import shooter.world.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestWorldCulling
+{
+    // the game's cameras, in world units
+    private static final float
+            ORTHO_HALF_W = 2.f,
+            V_FOV = (float)Math.toRadians(75.0), // square window
+            NEAR = 0.01f,
+            FAR = 5.f,
+            ORTHO_CAM_Z = 2.6f,
+            PERSPECTIVE_CAM_Y = -1.35f,
+            PERSPECTIVE_CAM_Z = 2.4f,
+            // where chunk 0's centre is drawn before any scrolling
+            FIRST_CHUNK_Y = 1.44f,
+            CHUNK_LENGTH = WorldChunk.CHUNK_H * WorldChunk.TILE_SIZE;
+
+    private static ViewVolume orthoView(float halfW)
+    {
+        PMatrix3D m = new PMatrix3D(
+                1.f / halfW, 0, 0, 0,
+                0, 1.f / halfW, 0, 0,
+                0, 0, -2.f / (FAR - NEAR), -(FAR + NEAR) / (FAR - NEAR),
+                0, 0, 0, 1);
+        m.apply(lookAt(new PVector(0.f, 0.f, ORTHO_CAM_Z), new PVector(0.f, 1.f, 0.f)));
+        ViewVolume result = new ViewVolume();
+        result.set(m);
+        return result;
+    }
+
+    // the perspective camera from eye, looking at the origin, with the z axis scaled by zScale
+    private static ViewVolume perspectiveView(PVector eye, float zScale)
+    {
+        float f = 1.f / (float)Math.tan(V_FOV / 2.f);
+        PMatrix3D m = new PMatrix3D(
+                f, 0, 0, 0,
+                0, f, 0, 0,
+                0, 0, (FAR + NEAR) / (NEAR - FAR), 2.f * FAR * NEAR / (NEAR - FAR),
+                0, 0, -1, 0);
+        m.apply(lookAt(eye, new PVector(0.f, 0.f, 1.f)));
+        m.scale(1.f, 1.f, zScale);
+        ViewVolume result = new ViewVolume();
+        result.set(m);
+        return result;
+    }
+
+    // a view matrix for a camera at eye looking at the origin, with up roughly along upGuess
+    private static PMatrix3D lookAt(PVector eye, PVector upGuess)
+    {
+        PVector f = PVector.mult(eye, -1.f).normalize();
+        PVector s = f.cross(upGuess).normalize();
+        PVector u = s.cross(f);
+        return new PMatrix3D(
+                s.x, s.y, s.z, -s.dot(eye),
+                u.x, u.y, u.z, -u.dot(eye),
+                -f.x, -f.y, -f.z, f.dot(eye),
+                0, 0, 0, 1);
+    }
+
+    private static int visibleBands(TerrainLod lod, ViewVolume view, float chunkY)
+    {
+        int result = 0;
+        for (int band = 0; band < TerrainLod.NUM_BANDS; band++)
+            if (lod.isBandVisible(view, band, chunkY))
+                result++;
+        return result;
+    }
+
+    @Test
+    public void TestBands()
+    {
+        TerrainLod lod = new WorldChunk(4, 0, Biome.HILLS).getLod();
+        ViewVolume ortho = orthoView(ORTHO_HALF_W),
+                perspective = perspectiveView(new PVector(0.f, PERSPECTIVE_CAM_Y, PERSPECTIVE_CAM_Z), 1.f);
+
+        // from above, the screen shows the first two bands of the first chunk
+        assertTrue(lod.isBandVisible(ortho, 0, FIRST_CHUNK_Y));
+        assertTrue(lod.isBandVisible(ortho, 1, FIRST_CHUNK_Y));
+        assertFalse(lod.isBandVisible(ortho, 2, FIRST_CHUNK_Y));
+        // tilted, it sees further up, but not past the far plane
+        assertEquals(3, visibleBands(lod, perspective, FIRST_CHUNK_Y));
+        for (ViewVolume view : new ViewVolume[] {ortho, perspective})
+            assertEquals(0, visibleBands(lod, view, FIRST_CHUNK_Y + CHUNK_LENGTH));
+
+        // scrolled most of a chunk, the first band has gone off the bottom
+        float scrolledY = FIRST_CHUNK_Y - 0.9f * CHUNK_LENGTH;
+        assertFalse(lod.isBandVisible(ortho, 0, scrolledY));
+        assertFalse(lod.isBandVisible(perspective, 0, scrolledY));
+        assertTrue(lod.isBandVisible(ortho, 2, scrolledY));
+        assertTrue(lod.isBandVisible(ortho, 0, scrolledY + CHUNK_LENGTH));
+
+        // halfway through the camera's move, with the z axis still half crushed
+        ViewVolume moving = perspectiveView(new PVector(0.f, PERSPECTIVE_CAM_Y / 2.f,
+                (ORTHO_CAM_Z + PERSPECTIVE_CAM_Z) / 2.f), 0.25f);
+        assertTrue(lod.isBandVisible(moving, 0, FIRST_CHUNK_Y));
+        assertEquals(0, visibleBands(lod, moving, FIRST_CHUNK_Y + CHUNK_LENGTH));
+
+        // without a camera, everything is drawn
+        assertEquals(TerrainLod.NUM_BANDS, visibleBands(lod, new ViewVolume(), FIRST_CHUNK_Y + 10.f * CHUNK_LENGTH));
+    }
+
+    @Test
+    public void TestDecorations()
+    {
+        // a view wide enough to take in a whole chunk
+        ViewVolume wide = orthoView(WorldChunk.CHUNK_W * WorldChunk.TILE_SIZE);
+        GameRandom rand = GameRandom.forKey(4, 0);
+        WorldObject[] objects = {new Pillar(rand), new Pyramid(rand)};
+        for (WorldObject o : objects)
+        {
+            assertTrue(o.isVisible(wide, 0.f));
+            assertFalse(o.isVisible(wide, 3.f * CHUNK_LENGTH));
+            assertFalse(o.isVisible(orthoView(ORTHO_HALF_W), FIRST_CHUNK_Y + CHUNK_LENGTH));
+        }
+    }
+}